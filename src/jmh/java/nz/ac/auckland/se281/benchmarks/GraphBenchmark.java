@@ -0,0 +1,230 @@
+package nz.ac.auckland.se281.benchmarks;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import nz.ac.auckland.se281.GraphGenerator;
+import nz.ac.auckland.se281.datastructures.Edge;
+import nz.ac.auckland.se281.datastructures.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of building a graph, checking its properties and searching it, over generated graphs
+ * of different sizes, densities and shapes. Run through the benchmark profile, which adds the GC
+ * profiler so the allocation rate of each benchmark is reported alongside its throughput.
+ *
+ * <p>A graph keeps the results of its checks and searches, so every query is run on a graph built
+ * fresh for that invocation. Otherwise all but the first call would only measure a cached answer.
+ * Building the graph and taking its snapshot happen in the setup, so they are not part of the
+ * measured time. The checks and searches run on the snapshot, as they do in the CLI, which takes
+ * the snapshot once and keeps it up to date as edges change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xss64m"})
+public class GraphBenchmark {
+
+  @Param({"1000", "10000"})
+  private int size;
+
+  // Ignored by CHAINS, which always has about one edge per vertex
+  @Param({"2", "8"})
+  private int averageDegree;
+
+  // Only used by CHAINS. A single chain is the deepest graph for the recursive searches
+  @Param({"1"})
+  private int chains;
+
+  @Param({"ERDOS_RENYI", "PREFERENTIAL_ATTACHMENT", "CHAINS", "EQUIVALENCE"})
+  private GraphGenerator.Model shape;
+
+  private Set<String> verticies;
+  private Set<Edge<String>> edges;
+
+  /**
+   * A graph built from the generated verticies and edges before each call, with its snapshot taken
+   * but nothing else cached.
+   */
+  @State(Scope.Thread)
+  public static class FreshGraph {
+
+    private Graph<String> graph;
+
+    /**
+     * Builds a new graph for the next call.
+     *
+     * @param benchmark The benchmark with the generated verticies and edges.
+     */
+    @Setup(Level.Invocation)
+    public void setUp(GraphBenchmark benchmark) {
+      graph = new Graph<String>(benchmark.verticies, benchmark.edges);
+      graph.getSnapshot();
+    }
+  }
+
+  /** Generates the verticies and edges for the current parameters. */
+  @Setup(Level.Trial)
+  public void setUp() {
+    verticies = new HashSet<String>();
+    edges = new HashSet<Edge<String>>();
+
+    for (int vertex = 0; vertex < size; vertex++) {
+      verticies.add(String.valueOf(vertex));
+    }
+
+    GraphGenerator.generate(
+        shape,
+        size,
+        parameter(),
+        42,
+        (source, destination) ->
+            edges.add(new Edge<String>(String.valueOf(source), String.valueOf(destination))));
+  }
+
+  /**
+   * Builds a new graph from the generated verticies and edges.
+   *
+   * @return The graph, so the work is not optimised away.
+   */
+  @Benchmark
+  public Graph<String> construct() {
+    return new Graph<String>(verticies, edges);
+  }
+
+  /**
+   * Checks if the graph is reflexive.
+   *
+   * @param fresh The graph to check.
+   * @return The result of the check.
+   */
+  @Benchmark
+  public boolean isReflexive(FreshGraph fresh) {
+    return fresh.graph.isReflexive();
+  }
+
+  /**
+   * Checks if the graph is symmetric.
+   *
+   * @param fresh The graph to check.
+   * @return The result of the check.
+   */
+  @Benchmark
+  public boolean isSymmetric(FreshGraph fresh) {
+    return fresh.graph.isSymmetric();
+  }
+
+  /**
+   * Checks if the graph is antisymmetric.
+   *
+   * @param fresh The graph to check.
+   * @return The result of the check.
+   */
+  @Benchmark
+  public boolean isAntiSymmetric(FreshGraph fresh) {
+    return fresh.graph.isAntiSymmetric();
+  }
+
+  /**
+   * Checks if the graph is transitive.
+   *
+   * @param fresh The graph to check.
+   * @return The result of the check.
+   */
+  @Benchmark
+  public boolean isTransitive(FreshGraph fresh) {
+    return fresh.graph.isTransitive();
+  }
+
+  /**
+   * Checks if the graph is an equivalence relation.
+   *
+   * @param fresh The graph to check.
+   * @return The result of the check.
+   */
+  @Benchmark
+  public boolean isEquivalence(FreshGraph fresh) {
+    return fresh.graph.isEquivalence();
+  }
+
+  /**
+   * Searches the graph with an iterative breadth-first search.
+   *
+   * @param fresh The graph to search.
+   * @return The verticies visited.
+   */
+  @Benchmark
+  public List<String> iterativeBreadthFirstSearch(FreshGraph fresh) {
+    return fresh.graph.iterativeBreadthFirstSearch();
+  }
+
+  /**
+   * Searches the graph with an iterative depth-first search.
+   *
+   * @param fresh The graph to search.
+   * @return The verticies visited.
+   */
+  @Benchmark
+  public List<String> iterativeDepthFirstSearch(FreshGraph fresh) {
+    return fresh.graph.iterativeDepthFirstSearch();
+  }
+
+  /**
+   * Searches the graph with a recursive breadth-first search.
+   *
+   * @param fresh The graph to search.
+   * @return The verticies visited.
+   */
+  @Benchmark
+  public List<String> recursiveBreadthFirstSearch(FreshGraph fresh) {
+    return fresh.graph.recursiveBreadthFirstSearch();
+  }
+
+  /**
+   * Searches the graph with a recursive depth-first search.
+   *
+   * @param fresh The graph to search.
+   * @return The verticies visited.
+   */
+  @Benchmark
+  public List<String> recursiveDepthFirstSearch(FreshGraph fresh) {
+    return fresh.graph.recursiveDepthFirstSearch();
+  }
+
+  /**
+   * Helper method to turn the average degree into the parameter of the shape.
+   *
+   * @return The parameter to generate the graph with.
+   */
+  private double parameter() {
+    switch (shape) {
+      case ERDOS_RENYI:
+        return (double) averageDegree / size;
+      case PREFERENTIAL_ATTACHMENT:
+        return averageDegree;
+      case CHAINS:
+        return chains;
+      case EQUIVALENCE:
+        // Each class of c verticies has c edges per vertex
+        return Math.max(1, size / averageDegree);
+      default:
+        throw new IllegalArgumentException(shape.toString());
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package nz.ac.auckland.se281;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Reads how many bytes the current thread has allocated, and how long the garbage collectors have
+ * run, so both can be measured around a command.
+ *
+ * <p>Allocation is counted per thread by the JVM, so it only includes the command itself. Garbage
+ * collection time is shared by the whole JVM, and is only kept to the millisecond.
+ */
+public class AllocationTracker {
+
+  private final com.sun.management.ThreadMXBean threads;
+  private final List<GarbageCollectorMXBean> collectors;
+
+  /**
+   * Creates a tracker, turning on the allocation counters of the JVM if they are off.
+   *
+   * @throws UnsupportedOperationException If the JVM can not count allocations per thread.
+   */
+  public AllocationTracker() {
+    if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+      throw new UnsupportedOperationException("no per-thread allocation counters");
+    }
+
+    threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!threads.isThreadAllocatedMemorySupported()) {
+      throw new UnsupportedOperationException("no per-thread allocation counters");
+    }
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    collectors = ManagementFactory.getGarbageCollectorMXBeans();
+  }
+
+  /**
+   * Get the number of bytes the current thread has allocated since it started.
+   *
+   * @return The bytes allocated.
+   */
+  public long getAllocatedBytes() {
+    return threads.getCurrentThreadAllocatedBytes();
+  }
+
+  /**
+   * Get how long every garbage collector has run for since the JVM started.
+   *
+   * @return The total collection time in milliseconds.
+   */
+  public long getCollectionTime() {
+    long total = 0;
+
+    // A collector that can not report its time returns -1
+    for (final GarbageCollectorMXBean collector : collectors) {
+      total += Math.max(0, collector.getCollectionTime());
+    }
+
+    return total;
+  }
+}
@@ -3,14 +3,23 @@ package nz.ac.auckland.se281;
 /**
  * The commands that the user can enter into the CLI.
  *
- * <p>You should not modify this class.
+ * <p>Each command needs a case in {@link Main} that runs it.
  */
 public enum Command {
   OPEN_FILE(1, "Open the file <FILENAME>"),
+  OPEN_GRAPH(2, "Open the file under a name, and start using it <ALIAS> <FILENAME>"),
+  USE_GRAPH(1, "Start using an open graph, or run one command on it with @ALIAS <ALIAS>"),
+  LIST_GRAPHS(0, "List the open graphs, their sizes and if they are in memory"),
+  CLOSE_GRAPH(1, "Close an open graph <ALIAS>"),
   INFO(0, "Print information about the current loaded file"),
 
   LIST_VERTICIES_EDGES(0, "List the set of vertices and edges"),
   LIST_ROOT_VERTICIES(0, "List the set of root vertices"),
+  STATS(0, "Print the degree statistics and density of the graph"),
+  MEMORY(0, "Print the estimated memory of each structure of the graph, and of a compact form"),
+
+  ADD_EDGE(2, "Add an edge to the loaded graph <SOURCE> <DESTINATION>"),
+  REMOVE_EDGE(2, "Remove an edge from the loaded graph <SOURCE> <DESTINATION>"),
 
   CHECK_REFLEXIVITY(0, "Check reflexivity of the graph"),
   CHECK_SYMMETRY(0, "Check symmetry of the graph"),
@@ -18,6 +27,9 @@ public enum Command {
   CHECK_ANTISYMMETRY(0, "Check anti-symmetry of the graph"),
   CHECK_EQUIVALENCE(0, "Check equivalence of the graph"),
   COMPUTE_EQUIVALENCE(1, "Compute equivalence class for a vertex in loaded file <VERTEX>"),
+  CHECK_PARTIAL_ORDER(0, "Check if the graph is a partial order"),
+  COMPUTE_HASSE_DIAGRAM(
+      0, "Compute the transitive reduction of the graph, which is the Hasse diagram of an order"),
 
   GRAPH_SEARCH_IBFS(
       0, "Perform a breadth-first search on the current loaded file, and display the BFS order"),
@@ -33,6 +45,37 @@ public enum Command {
       "Perform a recursive depth-first search on the current loaded file, and display the DFS"
           + " order"),
 
+  TOPOLOGICAL_SORT(
+      0,
+      "Perform a topological sort on the current loaded file, or display a cycle if there is"
+          + " one"),
+  SHORTEST_PATH(
+      2, "Find a shortest path between two verticies in the loaded file <SOURCE> <DESTINATION>"),
+  COMPUTE_NEIGHBOURHOOD(
+      3,
+      "Find the verticies within a number of hops of a vertex <VERTEX> <HOPS>"
+          + " <FORWARDS|BACKWARDS|BOTH>"),
+  INDEX_REACHABILITY(
+      0, "Build the reachability index of the current loaded file, and display its size"),
+  REACHABLE(
+      2, "Check if a vertex can reach another vertex in the loaded file <SOURCE> <DESTINATION>"),
+  PAGE_RANK(
+      4,
+      "Rank the verticies of the loaded file by importance <DAMPING> <TOLERANCE> <MAX_ITERATIONS>"
+          + " <TOP_K>"),
+  COUNT_TRIANGLES(
+      0, "Count the triangles of the symmetric graph, and display its clustering coefficients"),
+  COMPUTE_CLUSTERING(
+      1, "Compute the triangles and clustering coefficient for a vertex in loaded file <VERTEX>"),
+  COUNT_WEAK_COMPONENTS(0, "Count the weakly connected components of the graph, and their sizes"),
+  COMPUTE_WEAK_COMPONENT(
+      1, "Compute the weakly connected component for a vertex in loaded file <VERTEX>"),
+
+  JOBS(0, "List the commands running in the background, started by ending a command with &"),
+  WAIT(1, "Wait for a background command to finish and print its output <JOB>"),
+  CANCEL(1, "Cancel a background command and discard its output <JOB>"),
+  SET_TIMEOUT(1, "Stop any later command that runs for longer, or 0 for no limit <MILLISECONDS>"),
+  PROFILE(0, "Print the call count, latency percentiles and last graph size of each command"),
   HELP(0, "Print usage"),
   EXIT(0, "Exit the application");
 
@@ -0,0 +1,169 @@
+package nz.ac.auckland.se281;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The latency of every command run in the CLI, kept in a histogram for each command along with the
+ * size of the graph the command last ran on. When allocation tracking is on, the bytes allocated by
+ * each command are kept in a second histogram, along with the total garbage collection time.
+ */
+public class CommandMetrics {
+
+  private static final String CSV_HEADER =
+      "command,count,p50_ns,p99_ns,max_ns,total_ns,last_verticies,last_edges,"
+          + "alloc_p50_bytes,alloc_p99_bytes,alloc_max_bytes,alloc_total_bytes,gc_ms";
+
+  private final Map<Command, LatencyHistogram> histograms =
+      new EnumMap<Command, LatencyHistogram>(Command.class);
+  private final Map<Command, long[]> lastSizes = new EnumMap<Command, long[]>(Command.class);
+  private final Map<Command, LatencyHistogram> allocations =
+      new EnumMap<Command, LatencyHistogram>(Command.class);
+  private final Map<Command, Long> collectionTimes = new EnumMap<Command, Long>(Command.class);
+
+  /**
+   * Records one run of a command.
+   *
+   * @param command The command that was run.
+   * @param nanos How long the command took in nanoseconds.
+   * @param verticies The number of verticies in the graph afterwards.
+   * @param edges The number of edges in the graph afterwards.
+   */
+  public synchronized void record(Command command, long nanos, long verticies, long edges) {
+    histograms.computeIfAbsent(command, c -> new LatencyHistogram()).record(nanos);
+    lastSizes.put(command, new long[] {verticies, edges});
+  }
+
+  /**
+   * Records what one run of a command allocated.
+   *
+   * @param command The command that was run.
+   * @param bytes The bytes allocated by the command.
+   * @param collectionTime The milliseconds spent collecting garbage while the command ran.
+   */
+  public synchronized void recordAllocation(Command command, long bytes, long collectionTime) {
+    allocations.computeIfAbsent(command, c -> new LatencyHistogram()).record(bytes);
+    collectionTimes.merge(command, collectionTime, Long::sum);
+  }
+
+  /**
+   * Get the bytes allocated by each run of a command.
+   *
+   * @param command The command.
+   * @return The histogram of bytes allocated, or null if it has not been run with allocation
+   *     tracking on.
+   */
+  public synchronized LatencyHistogram getAllocationHistogram(Command command) {
+    return allocations.get(command);
+  }
+
+  /**
+   * Get the latencies of a command.
+   *
+   * @param command The command.
+   * @return The histogram of its latencies, or null if it has not been run.
+   */
+  public synchronized LatencyHistogram getHistogram(Command command) {
+    return histograms.get(command);
+  }
+
+  /** Prints the call count, latency percentiles and last graph size of each command run so far. */
+  public synchronized void printProfile() {
+    if (histograms.isEmpty()) {
+      MessageCli.NO_PROFILE.printMessage();
+      return;
+    }
+
+    for (final Map.Entry<Command, LatencyHistogram> entry : histograms.entrySet()) {
+      final LatencyHistogram histogram = entry.getValue();
+      final long[] size = lastSizes.get(entry.getKey());
+
+      MessageCli.PROFILE_COMMAND.printMessage(
+          entry.getKey().toString(),
+          String.valueOf(histogram.getCount()),
+          toMillis(histogram.getValueAtPercentile(50)),
+          toMillis(histogram.getValueAtPercentile(99)),
+          toMillis(histogram.getMax()),
+          String.valueOf(size[0]),
+          String.valueOf(size[1]));
+
+      final LatencyHistogram allocation = allocations.get(entry.getKey());
+      if (allocation != null) {
+        MessageCli.PROFILE_ALLOCATION.printMessage(
+            String.valueOf(allocation.getValueAtPercentile(50)),
+            String.valueOf(allocation.getValueAtPercentile(99)),
+            String.valueOf(allocation.getMax()),
+            String.valueOf(collectionTimes.get(entry.getKey())));
+      }
+    }
+  }
+
+  /**
+   * Writes the metrics of each command run so far as comma separated values, one line per command
+   * after a header line. Latencies are in nanoseconds, and the allocation columns are left empty
+   * for commands run without allocation tracking.
+   *
+   * @param file The file to write to.
+   * @throws IOException If the file cannot be written.
+   */
+  public synchronized void write(Path file) throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+      writer.write(CSV_HEADER);
+      writer.newLine();
+
+      for (final Map.Entry<Command, LatencyHistogram> entry : histograms.entrySet()) {
+        final LatencyHistogram histogram = entry.getValue();
+        final long[] size = lastSizes.get(entry.getKey());
+
+        writer.write(
+            String.join(
+                ",",
+                entry.getKey().toString(),
+                String.valueOf(histogram.getCount()),
+                String.valueOf(histogram.getValueAtPercentile(50)),
+                String.valueOf(histogram.getValueAtPercentile(99)),
+                String.valueOf(histogram.getMax()),
+                String.valueOf(histogram.getTotal()),
+                String.valueOf(size[0]),
+                String.valueOf(size[1]),
+                toCsv(allocations.get(entry.getKey()), collectionTimes.get(entry.getKey()))));
+        writer.newLine();
+      }
+    }
+  }
+
+  /**
+   * Helper method to format the allocation columns of a command.
+   *
+   * @param allocation The bytes allocated by each run, or null if allocations were not tracked.
+   * @param collectionTime The total garbage collection time in milliseconds.
+   * @return The allocation columns, which are empty if allocations were not tracked.
+   */
+  private String toCsv(LatencyHistogram allocation, Long collectionTime) {
+    if (allocation == null) {
+      return ",,,,";
+    }
+
+    return String.join(
+        ",",
+        String.valueOf(allocation.getValueAtPercentile(50)),
+        String.valueOf(allocation.getValueAtPercentile(99)),
+        String.valueOf(allocation.getMax()),
+        String.valueOf(allocation.getTotal()),
+        String.valueOf(collectionTime));
+  }
+
+  /**
+   * Helper method to format a latency in milliseconds.
+   *
+   * @param nanos The latency in nanoseconds.
+   * @return The latency in milliseconds to 3 decimal places.
+   */
+  private String toMillis(long nanos) {
+    return String.format("%.3f", nanos / 1e6);
+  }
+}
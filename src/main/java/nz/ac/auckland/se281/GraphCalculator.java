@@ -5,27 +5,43 @@ import com.paypal.digraph.parser.GraphNode;
 import com.paypal.digraph.parser.GraphParser;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import nz.ac.auckland.se281.datastructures.CancellationToken;
 import nz.ac.auckland.se281.datastructures.Edge;
 import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphStatistics;
+import nz.ac.auckland.se281.datastructures.MemoryFootprint;
+import nz.ac.auckland.se281.datastructures.NeighbourhoodSearch;
+import nz.ac.auckland.se281.datastructures.PageRank;
+import nz.ac.auckland.se281.datastructures.PartialOrder;
+import nz.ac.auckland.se281.datastructures.ReachabilityIndex;
+import nz.ac.auckland.se281.datastructures.TopologicalOrder;
+import nz.ac.auckland.se281.datastructures.Triangles;
+import nz.ac.auckland.se281.datastructures.WeakComponents;
 
 /**
  * The calculator that reports properties of graphs to the user.
  *
- * <p>You should not modify this class.
+ * <p>It reads a test case into a {@link Graph}, and keeps the verticies and edges in the order of
+ * the file for printing. The checks and searches read the snapshot of the graph, so a background
+ * job sees the graph as it was when the job asked for it.
  */
 public class GraphCalculator {
   private static final Path TESTCASES = Path.of("testcases");
 
   private final Path file;
 
-  private final Collection<GraphNode> verticies;
+  private final Set<String> verticies;
 
-  private final Collection<GraphEdge> edges;
+  private final Set<Edge<String>> edges;
 
   private final Graph<String> graph;
 
@@ -38,26 +54,118 @@ public class GraphCalculator {
   public GraphCalculator(final String filename) throws FileNotFoundException {
     file = TESTCASES.resolve(filename);
 
-    final GraphParser parser = new GraphParser(new FileInputStream(file.toFile()));
+    final CancellationToken token = CancellationToken.current();
+    token.begin("reading the file", file.toFile().length(), "bytes");
 
-    this.verticies = parser.getNodes().values();
-    this.edges = parser.getEdges().values();
+    final GraphParser parser =
+        new GraphParser(new ProgressInputStream(new FileInputStream(file.toFile()), token));
 
-    final Set<String> verticies = new HashSet<>();
+    // Keep the order of the file for listing the verticies and edges.
+    verticies = new LinkedHashSet<>();
 
-    for (final GraphNode node : this.verticies) {
+    token.begin("collecting verticies", parser.getNodes().size(), "verticies");
+    for (final GraphNode node : parser.getNodes().values()) {
+      token.checkpoint();
       verticies.add(node.getId());
     }
 
-    final Set<Edge<String>> edges = new HashSet<>();
+    edges = new LinkedHashSet<>();
 
-    for (final GraphEdge edge : this.edges) {
+    token.begin("collecting edges", parser.getEdges().size(), "edges");
+    for (final GraphEdge edge : parser.getEdges().values()) {
+      token.checkpoint();
       edges.add(new Edge<>(edge.getNode1().getId(), edge.getNode2().getId()));
     }
 
     graph = new Graph<>(verticies, edges);
   }
 
+  /**
+   * Creates a graph calculator from verticies and edges that were read before.
+   *
+   * @param filename The name of the test case the graph was first read from.
+   * @param verticies The verticies in the order of the file.
+   * @param edges The edges in the order of the file.
+   */
+  public GraphCalculator(
+      final String filename, final Set<String> verticies, final Set<Edge<String>> edges) {
+    file = TESTCASES.resolve(filename);
+    this.verticies = new LinkedHashSet<>(verticies);
+    this.edges = new LinkedHashSet<>(edges);
+    graph = new Graph<>(this.verticies, this.edges);
+  }
+
+  /**
+   * Get the number of verticies in the graph.
+   *
+   * @return The number of verticies.
+   */
+  public int getVertexCount() {
+    return verticies.size();
+  }
+
+  /**
+   * Get the number of edges in the graph.
+   *
+   * @return The number of edges.
+   */
+  public int getEdgeCount() {
+    return edges.size();
+  }
+
+  /**
+   * Get the name of the test case the graph was read from.
+   *
+   * @return The file name, relative to the test cases folder.
+   */
+  public String getFilename() {
+    return TESTCASES.relativize(file).toString();
+  }
+
+  /**
+   * Get the verticies of the graph in the order of the file.
+   *
+   * @return The verticies, which must not be changed.
+   */
+  public Set<String> getVerticies() {
+    return verticies;
+  }
+
+  /**
+   * Get the edges of the graph in the order of the file.
+   *
+   * @return The edges, which must not be changed.
+   */
+  public Set<Edge<String>> getEdges() {
+    return edges;
+  }
+
+  /**
+   * Estimates how much heap each structure of the graph takes up, including the sets the calculator
+   * keeps in the order of the file. The collections of the parser are not counted, as they are
+   * released once the file has been read.
+   *
+   * @return The estimated footprint of the graph.
+   */
+  public MemoryFootprint getMemoryFootprint() {
+    final MemoryFootprint footprint = graph.getMemoryFootprint();
+
+    // The sets share their verticies and edges with the graph, so only the sets are counted
+    footprint.add("verticies in file order", MemoryFootprint.linkedHashSet(verticies.size()));
+    footprint.add("edges in file order", MemoryFootprint.linkedHashSet(edges.size()));
+    return footprint;
+  }
+
+  /**
+   * Estimates how much heap the graph takes up, from the sizes of the structures kept by the
+   * calculator and the graph.
+   *
+   * @return The estimated size in bytes.
+   */
+  public long estimateBytes() {
+    return getMemoryFootprint().getTotal();
+  }
+
   /** Prints the filename of the test case that is loaded. */
   public void printInfo() {
     MessageCli.INFO.printMessage(TESTCASES.relativize(file).toString());
@@ -68,52 +176,169 @@ public class GraphCalculator {
     final StringBuilder sb = new StringBuilder("Verticies:").append(System.lineSeparator());
 
     // Vertically print each vertex.
-    for (final GraphNode node : verticies) {
-      sb.append("\t").append(node.getId()).append(System.lineSeparator());
+    for (final String vertex : verticies) {
+      sb.append("\t").append(vertex).append(System.lineSeparator());
     }
 
     sb.append(System.lineSeparator()).append("Edges:").append(System.lineSeparator());
 
     // Vertically print each edge between verticies.
-    for (final GraphEdge edge : edges) {
+    for (final Edge<String> edge : edges) {
       sb.append("\t")
-          .append(edge.getNode1().getId())
+          .append(edge.getSource())
           .append(" -> ")
-          .append(edge.getNode2().getId())
+          .append(edge.getDestination())
           .append(System.lineSeparator());
     }
 
     System.out.print(sb.toString());
   }
 
+  /** Prints the size, density and degree statistics of the graph. */
+  public void printStatistics() {
+    final GraphStatistics statistics = graph.getStatistics();
+    final String meanDegree = String.format("%.2f", statistics.getMeanDegree());
+
+    MessageCli.STATS_SIZE.printMessage(
+        String.valueOf(statistics.getVertexCount()),
+        String.valueOf(statistics.getEdgeCount()),
+        String.valueOf(statistics.getSelfLoopCount()),
+        String.format("%.4f", statistics.getDensity()));
+    MessageCli.STATS_DEGREE.printMessage(
+        "Out",
+        String.valueOf(statistics.getMaxOutDegree()),
+        meanDegree,
+        statistics.getOutDegreeHistogram().toString());
+    MessageCli.STATS_DEGREE.printMessage(
+        "In",
+        String.valueOf(statistics.getMaxInDegree()),
+        meanDegree,
+        statistics.getInDegreeHistogram().toString());
+  }
+
+  /**
+   * Prints the estimated memory of each structure of the graph, how it compares with a compact
+   * representation, and how many graphs of its size the heap could hold.
+   */
+  public void printMemory() {
+    final MemoryFootprint footprint = getMemoryFootprint();
+    final long total = footprint.getTotal();
+
+    for (final Map.Entry<String, Long> part : footprint.getParts().entrySet()) {
+      MessageCli.MEMORY_PART.printMessage(
+          part.getKey(),
+          String.valueOf(part.getValue()),
+          String.valueOf(percent(part.getValue(), total)));
+    }
+    MessageCli.MEMORY_TOTAL.printMessage(
+        String.valueOf(total), String.valueOf(verticies.size()), String.valueOf(edges.size()));
+    MessageCli.MEMORY_COMPACT.printMessage(
+        String.valueOf(footprint.getCompactBytes()),
+        String.valueOf(percent(footprint.getCompactBytes(), total)));
+
+    final long maxHeap = Runtime.getRuntime().maxMemory();
+    MessageCli.MEMORY_HEAP.printMessage(String.valueOf(maxHeap), String.valueOf(maxHeap / total));
+  }
+
+  /**
+   * Adds an edge to the graph, along with either vertex if it is new.
+   *
+   * @param source The source vertex of the edge.
+   * @param destination The destination vertex of the edge.
+   */
+  public void addEdge(final String source, final String destination) {
+    for (final String vertex : new String[] {source, destination}) {
+      if (!isWholeNumber(vertex)) {
+        MessageCli.INVALID_VERTEX.printMessage(vertex);
+        return;
+      }
+    }
+
+    if (!graph.addEdge(source, destination)) {
+      MessageCli.EDGE_ALREADY_EXISTS.printMessage(source, destination);
+      return;
+    }
+
+    verticies.add(source);
+    verticies.add(destination);
+    edges.add(new Edge<>(source, destination));
+    MessageCli.EDGE_ADDED.printMessage(source, destination);
+  }
+
+  /**
+   * Removes an edge from the graph. Both verticies stay in the graph.
+   *
+   * @param source The source vertex of the edge.
+   * @param destination The destination vertex of the edge.
+   */
+  public void removeEdge(final String source, final String destination) {
+    if (!graph.removeEdge(source, destination)) {
+      MessageCli.EDGE_NOT_FOUND.printMessage(source, destination);
+      return;
+    }
+
+    edges.remove(new Edge<>(source, destination));
+    MessageCli.EDGE_REMOVED.printMessage(source, destination);
+  }
+
   /** Prints the set of verticies in the graph that are root verticies. */
   public void printRoots() {
-    System.out.println(graph.getRoots());
+    System.out.println(graph.getSnapshot().getRoots());
   }
 
   /** Prints if the set of verticies in the graph exhibit the reflexivity property. */
   public void printReflexitivity() {
-    MessageCli.GRAPH_REFLEXIVE.printMessage(prefixNot(graph.isReflexive()));
+    MessageCli.GRAPH_REFLEXIVE.printMessage(prefixNot(graph.getSnapshot().isReflexive()));
   }
 
   /** Prints if the set of edges in the graph exhibit the symmetric property. */
   public void printSymmetry() {
-    MessageCli.GRAPH_SYMMETRIC.printMessage(prefixNot(graph.isSymmetric()));
+    MessageCli.GRAPH_SYMMETRIC.printMessage(prefixNot(graph.getSnapshot().isSymmetric()));
   }
 
   /** Prints if the set of edges in the graph exhibit transitivity. */
   public void printTransitivity() {
-    MessageCli.GRAPH_TRANSITIVE.printMessage(prefixNot(graph.isTransitive()));
+    MessageCli.GRAPH_TRANSITIVE.printMessage(prefixNot(graph.getSnapshot().isTransitive()));
   }
 
   /** Prints if the set of edges in the graph exhibit anti-symmetry. */
   public void printAntiSymmetry() {
-    MessageCli.GRAPH_ANTI_SYMMETRIC.printMessage(prefixNot(graph.isAntiSymmetric()));
+    MessageCli.GRAPH_ANTI_SYMMETRIC.printMessage(prefixNot(graph.getSnapshot().isAntiSymmetric()));
   }
 
   /** Prints if the entire graph is considered an equivalence relation. */
   public void printEquivalence() {
-    MessageCli.GRAPH_EQUIVALENCE.printMessage(prefixNot(graph.isEquivalence()));
+    MessageCli.GRAPH_EQUIVALENCE.printMessage(prefixNot(graph.getSnapshot().isEquivalence()));
+  }
+
+  /** Prints if the entire graph is considered a partial order. */
+  public void printPartialOrder() {
+    MessageCli.GRAPH_PARTIAL_ORDER.printMessage(prefixNot(graph.isPartialOrder()));
+  }
+
+  /** Prints the edges of the transitive reduction, one per line in vertex order. */
+  public void printHasseDiagram() {
+    final PartialOrder<String> partialOrder = graph.getPartialOrder();
+
+    if (!partialOrder.isAcyclic()) {
+      MessageCli.NO_HASSE_DIAGRAM.printMessage();
+      return;
+    }
+
+    final List<Edge<String>> coverEdges = partialOrder.getCoverEdges();
+    MessageCli.HASSE_DIAGRAM.printMessage(
+        String.valueOf(coverEdges.size()), String.valueOf(edges.size()));
+
+    final StringBuilder sb = new StringBuilder();
+    for (final Edge<String> edge : coverEdges) {
+      sb.append("\t")
+          .append(edge.getSource())
+          .append(" -> ")
+          .append(edge.getDestination())
+          .append(System.lineSeparator());
+    }
+
+    System.out.print(sb.toString());
   }
 
   /**
@@ -122,29 +347,306 @@ public class GraphCalculator {
    * @param vertex The vertex to compute the equivalence class of.
    */
   public void printEquivalenceClass(final String vertex) {
-    final Object[] equivalenceClass = graph.getEquivalenceClass(vertex).toArray();
+    final Object[] equivalenceClass = graph.getSnapshot().getEquivalenceClass(vertex).toArray();
     Arrays.sort(equivalenceClass);
     System.out.println(Arrays.toString(equivalenceClass));
   }
 
   /** Prints the search order of an iterative breadth first search. */
   public void printIterativeBreadthFirstSearch() {
-    System.out.println(Arrays.toString(graph.iterativeBreadthFirstSearch().toArray()));
+    System.out.println(
+        Arrays.toString(graph.getSnapshot().iterativeBreadthFirstSearch().toArray()));
   }
 
   /** Prints the search order of an iterative depth first search. */
   public void printDepthFirstSearch() {
-    System.out.println(Arrays.toString(graph.iterativeDepthFirstSearch().toArray()));
+    System.out.println(Arrays.toString(graph.getSnapshot().iterativeDepthFirstSearch().toArray()));
   }
 
   /** Prints the search order of a recursive breadth first search. */
   public void printRecursiveBreadthFirstSearch() {
-    System.out.println(Arrays.toString(graph.recursiveBreadthFirstSearch().toArray()));
+    System.out.println(
+        Arrays.toString(graph.getSnapshot().recursiveBreadthFirstSearch().toArray()));
   }
 
   /** Prints the search order of a recursive depth first search. */
   public void printRecursiveDepthFirstSearch() {
-    System.out.println(Arrays.toString(graph.recursiveDepthFirstSearch().toArray()));
+    System.out.println(Arrays.toString(graph.getSnapshot().recursiveDepthFirstSearch().toArray()));
+  }
+
+  /** Prints the topological order of the graph, or a cycle if the graph is not acyclic. */
+  public void printTopologicalSort() {
+    final TopologicalOrder<String> order = graph.topologicalSort();
+
+    if (!order.isAcyclic()) {
+      MessageCli.GRAPH_CYCLE.printMessage(Arrays.toString(order.getCycle().toArray()));
+      return;
+    }
+
+    System.out.println(Arrays.toString(order.getOrder().toArray()));
+  }
+
+  /**
+   * Prints a shortest path between two verticies and the number of edges along it.
+   *
+   * @param source The vertex the path starts at.
+   * @param destination The vertex the path ends at.
+   */
+  public void printShortestPath(final String source, final String destination) {
+    for (final String vertex : new String[] {source, destination}) {
+      if (!graph.containsVertex(vertex)) {
+        MessageCli.VERTEX_NOT_FOUND.printMessage(vertex);
+        return;
+      }
+    }
+
+    final List<String> path = graph.findShortestPath(source, destination);
+
+    if (path.isEmpty()) {
+      MessageCli.NO_PATH.printMessage(source, destination);
+      return;
+    }
+
+    MessageCli.SHORTEST_PATH.printMessage(
+        source, destination, Arrays.toString(path.toArray()), String.valueOf(path.size() - 1));
+  }
+
+  /**
+   * Prints the verticies within a number of hops of a vertex, one line for each distance.
+   *
+   * @param vertex The vertex to search from.
+   * @param hops The most edges to follow.
+   * @param direction The edges to follow, forwards, backwards or both.
+   */
+  public void printNeighbourhood(final String vertex, final String hops, final String direction) {
+    final int hopsValue;
+    final NeighbourhoodSearch.Direction directionValue;
+
+    try {
+      hopsValue = Integer.parseInt(hops);
+    } catch (final NumberFormatException e) {
+      MessageCli.INVALID_NUMBER.printMessage(hops, "number of hops");
+      return;
+    }
+
+    if (hopsValue < 0) {
+      MessageCli.INVALID_NUMBER.printMessage(hops, "number of hops");
+      return;
+    }
+
+    try {
+      directionValue = NeighbourhoodSearch.Direction.valueOf(direction.toUpperCase());
+    } catch (final IllegalArgumentException e) {
+      MessageCli.INVALID_DIRECTION.printMessage(
+          direction, Arrays.toString(NeighbourhoodSearch.Direction.values()));
+      return;
+    }
+
+    if (!graph.containsVertex(vertex)) {
+      MessageCli.VERTEX_NOT_FOUND.printMessage(vertex);
+      return;
+    }
+
+    final List<List<String>> layers = graph.findNeighbourhood(vertex, hopsValue, directionValue);
+
+    int count = 0;
+    for (final List<String> layer : layers) {
+      count += layer.size();
+    }
+
+    MessageCli.NEIGHBOURHOOD.printMessage(
+        String.valueOf(count), hops, vertex, directionValue.name().toLowerCase());
+    for (int i = 0; i < layers.size(); i++) {
+      MessageCli.NEIGHBOURHOOD_LAYER.printMessage(
+          String.valueOf(i), Arrays.toString(layers.get(i).toArray()));
+    }
+  }
+
+  /** Prints how long the reachability index took to build and how large it is. */
+  public void printReachabilityIndex() {
+    final ReachabilityIndex<String> index = graph.getReachabilityIndex();
+
+    MessageCli.REACHABILITY_INDEX.printMessage(
+        String.format("%.3f", index.getBuildTime() / 1e6),
+        String.valueOf(index.getComponentCount()),
+        String.valueOf(index.getIntervalCount()),
+        String.valueOf(index.getSizeInBytes()));
+  }
+
+  /**
+   * Prints if there is a path from one vertex to another.
+   *
+   * @param source The vertex to start from.
+   * @param destination The vertex to finish at.
+   */
+  public void printReachable(final String source, final String destination) {
+    for (final String vertex : new String[] {source, destination}) {
+      if (!graph.containsVertex(vertex)) {
+        MessageCli.VERTEX_NOT_FOUND.printMessage(vertex);
+        return;
+      }
+    }
+
+    MessageCli.REACHABLE.printMessage(
+        source, prefixNot(graph.isReachable(source, destination)), destination);
+  }
+
+  /**
+   * Prints the time taken by each iteration of PageRank, and the highest ranked verticies.
+   *
+   * @param damping The chance of following an edge, between 0 and 1.
+   * @param tolerance The total change in scores below which the scores have converged.
+   * @param maxIterations The most iterations to run.
+   * @param count The number of highest ranked verticies to print.
+   */
+  public void printPageRank(
+      final String damping,
+      final String tolerance,
+      final String maxIterations,
+      final String count) {
+    final double dampingValue;
+    final double toleranceValue;
+    final int maxIterationsValue;
+    final int countValue;
+
+    try {
+      dampingValue = Double.parseDouble(damping);
+      toleranceValue = Double.parseDouble(tolerance);
+      maxIterationsValue = Integer.parseInt(maxIterations);
+      countValue = Integer.parseInt(count);
+    } catch (final NumberFormatException e) {
+      MessageCli.INVALID_NUMBER.printMessage(
+          damping + " " + tolerance + " " + maxIterations + " " + count, "set of PageRank options");
+      return;
+    }
+
+    if (dampingValue < 0 || dampingValue > 1) {
+      MessageCli.INVALID_NUMBER.printMessage(damping, "damping factor");
+      return;
+    }
+
+    if (maxIterationsValue < 1) {
+      MessageCli.INVALID_NUMBER.printMessage(maxIterations, "number of iterations");
+      return;
+    }
+
+    // Written so a tolerance that is not a number is refused too
+    if (!(toleranceValue > 0)) {
+      MessageCli.INVALID_NUMBER.printMessage(tolerance, "tolerance");
+      return;
+    }
+
+    if (countValue < 0) {
+      MessageCli.INVALID_NUMBER.printMessage(count, "number of verticies to list");
+      return;
+    }
+
+    final PageRank<String> pageRank =
+        graph.computePageRank(dampingValue, toleranceValue, maxIterationsValue);
+
+    for (int i = 0; i < pageRank.getIterationTimes().size(); i++) {
+      MessageCli.PAGE_RANK_ITERATION.printMessage(
+          String.valueOf(i + 1),
+          String.format("%.3f", pageRank.getIterationTimes().get(i) / 1e6),
+          String.format("%.6f", pageRank.getIterationChanges().get(i)));
+    }
+
+    MessageCli.PAGE_RANK_RESULT.printMessage(
+        pageRank.isConverged() ? "converged" : "did not converge",
+        String.valueOf(pageRank.getIterationTimes().size()));
+
+    final List<String> top = pageRank.getTopVerticies(countValue);
+    for (int i = 0; i < top.size(); i++) {
+      MessageCli.PAGE_RANK_VERTEX.printMessage(
+          String.valueOf(i + 1), top.get(i), String.format("%.6f", pageRank.getScore(top.get(i))));
+    }
+  }
+
+  /** Prints the number of triangles and the clustering coefficients of a symmetric graph. */
+  public void printTriangles() {
+    if (!graph.isSymmetric()) {
+      MessageCli.TRIANGLES_NEED_SYMMETRY.printMessage();
+      return;
+    }
+
+    final Triangles<String> triangles = graph.getTriangles();
+
+    MessageCli.TRIANGLES.printMessage(
+        String.valueOf(triangles.getTriangleCount()),
+        String.format("%.4f", triangles.getGlobalClusteringCoefficient()),
+        String.format("%.4f", triangles.getAverageClusteringCoefficient()));
+  }
+
+  /**
+   * Prints the number of triangles a vertex is in, and its local clustering coefficient.
+   *
+   * @param vertex The vertex to print the clustering of.
+   */
+  public void printClustering(final String vertex) {
+    if (!graph.isSymmetric()) {
+      MessageCli.TRIANGLES_NEED_SYMMETRY.printMessage();
+      return;
+    }
+
+    if (!graph.containsVertex(vertex)) {
+      MessageCli.VERTEX_NOT_FOUND.printMessage(vertex);
+      return;
+    }
+
+    final Triangles<String> triangles = graph.getTriangles();
+
+    MessageCli.VERTEX_TRIANGLES.printMessage(
+        vertex,
+        String.valueOf(triangles.getTriangleCount(vertex)),
+        String.format("%.4f", triangles.getLocalClusteringCoefficient(vertex)));
+  }
+
+  /** Prints the number of weakly connected components and how many there are of each size. */
+  public void printWeakComponents() {
+    final WeakComponents<String> components = graph.getWeakComponents();
+
+    MessageCli.WEAK_COMPONENT_COUNT.printMessage(String.valueOf(components.getCount()));
+    MessageCli.WEAK_COMPONENT_SIZES.printMessage(components.getSizeDistribution().toString());
+  }
+
+  /**
+   * Prints the verticies in the weakly connected component of the given vertex.
+   *
+   * @param vertex The vertex to find the component of.
+   */
+  public void printWeakComponent(final String vertex) {
+    if (!graph.containsVertex(vertex)) {
+      MessageCli.VERTEX_NOT_FOUND.printMessage(vertex);
+      return;
+    }
+
+    System.out.println(Arrays.toString(graph.getWeakComponents().getComponent(vertex).toArray()));
+  }
+
+  /**
+   * Checks if a vertex name can be ordered like the other verticies of the graph.
+   *
+   * @param vertex The name of the vertex.
+   * @return If the name is a whole number.
+   */
+  private boolean isWholeNumber(final String vertex) {
+    try {
+      Integer.parseInt(vertex);
+      return true;
+    } catch (final NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Works out what percentage one amount is of another.
+   *
+   * @param part The amount.
+   * @param whole The amount it is a part of.
+   * @return The whole percentage, rounded down.
+   */
+  private static long percent(final long part, final long whole) {
+    return whole == 0 ? 0 : part * 100 / whole;
   }
 
   /**
@@ -156,4 +658,53 @@ public class GraphCalculator {
   private String prefixNot(final boolean isPropertyTrue) {
     return isPropertyTrue ? "" : "NOT ";
   }
+
+  /**
+   * Counts the bytes read from a file as progress, and moves on to the parsing phase once the whole
+   * file has been read, as the parser reads the file before it parses any of it.
+   */
+  private static class ProgressInputStream extends FilterInputStream {
+
+    private final CancellationToken token;
+    private boolean finished;
+
+    /**
+     * Creates the stream.
+     *
+     * @param in The stream of the file.
+     * @param token The token to report progress to.
+     */
+    private ProgressInputStream(final InputStream in, final CancellationToken token) {
+      super(in);
+      this.token = token;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int b = super.read();
+      count(b == -1 ? -1 : 1);
+      return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      final int read = super.read(b, off, len);
+      count(read);
+      return read;
+    }
+
+    /**
+     * Helper method to report the bytes read.
+     *
+     * @param read The number of bytes read, or -1 at the end of the file.
+     */
+    private void count(final int read) {
+      if (read > 0) {
+        token.checkpoint(read);
+      } else if (read == -1 && !finished) {
+        finished = true;
+        token.begin("parsing", -1, "bytes");
+      }
+    }
+  }
 }
@@ -0,0 +1,408 @@
+package nz.ac.auckland.se281;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates large graphs in the same format as the test cases, so the graph calculator can be tried
+ * at scale. Edges are written out as they are generated, so the graph is never held in memory.
+ *
+ * <p>Run with the arguments {@code <FILENAME> <MODEL> <VERTICIES> [PARAMETER] [SEED]}, and the
+ * graph is written to the {@code testcases} folder where it can be opened with OPEN_FILE.
+ */
+public class GraphGenerator {
+
+  private static final Path TESTCASES = Path.of("testcases");
+
+  // Preferential attachment picks from at most this many edge ends, 64 MB of them
+  private static final int MAX_ENDS = 1 << 24;
+
+  /** The kinds of graph that can be generated, and what their parameter means. */
+  public enum Model {
+    ERDOS_RENYI("chance of each edge between distinct verticies", 0.001),
+    PREFERENTIAL_ATTACHMENT("edges from each new vertex", 3),
+    CHAINS("number of separate chains", 1),
+    EQUIVALENCE("number of equivalence classes", 10),
+    TOTAL_ORDER("unused", 0);
+
+    private final String parameter;
+    private final double defaultParameter;
+
+    /**
+     * Create a new model.
+     *
+     * @param parameter What the parameter of the model means.
+     * @param defaultParameter The parameter used when none is given.
+     */
+    private Model(final String parameter, final double defaultParameter) {
+      this.parameter = parameter;
+      this.defaultParameter = defaultParameter;
+    }
+
+    /**
+     * Get what the parameter of the model means.
+     *
+     * @return The description of the parameter.
+     */
+    public String getParameter() {
+      return parameter;
+    }
+
+    /**
+     * Get the parameter used when none is given.
+     *
+     * @return The default parameter.
+     */
+    public double getDefaultParameter() {
+      return defaultParameter;
+    }
+  }
+
+  /** Receives each edge as it is generated. */
+  @FunctionalInterface
+  public interface EdgeSink {
+
+    /**
+     * Receives an edge.
+     *
+     * @param source The source vertex of the edge.
+     * @param destination The destination vertex of the edge.
+     */
+    void addEdge(int source, int destination);
+  }
+
+  public static void main(final String[] args) {
+    if (args.length < 3 || args.length > 5) {
+      System.out.println(usage());
+      System.exit(1);
+    }
+
+    final Model model;
+    final int size;
+    final double parameter;
+    final long seed;
+
+    try {
+      model = Model.valueOf(args[1].toUpperCase().replaceAll("-", "_"));
+      size = Integer.parseInt(args[2]);
+      parameter = args.length > 3 ? Double.parseDouble(args[3]) : model.getDefaultParameter();
+      seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+    } catch (final IllegalArgumentException e) {
+      System.out.println(usage());
+      System.exit(1);
+      return;
+    }
+
+    final Path file = TESTCASES.resolve(args[0]);
+
+    try {
+      final long edgeCount = write(file, model, size, parameter, seed);
+      MessageCli.GENERATED_GRAPH.printMessage(
+          String.valueOf(size), String.valueOf(edgeCount), file.toString());
+    } catch (final IOException | UncheckedIOException e) {
+      MessageCli.GENERATOR_FAILED.printMessage(file.toString(), e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Writes a generated graph to a file in the format of the test cases.
+   *
+   * @param file The file to write to.
+   * @param model The kind of graph to generate.
+   * @param size The number of verticies, numbered from 0.
+   * @param parameter The parameter of the model.
+   * @param seed The seed of the random models.
+   * @return The number of edges written.
+   * @throws IOException If the file cannot be written.
+   */
+  public static long write(
+      final Path file, final Model model, final int size, final double parameter, final long seed)
+      throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+      return write(writer, model, size, parameter, seed);
+    }
+  }
+
+  /**
+   * Writes a generated graph in the format of the test cases.
+   *
+   * @param writer Where to write the graph.
+   * @param model The kind of graph to generate.
+   * @param size The number of verticies, numbered from 0.
+   * @param parameter The parameter of the model.
+   * @param seed The seed of the random models.
+   * @return The number of edges written.
+   * @throws IOException If the graph cannot be written.
+   */
+  public static long write(
+      final Writer writer,
+      final Model model,
+      final int size,
+      final double parameter,
+      final long seed)
+      throws IOException {
+    final long[] edgeCount = new long[1];
+
+    // List the verticies in the header comment, then declare each so none are lost
+    writer.write("//");
+    for (int vertex = 0; vertex < size; vertex++) {
+      writer.write(vertex == 0 ? " " : ", ");
+      writer.write(Integer.toString(vertex));
+    }
+    writer.write(System.lineSeparator());
+    writer.write("digraph testgraph {");
+    writer.write(System.lineSeparator());
+    for (int vertex = 0; vertex < size; vertex++) {
+      writer.write(" " + vertex + ";" + System.lineSeparator());
+    }
+
+    generate(
+        model,
+        size,
+        parameter,
+        seed,
+        (source, destination) -> {
+          try {
+            writer.write(" " + source + " -> " + destination + ";" + System.lineSeparator());
+          } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          edgeCount[0]++;
+        });
+
+    writer.write("}");
+    writer.write(System.lineSeparator());
+    return edgeCount[0];
+  }
+
+  /**
+   * Generates the edges of a graph, passing each one on as soon as it is made.
+   *
+   * @param model The kind of graph to generate.
+   * @param size The number of verticies, numbered from 0.
+   * @param parameter The parameter of the model.
+   * @param seed The seed of the random models.
+   * @param sink Where to send each edge.
+   */
+  public static void generate(
+      final Model model,
+      final int size,
+      final double parameter,
+      final long seed,
+      final EdgeSink sink) {
+    switch (model) {
+      case ERDOS_RENYI:
+        generateErdosRenyi(size, parameter, new Random(seed), sink);
+        break;
+      case PREFERENTIAL_ATTACHMENT:
+        generatePreferentialAttachment(size, (int) parameter, new Random(seed), sink);
+        break;
+      case CHAINS:
+        generateChains(size, (int) parameter, sink);
+        break;
+      case EQUIVALENCE:
+        generateEquivalence(size, (int) parameter, sink);
+        break;
+      case TOTAL_ORDER:
+        generateTotalOrder(size, sink);
+        break;
+      default:
+        throw new IllegalArgumentException(model.toString());
+    }
+  }
+
+  /**
+   * Helper method to make each possible edge between distinct verticies with the same chance. The
+   * gap to the next edge is drawn directly, so the time taken depends on the number of edges and
+   * not on the number of possible edges.
+   *
+   * @param size The number of verticies.
+   * @param chance The chance of each edge.
+   * @param random The source of randomness.
+   * @param sink Where to send each edge.
+   */
+  private static void generateErdosRenyi(
+      final int size, final double chance, final Random random, final EdgeSink sink) {
+    if (chance <= 0) {
+      return;
+    }
+
+    final long slots = (long) size * size;
+    final double logMiss = Math.log(1 - Math.min(chance, 1));
+
+    for (long slot = -1; ; ) {
+      // Skip the slots with no edge, a geometric number of them
+      slot += chance >= 1 ? 1 : 1 + (long) Math.floor(Math.log(1 - random.nextDouble()) / logMiss);
+
+      if (slot >= slots) {
+        return;
+      }
+
+      final int source = (int) (slot / size);
+      final int destination = (int) (slot % size);
+      if (source != destination) {
+        sink.addEdge(source, destination);
+      }
+    }
+  }
+
+  /**
+   * Helper method to add verticies one at a time, each with edges to earlier verticies that are
+   * picked with a chance in proportion to their degree. This gives the power law degrees seen in
+   * many real networks. The ends of the edges are kept to pick from, but not the graph itself. Past
+   * {@value #MAX_ENDS} ends, a uniform sample of them is kept instead, so memory stays bounded
+   * however large the graph.
+   *
+   * @param size The number of verticies.
+   * @param edgesEach The number of edges from each new vertex.
+   * @param random The source of randomness.
+   * @param sink Where to send each edge.
+   */
+  private static void generatePreferentialAttachment(
+      final int size, final int edgesEach, final Random random, final EdgeSink sink) {
+    final int[] ends = new int[(int) Math.min(2L * size * Math.max(edgesEach, 0), MAX_ENDS)];
+    final int[] picked = new int[Math.max(edgesEach, 0)];
+    long endsSeen = 0;
+
+    for (int vertex = 1; vertex < size; vertex++) {
+      int pickedCount = 0;
+
+      if (vertex <= edgesEach) {
+        // Too few earlier verticies to choose from, so join all of them
+        for (int target = 0; target < vertex; target++) {
+          picked[pickedCount++] = target;
+        }
+      } else {
+        while (pickedCount < edgesEach) {
+          final int target = ends[random.nextInt((int) Math.min(endsSeen, ends.length))];
+          if (!contains(picked, pickedCount, target)) {
+            picked[pickedCount++] = target;
+          }
+        }
+      }
+
+      for (int i = 0; i < pickedCount; i++) {
+        sink.addEdge(vertex, picked[i]);
+        keepEnd(ends, ++endsSeen, vertex, random);
+        keepEnd(ends, ++endsSeen, picked[i], random);
+      }
+    }
+  }
+
+  /**
+   * Helper method to keep the end of an edge to pick from. Once the ends are full, reservoir
+   * sampling replaces a random one, so every end seen so far stays with the same chance.
+   *
+   * @param ends The ends kept so far.
+   * @param endsSeen The number of ends seen, including this one.
+   * @param end The vertex at the end of the edge.
+   * @param random The source of randomness.
+   */
+  private static void keepEnd(
+      final int[] ends, final long endsSeen, final int end, final Random random) {
+    if (endsSeen <= ends.length) {
+      ends[(int) endsSeen - 1] = end;
+      return;
+    }
+
+    final long slot = random.nextLong(endsSeen);
+    if (slot < ends.length) {
+      ends[(int) slot] = end;
+    }
+  }
+
+  /**
+   * Helper method to split the verticies into separate chains of about the same length.
+   *
+   * @param size The number of verticies.
+   * @param chains The number of chains.
+   * @param sink Where to send each edge.
+   */
+  private static void generateChains(final int size, final int chains, final EdgeSink sink) {
+    final int length = (int) Math.ceil((double) size / Math.max(chains, 1));
+
+    for (int vertex = 0; vertex + 1 < size; vertex++) {
+      if ((vertex + 1) % length != 0) {
+        sink.addEdge(vertex, vertex + 1);
+      }
+    }
+  }
+
+  /**
+   * Helper method to split the verticies into classes by their remainder, with an edge between
+   * every pair of verticies in the same class, including from each vertex to itself.
+   *
+   * @param size The number of verticies.
+   * @param classes The number of equivalence classes.
+   * @param sink Where to send each edge.
+   */
+  private static void generateEquivalence(final int size, final int classes, final EdgeSink sink) {
+    final int step = Math.max(classes, 1);
+
+    for (int first = 0; first < Math.min(step, size); first++) {
+      for (int source = first; source < size; source += step) {
+        for (int destination = first; destination < size; destination += step) {
+          sink.addEdge(source, destination);
+        }
+      }
+    }
+  }
+
+  /**
+   * Helper method to order the verticies by number, with an edge from each vertex to itself and to
+   * every larger vertex.
+   *
+   * @param size The number of verticies.
+   * @param sink Where to send each edge.
+   */
+  private static void generateTotalOrder(final int size, final EdgeSink sink) {
+    for (int source = 0; source < size; source++) {
+      for (int destination = source; destination < size; destination++) {
+        sink.addEdge(source, destination);
+      }
+    }
+  }
+
+  /**
+   * Helper method to check if a value is among the first few entries of an array.
+   *
+   * @param values The array to search.
+   * @param count The number of entries to search.
+   * @param value The value to find.
+   * @return True if the value was found, false otherwise.
+   */
+  private static boolean contains(final int[] values, final int count, final int value) {
+    for (int i = 0; i < count; i++) {
+      if (values[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Helper method to describe the arguments of the generator.
+   *
+   * @return The usage message.
+   */
+  private static String usage() {
+    final StringBuilder sb =
+        new StringBuilder(MessageCli.GENERATOR_USAGE.getMessage()).append(System.lineSeparator());
+
+    for (final Model model : Model.values()) {
+      sb.append("\t")
+          .append(model.toString().toLowerCase().replaceAll("_", "-"))
+          .append(": ")
+          .append(model.getParameter())
+          .append(System.lineSeparator());
+    }
+
+    return sb.toString();
+  }
+}
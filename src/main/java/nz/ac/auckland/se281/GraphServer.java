@@ -0,0 +1,230 @@
+package nz.ac.auckland.se281;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import nz.ac.auckland.se281.datastructures.Graph;
+
+/**
+ * Answers commands sent over HTTP by other processes on the same machine, so a large graph only has
+ * to be loaded once for many clients.
+ *
+ * <p>A command is sent either as the {@code command} parameter of a GET, or as the body of a POST
+ * with one command per line. The reply is the plain text the commands would have printed, with the
+ * status 400 if any of them reported an error. The server only listens on the loopback address.
+ *
+ * <p>Each request runs on a thread of its own, and what it prints is collected for its reply by
+ * routing {@link System#out} to a buffer of its own.
+ */
+public class GraphServer {
+
+  private static final String COMMAND_PARAMETER = "command";
+  private static final String COMMENT_PREFIX = "#";
+  private static final String ERROR_PREFIX = "Error";
+
+  private static final int OK = 200;
+  private static final int BAD_REQUEST = 400;
+  private static final int METHOD_NOT_ALLOWED = 405;
+  private static final int SERVER_ERROR = 500;
+
+  private final HttpServer server;
+  private final Consumer<String> runner;
+  private final AtomicInteger threadCount = new AtomicInteger();
+  private final ExecutorService executor =
+      Executors.newCachedThreadPool(
+          task -> {
+            final Thread thread =
+                new Thread(
+                    null,
+                    task,
+                    "request-" + threadCount.incrementAndGet(),
+                    Graph.RECURSIVE_SEARCH_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * Creates a server listening on a port of the loopback address.
+   *
+   * @param port The port to listen on, or 0 for any free port.
+   * @param runner Runs one command, printing its output.
+   * @throws IOException If the port can not be listened on.
+   */
+  public GraphServer(final int port, final Consumer<String> runner) throws IOException {
+    this.runner = runner;
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.createContext("/", this::handle);
+    server.setExecutor(executor);
+  }
+
+  /** Starts answering requests. */
+  public void start() {
+    server.start();
+  }
+
+  /** Stops answering requests. */
+  public void stop() {
+    server.stop(0);
+    executor.shutdown();
+  }
+
+  /**
+   * Get the address the server listens on.
+   *
+   * @return The loopback host name.
+   */
+  public String getHost() {
+    return server.getAddress().getHostString();
+  }
+
+  /**
+   * Get the port the server listens on, which is only chosen once the server is created if it was
+   * asked for any free port.
+   *
+   * @return The port number.
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Helper method to run the commands of a request and send back what they printed.
+   *
+   * @param exchange The request and its response.
+   * @throws IOException If the request can not be read or the response can not be sent.
+   */
+  private void handle(final HttpExchange exchange) throws IOException {
+    try {
+      final List<String> lines;
+      if (exchange.getRequestMethod().equals("GET")) {
+        lines = readQuery(exchange.getRequestURI().getRawQuery());
+      } else if (exchange.getRequestMethod().equals("POST")) {
+        lines = readBody(exchange);
+      } else {
+        exchange.getResponseHeaders().set("Allow", "GET, POST");
+        exchange.sendResponseHeaders(METHOD_NOT_ALLOWED, -1);
+        return;
+      }
+
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      final int status = run(lines, output);
+      final byte[] body = output.toByteArray();
+
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+      exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+      if (body.length > 0) {
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Helper method to run commands with their output routed to a buffer.
+   *
+   * @param lines The commands to run.
+   * @param output The buffer to print to.
+   * @return The status of the response.
+   */
+  private int run(final List<String> lines, final ByteArrayOutputStream output) {
+    final RoutedOutput routed = RoutedOutput.install();
+    routed.route(output);
+
+    try {
+      if (lines.isEmpty()) {
+        MessageCli.NO_REQUEST_COMMAND.printMessage(COMMAND_PARAMETER);
+        return BAD_REQUEST;
+      }
+
+      for (final String line : lines) {
+        runner.accept(line);
+      }
+    } catch (final RuntimeException | StackOverflowError e) {
+      MessageCli.REQUEST_FAILED.printMessage(e.toString());
+      return SERVER_ERROR;
+    } finally {
+      routed.route(null);
+    }
+
+    // Every error message starts the same way, so look for one at the start of a line
+    final String printed = new String(output.toByteArray(), StandardCharsets.UTF_8);
+    for (final String line : printed.split("\\R")) {
+      if (line.startsWith(ERROR_PREFIX)) {
+        return BAD_REQUEST;
+      }
+    }
+    return OK;
+  }
+
+  /**
+   * Helper method to find the command in the query of a GET.
+   *
+   * @param query The raw query of the request, or null if it has none.
+   * @return The command, or an empty list if none was given.
+   */
+  private static List<String> readQuery(final String query) {
+    final List<String> lines = new ArrayList<String>();
+    if (query == null) {
+      return lines;
+    }
+
+    for (final String parameter : query.split("&")) {
+      final int equals = parameter.indexOf('=');
+      if (equals > 0 && parameter.substring(0, equals).equals(COMMAND_PARAMETER)) {
+        addLine(lines, URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Helper method to read the commands in the body of a POST.
+   *
+   * @param exchange The request.
+   * @return The commands, one per line.
+   * @throws IOException If the body can not be read.
+   */
+  private static List<String> readBody(final HttpExchange exchange) throws IOException {
+    final List<String> lines = new ArrayList<String>();
+
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        addLine(lines, line);
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Helper method to keep a command, skipping blank lines and comments as a script does.
+   *
+   * @param lines The commands so far.
+   * @param line The line to add.
+   */
+  private static void addLine(final List<String> lines, final String line) {
+    final String trimmed = line.trim();
+    if (!trimmed.isEmpty() && !trimmed.startsWith(COMMENT_PREFIX)) {
+      lines.add(trimmed);
+    }
+  }
+}
@@ -0,0 +1,353 @@
+package nz.ac.auckland.se281;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import nz.ac.auckland.se281.datastructures.Edge;
+
+/**
+ * The graphs open in the CLI, each under an alias, with one of them in use.
+ *
+ * <p>The graphs share a heap budget. When the graphs in memory are estimated to be over budget, the
+ * least recently used ones are spilled to a compact binary file and dropped from memory, and read
+ * back in the next time they are used. The graph in use is never spilled.
+ *
+ * <p>Estimating a graph walks all of its verticies, so each estimate is kept with the graph and
+ * only taken again when the graph is opened, read back, edited or stops being used. Results a graph
+ * works out while it is in use are counted once it stops being used.
+ */
+public class GraphWorkspace {
+
+  private static final int SPILL_MAGIC = 0x47524146;
+
+  // Entries are kept from least to most recently used
+  private final Map<String, Entry> graphs = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+  private long budget;
+  private String currentAlias;
+  private Path spillDirectory;
+
+  /**
+   * Creates an empty workspace.
+   *
+   * @param budget The most bytes the graphs in memory should take up.
+   */
+  public GraphWorkspace(final long budget) {
+    this.budget = budget;
+  }
+
+  /**
+   * Set the most bytes the graphs in memory should take up.
+   *
+   * @param budget The budget in bytes.
+   */
+  public void setBudget(final long budget) {
+    this.budget = budget;
+  }
+
+  /**
+   * Opens a graph from a test case under an alias and starts using it, replacing any graph that
+   * already has the alias.
+   *
+   * @param alias The name to open the graph under.
+   * @param filename The name of the test case to read.
+   * @throws FileNotFoundException If the file does not exist.
+   */
+  public void open(final String alias, final String filename) throws FileNotFoundException {
+    final GraphCalculator calculator = new GraphCalculator(filename);
+
+    close(alias);
+    graphs.put(alias, new Entry(calculator));
+    currentAlias = alias;
+  }
+
+  /**
+   * Get the graph in use.
+   *
+   * @return The calculator of the graph in use, or null if no graph is in use.
+   */
+  public GraphCalculator getCurrent() {
+    return currentAlias == null ? null : graphs.get(currentAlias).calculator;
+  }
+
+  /**
+   * Get a graph, reading it back in if it was spilled.
+   *
+   * @param alias The alias of the graph.
+   * @return The calculator of the graph, or null if there is no graph with the alias.
+   * @throws IOException If the spilled graph can not be read back.
+   */
+  public GraphCalculator get(final String alias) throws IOException {
+    final Entry entry = graphs.get(alias);
+    if (entry == null) {
+      return null;
+    }
+
+    if (entry.calculator == null) {
+      entry.calculator = readSpill(entry);
+      entry.measure();
+    }
+    return entry.calculator;
+  }
+
+  /**
+   * Starts using a graph.
+   *
+   * @param alias The alias of the graph.
+   * @return True if the graph exists, false otherwise.
+   * @throws IOException If the spilled graph can not be read back.
+   */
+  public boolean use(final String alias) throws IOException {
+    if (get(alias) == null) {
+      return false;
+    }
+
+    // Count the results the graph worked out while it was in use
+    final Entry previous = currentAlias == null ? null : graphs.get(currentAlias);
+    if (previous != null && previous.calculator != null && !alias.equals(currentAlias)) {
+      previous.measure();
+    }
+    currentAlias = alias;
+    return true;
+  }
+
+  /**
+   * Closes a graph, deleting its spill file. Closing the graph in use leaves no graph in use.
+   *
+   * @param alias The alias of the graph.
+   * @return True if the graph existed, false otherwise.
+   */
+  public boolean close(final String alias) {
+    final Entry entry = graphs.remove(alias);
+    if (entry == null) {
+      return false;
+    }
+
+    if (alias.equals(currentAlias)) {
+      currentAlias = null;
+    }
+    if (entry.spillFile != null) {
+      try {
+        Files.deleteIfExists(entry.spillFile);
+      } catch (final IOException e) {
+        // The file is in a temporary folder, so it is cleaned up eventually anyway
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Spills the least recently used graphs until the graphs in memory fit in the budget.
+   *
+   * @return The aliases of the graphs spilled.
+   * @throws IOException If a graph can not be written out, in which case it stays in memory.
+   */
+  public List<String> enforceBudget() throws IOException {
+    final List<String> spilled = new ArrayList<String>();
+
+    // The graph in use is never spilled, so there is nothing to do until another is in memory
+    boolean spillable = false;
+    for (final Map.Entry<String, Entry> graph : graphs.entrySet()) {
+      if (graph.getValue().calculator != null && !graph.getKey().equals(currentAlias)) {
+        spillable = true;
+        break;
+      }
+    }
+    if (!spillable) {
+      return spilled;
+    }
+
+    long used = getBytesInMemory();
+    for (final Map.Entry<String, Entry> graph : graphs.entrySet()) {
+      final Entry entry = graph.getValue();
+      if (used <= budget) {
+        break;
+      }
+      if (entry.calculator == null || graph.getKey().equals(currentAlias)) {
+        continue;
+      }
+
+      writeSpill(graph.getKey(), entry);
+      used -= entry.bytes;
+      entry.calculator = null;
+      spilled.add(graph.getKey());
+    }
+
+    return spilled;
+  }
+
+  /**
+   * Get the estimated size of the graphs in memory, estimating again any graph that has been edited
+   * since it was last estimated.
+   *
+   * @return The estimated size in bytes.
+   */
+  public long getBytesInMemory() {
+    long used = 0;
+    for (final Entry entry : graphs.values()) {
+      if (entry.calculator != null) {
+        if (entry.isEdited()) {
+          entry.measure();
+        }
+        used += entry.bytes;
+      }
+    }
+    return used;
+  }
+
+  /**
+   * Prints each graph with its file, size and if it is in memory, from least to most recently used,
+   * marking the one in use.
+   */
+  public void printGraphs() {
+    if (graphs.isEmpty()) {
+      MessageCli.NO_GRAPHS.printMessage();
+      return;
+    }
+
+    for (final Map.Entry<String, Entry> graph : graphs.entrySet()) {
+      final Entry entry = graph.getValue();
+      final boolean loaded = entry.calculator != null;
+
+      // Graphs in memory may have changed since they were opened
+      if (loaded) {
+        entry.measure();
+      }
+
+      MessageCli.GRAPH_LIST_ENTRY.printMessage(
+          graph.getKey().equals(currentAlias) ? "* " : "  ",
+          graph.getKey(),
+          entry.filename,
+          String.valueOf(entry.vertexCount),
+          String.valueOf(entry.edgeCount),
+          loaded
+              ? MessageCli.GRAPH_IN_MEMORY.getMessage(String.valueOf(entry.bytes))
+              : MessageCli.GRAPH_ON_DISK.getMessage());
+    }
+    MessageCli.GRAPH_BUDGET.printMessage(
+        String.valueOf(getBytesInMemory()), String.valueOf(budget));
+  }
+
+  /**
+   * Helper method to write a graph to its spill file: the verticies in file order, then each edge
+   * as the positions of its two verticies.
+   *
+   * @param alias The alias of the graph.
+   * @param entry The graph to write out.
+   * @throws IOException If the file can not be written.
+   */
+  private void writeSpill(final String alias, final Entry entry) throws IOException {
+    if (spillDirectory == null) {
+      spillDirectory = Files.createTempDirectory("graph-workspace");
+      spillDirectory.toFile().deleteOnExit();
+    }
+    if (entry.spillFile == null) {
+      entry.spillFile = Files.createTempFile(spillDirectory, "graph", ".bin");
+      entry.spillFile.toFile().deleteOnExit();
+    }
+
+    final Set<String> verticies = entry.calculator.getVerticies();
+    final Set<Edge<String>> edges = entry.calculator.getEdges();
+    final Map<String, Integer> positions = new HashMap<String, Integer>();
+
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(entry.spillFile)))) {
+      out.writeInt(SPILL_MAGIC);
+      out.writeInt(verticies.size());
+      for (final String vertex : verticies) {
+        positions.put(vertex, positions.size());
+        out.writeUTF(vertex);
+      }
+
+      out.writeInt(edges.size());
+      for (final Edge<String> edge : edges) {
+        out.writeInt(positions.get(edge.getSource()));
+        out.writeInt(positions.get(edge.getDestination()));
+      }
+    }
+
+    entry.vertexCount = verticies.size();
+    entry.edgeCount = edges.size();
+  }
+
+  /**
+   * Helper method to read a graph back from its spill file.
+   *
+   * @param entry The graph to read back.
+   * @return The calculator of the graph.
+   * @throws IOException If the file can not be read.
+   */
+  private GraphCalculator readSpill(final Entry entry) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(entry.spillFile)))) {
+      if (in.readInt() != SPILL_MAGIC) {
+        throw new IOException("not a spilled graph: " + entry.spillFile);
+      }
+
+      final String[] verticies = new String[in.readInt()];
+      for (int i = 0; i < verticies.length; i++) {
+        verticies[i] = in.readUTF();
+      }
+
+      final Set<Edge<String>> edges = new LinkedHashSet<Edge<String>>();
+      final int edgeCount = in.readInt();
+      for (int i = 0; i < edgeCount; i++) {
+        edges.add(new Edge<String>(verticies[in.readInt()], verticies[in.readInt()]));
+      }
+
+      return new GraphCalculator(
+          entry.filename, new LinkedHashSet<String>(List.of(verticies)), edges);
+    }
+  }
+
+  /** A graph in the workspace, which is either in memory or spilled to a file. */
+  private static class Entry {
+
+    private final String filename;
+    private GraphCalculator calculator;
+    private Path spillFile;
+    private int vertexCount;
+    private int edgeCount;
+    private long bytes;
+
+    /**
+     * Creates an entry for a graph in memory.
+     *
+     * @param calculator The calculator of the graph.
+     */
+    private Entry(final GraphCalculator calculator) {
+      this.filename = calculator.getFilename();
+      this.calculator = calculator;
+      measure();
+    }
+
+    /** Estimates the size of the graph in memory, and notes how big the graph was at the time. */
+    private void measure() {
+      vertexCount = calculator.getVertexCount();
+      edgeCount = calculator.getEdgeCount();
+      bytes = calculator.estimateBytes();
+    }
+
+    /**
+     * Determine if the graph in memory has been edited since it was last estimated. Edits always
+     * change the number of edges, so the counts are enough to tell.
+     *
+     * @return True if the graph has more or fewer verticies or edges, false otherwise.
+     */
+    private boolean isEdited() {
+      return calculator.getVertexCount() != vertexCount || calculator.getEdgeCount() != edgeCount;
+    }
+  }
+}
@@ -0,0 +1,262 @@
+package nz.ac.auckland.se281;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import nz.ac.auckland.se281.datastructures.Graph;
+
+/**
+ * Runs commands in the background, each as a numbered job with its own output.
+ *
+ * <p>Jobs run on a pool of daemon threads. Anything a job prints is kept in a buffer of its own
+ * until the job is waited for, using {@link RoutedOutput} to send the output of each job thread to
+ * the buffer of its job.
+ */
+public class JobManager {
+
+  /** The states a job can be in. */
+  public enum State {
+    RUNNING,
+    DONE,
+    FAILED,
+    CANCELLED
+  }
+
+  private final Map<Integer, Job> jobs = new ConcurrentSkipListMap<Integer, Job>();
+  private final AtomicInteger nextId = new AtomicInteger(1);
+  private final AtomicInteger threadCount = new AtomicInteger();
+  private final ExecutorService executor =
+      Executors.newCachedThreadPool(
+          task -> {
+            final Thread thread =
+                new Thread(
+                    null,
+                    task,
+                    "job-" + threadCount.incrementAndGet(),
+                    Graph.RECURSIVE_SEARCH_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * Starts a command in the background.
+   *
+   * @param line The command as it was entered, to show in the list of jobs.
+   * @param command What the job runs.
+   * @return The number of the new job.
+   */
+  public int submit(final String line, final Runnable command) {
+    final RoutedOutput routed = RoutedOutput.install();
+    final Job job = new Job(nextId.getAndIncrement(), line);
+
+    jobs.put(job.id, job);
+    job.future =
+        executor.submit(
+            () -> {
+              routed.route(job.output);
+              try {
+                command.run();
+              } finally {
+                routed.route(null);
+                job.finishTime = System.nanoTime();
+              }
+            });
+
+    return job.id;
+  }
+
+  /**
+   * Determine if any job is still running.
+   *
+   * @return True if a job is running, false otherwise.
+   */
+  public boolean hasRunningJobs() {
+    for (final Job job : jobs.values()) {
+      if (!job.future.isDone()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Prints the number, state, run time and command of every job not yet waited for. */
+  public void printJobs() {
+    if (jobs.isEmpty()) {
+      MessageCli.NO_JOBS.printMessage();
+      return;
+    }
+
+    for (final Job job : jobs.values()) {
+      MessageCli.JOB_STATUS.printMessage(
+          String.valueOf(job.id), job.getState().toString(), job.getMillis(), job.line);
+    }
+  }
+
+  /**
+   * Waits for a job to finish, then prints its output and forgets it.
+   *
+   * @param id The number of the job.
+   */
+  public void waitFor(final String id) {
+    final Job job = findJob(id);
+    if (job == null) {
+      return;
+    }
+
+    try {
+      job.future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    } catch (final ExecutionException | CancellationException e) {
+      // The state of the job reports the failure
+    }
+
+    jobs.remove(job.id);
+    MessageCli.JOB_FINISHED.printMessage(
+        String.valueOf(job.id), job.getState().toString().toLowerCase(), job.getMillis(), job.line);
+
+    // Print the output of the job as one block
+    synchronized (job.output) {
+      System.out.print(job.output.toString());
+    }
+    if (job.getState() == State.FAILED) {
+      MessageCli.JOB_FAILED.printMessage(String.valueOf(job.id), job.getFailure());
+    }
+  }
+
+  /**
+   * Cancels a job, interrupting it if it is running, and forgets it along with its output. A job
+   * that has already finished is left alone, so its output can still be waited for.
+   *
+   * @param id The number of the job.
+   */
+  public void cancel(final String id) {
+    final Job job = findJob(id);
+    if (job == null) {
+      return;
+    }
+
+    if (!job.future.cancel(true)) {
+      MessageCli.JOB_ALREADY_FINISHED.printMessage(String.valueOf(job.id), job.line);
+      return;
+    }
+
+    jobs.remove(job.id);
+    MessageCli.JOB_CANCELLED.printMessage(String.valueOf(job.id), job.line);
+  }
+
+  /**
+   * Waits for every job to finish, keeping their output to be waited for. Anything a job prints
+   * goes through whichever stream is {@link System#out} at the time, so this must be called before
+   * that stream is swapped out from under the jobs.
+   */
+  public void awaitRunning() {
+    for (final Job job : jobs.values()) {
+      try {
+        job.future.get();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (final ExecutionException | CancellationException e) {
+        // The state of the job reports the failure
+      }
+    }
+  }
+
+  /** Stops every job, for when the program exits. */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Helper method to find a job from the number entered by the user.
+   *
+   * @param id The number of the job.
+   * @return The job, or null if there is no such job, after reporting the error.
+   */
+  private Job findJob(final String id) {
+    final int number;
+    try {
+      number = Integer.parseInt(id);
+    } catch (final NumberFormatException e) {
+      MessageCli.INVALID_NUMBER.printMessage(id, "job number");
+      return null;
+    }
+
+    final Job job = jobs.get(number);
+    if (job == null) {
+      MessageCli.JOB_NOT_FOUND.printMessage(id);
+    }
+    return job;
+  }
+
+  /** A command running in the background, and what it has printed. */
+  private static class Job {
+
+    private final int id;
+    private final String line;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final long startTime = System.nanoTime();
+    private volatile long finishTime;
+    private volatile Future<?> future;
+
+    /**
+     * Creates a job.
+     *
+     * @param id The number of the job.
+     * @param line The command the job runs.
+     */
+    private Job(final int id, final String line) {
+      this.id = id;
+      this.line = line;
+    }
+
+    /**
+     * Get the state of the job.
+     *
+     * @return The state of the job.
+     */
+    private State getState() {
+      if (future.isCancelled()) {
+        return State.CANCELLED;
+      } else if (!future.isDone()) {
+        return State.RUNNING;
+      }
+
+      return getFailure() == null ? State.DONE : State.FAILED;
+    }
+
+    /**
+     * Get why the job failed.
+     *
+     * @return The exception thrown by the job, or null if it did not fail.
+     */
+    private String getFailure() {
+      try {
+        future.get();
+        return null;
+      } catch (final ExecutionException e) {
+        return e.getCause().toString();
+      } catch (final InterruptedException | CancellationException e) {
+        return null;
+      }
+    }
+
+    /**
+     * Get how long the job has run for.
+     *
+     * @return The run time in milliseconds to 3 decimal places.
+     */
+    private String getMillis() {
+      final long end = finishTime == 0 ? System.nanoTime() : finishTime;
+      return String.format("%.3f", (end - startTime) / 1e6);
+    }
+  }
+}
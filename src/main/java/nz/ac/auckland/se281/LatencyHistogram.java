@@ -0,0 +1,115 @@
+package nz.ac.auckland.se281;
+
+/**
+ * A histogram of latencies in nanoseconds, or of any other amount that can not be negative such as
+ * bytes allocated. Buckets grow with the value so every value is kept to within about 3% however
+ * large it is.
+ *
+ * <p>Values below 64 have a bucket each. Above that, each power of two is split into 32 buckets of
+ * equal width, so recording a value is a few shifts and an array increment, and the histogram has a
+ * fixed size however many values are recorded.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int HALF_SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+  private static final int BUCKET_COUNT = bucketOf(Long.MAX_VALUE) + 1;
+
+  private final long[] counts = new long[BUCKET_COUNT];
+  private long count;
+  private long total;
+  private long max;
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos The latency in nanoseconds, where negative values count as 0.
+   */
+  public synchronized void record(long nanos) {
+    nanos = Math.max(nanos, 0);
+    counts[bucketOf(nanos)]++;
+    count++;
+    total += nanos;
+    max = Math.max(max, nanos);
+  }
+
+  /**
+   * Get the number of latencies recorded.
+   *
+   * @return The number of latencies.
+   */
+  public synchronized long getCount() {
+    return count;
+  }
+
+  /**
+   * Get the sum of every latency recorded.
+   *
+   * @return The total latency in nanoseconds.
+   */
+  public synchronized long getTotal() {
+    return total;
+  }
+
+  /**
+   * Get the largest latency recorded, which is kept exactly.
+   *
+   * @return The largest latency in nanoseconds, or 0 if none were recorded.
+   */
+  public synchronized long getMax() {
+    return max;
+  }
+
+  /**
+   * Get the latency that a percentage of the recorded latencies are at or below.
+   *
+   * @param percentile The percentage, from 0 to 100.
+   * @return The top of the bucket holding that latency in nanoseconds, or 0 if none were recorded.
+   */
+  public synchronized long getValueAtPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+
+    // The rank of the value to find, counting from 1
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      seen += counts[bucket];
+      if (seen >= rank) {
+        return Math.min(highestValueOf(bucket), max);
+      }
+    }
+
+    return max;
+  }
+
+  /**
+   * Helper method to find the bucket of a value. The bucket keeps the top 6 bits of the value, and
+   * how far they were shifted to fit.
+   *
+   * @param value The value, which must not be negative.
+   * @return The index of its bucket.
+   */
+  private static int bucketOf(long value) {
+    final int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+    return (shift << (SUB_BUCKET_BITS - 1)) + (int) (value >>> shift);
+  }
+
+  /**
+   * Helper method to find the largest value that falls in a bucket.
+   *
+   * @param bucket The index of the bucket.
+   * @return The largest value of the bucket.
+   */
+  private static long highestValueOf(int bucket) {
+    if (bucket < 2 * HALF_SUB_BUCKETS) {
+      return bucket;
+    }
+
+    final int shift = (bucket >>> (SUB_BUCKET_BITS - 1)) - 1;
+    final long subBucket = bucket - ((long) shift << (SUB_BUCKET_BITS - 1));
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
@@ -1,18 +1,231 @@
 package nz.ac.auckland.se281;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import nz.ac.auckland.se281.datastructures.CancellationToken;
+import nz.ac.auckland.se281.datastructures.CancelledException;
 
 /**
  * The entry point of the graph calculator command line interface.
  *
- * <p>You should not modify this class.
+ * <p>Commands are read from the console or from a script, and run on the graph in use or on a graph
+ * named before the command. A command ending with {@code &} runs as a background job. Every command
+ * is timed for the profile, and after each command run in the foreground the graphs in memory are
+ * kept within the memory budget.
  */
 public class Main {
   private static final String COMMAND_PREFIX = "graph-calculator> ";
 
+  private static final String BATCH_FLAG = "--batch";
+  private static final String METRICS_FLAG = "--metrics-file";
+  private static final String ALLOCATIONS_FLAG = "--allocations";
+  private static final String BUDGET_FLAG = "--graph-budget";
+  private static final String SERVE_FLAG = "--serve";
+  private static final String PROGRESS_FLAG = "--progress";
+  private static final String COMMENT_PREFIX = "#";
+  private static final String BACKGROUND_SUFFIX = "&";
+
+  private static final String TARGET_PREFIX = "@";
+
+  private static final Set<Command> WORKSPACE_COMMANDS =
+      EnumSet.of(
+          Command.OPEN_FILE,
+          Command.OPEN_GRAPH,
+          Command.USE_GRAPH,
+          Command.LIST_GRAPHS,
+          Command.CLOSE_GRAPH);
+
+  // Commands that can be run before any graph is open
+  private static final Set<Command> NO_GRAPH_COMMANDS =
+      EnumSet.of(
+          Command.OPEN_FILE,
+          Command.OPEN_GRAPH,
+          Command.USE_GRAPH,
+          Command.LIST_GRAPHS,
+          Command.CLOSE_GRAPH,
+          Command.JOBS,
+          Command.WAIT,
+          Command.CANCEL,
+          Command.SET_TIMEOUT,
+          Command.PROFILE,
+          Command.HELP,
+          Command.EXIT);
+
+  // Commands that change the graph or the CLI itself must run in the foreground
+  private static final Set<Command> BACKGROUND_COMMANDS =
+      EnumSet.complementOf(
+          EnumSet.of(
+              Command.OPEN_FILE,
+              Command.OPEN_GRAPH,
+              Command.USE_GRAPH,
+              Command.LIST_GRAPHS,
+              Command.CLOSE_GRAPH,
+              Command.ADD_EDGE,
+              Command.REMOVE_EDGE,
+              Command.PROFILE,
+              Command.JOBS,
+              Command.WAIT,
+              Command.CANCEL,
+              Command.SET_TIMEOUT,
+              Command.HELP,
+              Command.EXIT));
+
+  // Commands that only read the graph can be answered by the server, alongside each other
+  private static final Set<Command> SERVER_COMMANDS = EnumSet.copyOf(BACKGROUND_COMMANDS);
+
+  static {
+    SERVER_COMMANDS.add(Command.PROFILE);
+    SERVER_COMMANDS.add(Command.HELP);
+  }
+
+  // Batch output is written in large blocks, and at least this often so it can be followed
+  private static final int BATCH_BUFFER_SIZE = 1 << 16;
+  private static final long BATCH_FLUSH_INTERVAL = 1_000_000_000L;
+
   public static void main(final String[] args) {
-    new Main(new Scanner(System.in)).start();
+    boolean batch = false;
+    String script = null;
+    Path metricsFile = null;
+    boolean allocations = false;
+    long budget = -1;
+    String served = null;
+    int port = -1;
+    boolean progress = false;
+
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals(BATCH_FLAG) && !batch) {
+        batch = true;
+
+        // The script is optional, so only take the next argument if it is not a flag
+        if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+          script = args[++i];
+        }
+      } else if (args[i].equals(METRICS_FLAG) && metricsFile == null && i + 1 < args.length) {
+        metricsFile = Path.of(args[++i]);
+      } else if (args[i].equals(ALLOCATIONS_FLAG) && !allocations) {
+        allocations = true;
+      } else if (args[i].equals(BUDGET_FLAG) && budget == -1 && i + 1 < args.length) {
+        budget = parseMegabytes(args[++i]);
+      } else if (args[i].equals(PROGRESS_FLAG) && !progress) {
+        progress = true;
+      } else if (args[i].equals(SERVE_FLAG) && served == null && i + 2 < args.length) {
+        port = parsePort(args[++i]);
+        served = args[++i];
+      } else {
+        MessageCli.USAGE.printMessage();
+        System.exit(2);
+      }
+    }
+
+    // The server and batch mode both take over the input, so only one can be used
+    if (served != null) {
+      if (batch) {
+        MessageCli.USAGE.printMessage();
+        System.exit(2);
+      }
+
+      final Main main = new Main();
+      main.setMetricsFile(metricsFile);
+      main.setAllocationTracking(allocations);
+      main.setGraphBudget(budget);
+      main.setProgressReporting(progress);
+
+      try {
+        if (main.serve(served, port) == null) {
+          System.exit(1);
+        }
+      } catch (final IOException e) {
+        MessageCli.SERVER_FAILED.printMessage(String.valueOf(port), e.toString());
+        System.exit(2);
+      }
+
+      // The server runs until the process is stopped, so write the metrics then
+      Runtime.getRuntime().addShutdownHook(new Thread(main::writeMetrics));
+      return;
+    }
+
+    if (!batch) {
+      final Main main = new Main(new Scanner(System.in));
+      main.setMetricsFile(metricsFile);
+      main.setAllocationTracking(allocations);
+      main.setGraphBudget(budget);
+      main.setProgressReporting(progress);
+      main.start();
+      return;
+    }
+
+    // Read the script from standard input if no file is given
+    final int errors;
+    try (BufferedReader reader =
+        script == null
+            ? new BufferedReader(new InputStreamReader(System.in))
+            : Files.newBufferedReader(Path.of(script))) {
+      final Main main = new Main();
+      main.setMetricsFile(metricsFile);
+      main.setAllocationTracking(allocations);
+      main.setGraphBudget(budget);
+      main.setProgressReporting(progress);
+      errors = main.startBatch(reader);
+    } catch (final IOException e) {
+      MessageCli.SCRIPT_NOT_FOUND.printMessage(script == null ? "-" : script, e.toString());
+      System.exit(2);
+      return;
+    }
+
+    System.exit(errors == 0 ? 0 : 1);
+  }
+
+  /**
+   * Helper method to read a size in megabytes from the command line, exiting if it is not valid.
+   *
+   * @param megabytes The size entered.
+   * @return The size in bytes.
+   */
+  private static long parseMegabytes(final String megabytes) {
+    try {
+      final long size = Long.parseLong(megabytes);
+      if (size >= 0) {
+        return size << 20;
+      }
+    } catch (final NumberFormatException e) {
+      // Fall through to the usage message
+    }
+
+    MessageCli.USAGE.printMessage();
+    System.exit(2);
+    return -1;
+  }
+
+  /**
+   * Helper method to read a port number from the command line, exiting if it is not valid.
+   *
+   * @param port The port entered.
+   * @return The port number, where 0 means any free port.
+   */
+  private static int parsePort(final String port) {
+    try {
+      final int number = Integer.parseInt(port);
+      if (number >= 0 && number <= 0xFFFF) {
+        return number;
+      }
+    } catch (final NumberFormatException e) {
+      // Fall through to the usage message
+    }
+
+    MessageCli.USAGE.printMessage();
+    System.exit(2);
+    return -1;
   }
 
   /**
@@ -44,7 +257,20 @@ public class Main {
 
   private final Scanner scanner;
 
-  private GraphCalculator calculator;
+  private final GraphWorkspace workspace = new GraphWorkspace(Runtime.getRuntime().maxMemory() / 2);
+
+  private final CommandMetrics metrics = new CommandMetrics();
+
+  private Path metricsFile;
+
+  private ProgressReporter progressReporter;
+
+  private AllocationTracker allocationTracker;
+
+  private final JobManager jobs = new JobManager();
+
+  // The most time a command may take in nanoseconds, or 0 for no limit
+  private volatile long timeout;
 
   /**
    * Create a new command line interface.
@@ -55,6 +281,95 @@ public class Main {
     this.scanner = scanner;
   }
 
+  /** Create a new command line interface that reads its commands from a script. */
+  public Main() {
+    this(null);
+  }
+
+  /**
+   * Set the file the metrics of each command are written to on exit.
+   *
+   * @param metricsFile The file to write to, or null to not write the metrics.
+   */
+  public void setMetricsFile(final Path metricsFile) {
+    this.metricsFile = metricsFile;
+  }
+
+  /**
+   * Set if the bytes allocated and garbage collection time of each command are tracked.
+   *
+   * @param enabled True to track allocations, false to stop.
+   */
+  public void setAllocationTracking(final boolean enabled) {
+    if (!enabled) {
+      allocationTracker = null;
+      return;
+    }
+
+    try {
+      allocationTracker = new AllocationTracker();
+    } catch (final UnsupportedOperationException e) {
+      MessageCli.ALLOCATIONS_NOT_SUPPORTED.printMessage(e.getMessage());
+    }
+  }
+
+  /**
+   * Set if the progress of slow commands in the foreground is drawn on standard error.
+   *
+   * @param enabled True to draw the progress, false to stop.
+   */
+  public void setProgressReporting(final boolean enabled) {
+    progressReporter = enabled ? new ProgressReporter(System.err) : null;
+  }
+
+  /**
+   * Set the most heap the open graphs should take up before the least recently used are spilled to
+   * disk.
+   *
+   * @param budget The budget in bytes, or -1 to keep the default of half the maximum heap.
+   */
+  public void setGraphBudget(final long budget) {
+    if (budget >= 0) {
+      workspace.setBudget(budget);
+    }
+  }
+
+  /**
+   * Get the latency of each command run so far.
+   *
+   * @return The metrics of each command.
+   */
+  public CommandMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Open a graph and answer the commands that only read it from other processes on this machine,
+   * until the server is stopped. The graph is never changed while it is served, so any number of
+   * requests can read it at once.
+   *
+   * @param filename The file of the graph to serve, in the testcases folder.
+   * @param port The loopback port to listen on, or 0 for any free port.
+   * @return The running server, or null if the graph could not be opened.
+   * @throws IOException If the port can not be listened on.
+   */
+  public GraphServer serve(final String filename, final int port) throws IOException {
+    runCommand(
+        Command.OPEN_FILE, new String[] {Command.OPEN_FILE.toString(), filename}, null, true);
+
+    final GraphCalculator served = workspace.getCurrent();
+    if (served == null) {
+      return null;
+    }
+
+    final GraphServer server = new GraphServer(port, line -> serveCommand(line, served));
+    server.start();
+    MessageCli.SERVER_STARTED.printMessage(
+        filename, server.getHost(), String.valueOf(server.getPort()));
+    System.out.flush();
+    return server;
+  }
+
   /** Process commands from the user for the graph calculator command line interface. */
   public void start() {
     System.out.println(help());
@@ -68,6 +383,52 @@ public class Main {
     } while (processCommand(command));
   }
 
+  /**
+   * Process commands from a script without the help menu or prompts. Output is buffered and written
+   * in large blocks, and flushed at least once a second and when the script ends. Blank lines and
+   * lines starting with # are skipped.
+   *
+   * @param script The script to read commands from, one per line.
+   * @return The number of errors reported while running the script.
+   * @throws IOException If the script cannot be read.
+   */
+  public int startBatch(final BufferedReader script) throws IOException {
+    final PrintStream console = System.out;
+    final PrintStream buffered =
+        new PrintStream(new BufferedOutputStream(console, BATCH_BUFFER_SIZE), false);
+    final int errorsBefore = MessageCli.getErrorCount();
+
+    System.setOut(buffered);
+    try {
+      long lastFlush = System.nanoTime();
+      String line;
+
+      while ((line = script.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+          continue;
+        }
+
+        if (!processCommand(line)) {
+          break;
+        }
+
+        // Flush now and then so a long script shows its progress
+        if (System.nanoTime() - lastFlush > BATCH_FLUSH_INTERVAL) {
+          buffered.flush();
+          lastFlush = System.nanoTime();
+        }
+      }
+    } finally {
+      // Jobs started by the script print through the buffered stream, so finish them first
+      jobs.awaitRunning();
+      buffered.flush();
+      System.setOut(console);
+    }
+
+    return MessageCli.getErrorCount() - errorsBefore;
+  }
+
   /**
    * Execute a command entered by the user and determine if more commands are expected.
    *
@@ -78,8 +439,120 @@ public class Main {
     // Remove whitespace at the beginning and end of the input.
     input = input.trim();
 
-    final String[] args = input.split(" ");
+    // A command ending in & runs in the background.
+    final boolean background = input.endsWith(BACKGROUND_SUFFIX);
+    if (background) {
+      input = input.substring(0, input.length() - BACKGROUND_SUFFIX.length()).trim();
+    }
+
+    String[] args = input.split(" ");
+
+    // A command can start with @ALIAS to run on a graph other than the one in use.
+    String target = null;
+    if (args[0].startsWith(TARGET_PREFIX) && args.length > 1) {
+      target = args[0].substring(TARGET_PREFIX.length());
+      args = Arrays.copyOfRange(args, 1, args.length);
+    }
+
+    final Command command = parseCommand(args);
+    if (command == null) {
+      return true;
+    }
+    final String commandStr = command.toString();
+
+    // Run on the graph in use, or on the graph named before the command.
+    GraphCalculator current = workspace.getCurrent();
+    if (target != null) {
+      try {
+        current = workspace.get(target);
+      } catch (final IOException e) {
+        MessageCli.RELOAD_FAILED.printMessage(target, e.toString());
+        return true;
+      }
+
+      if (current == null) {
+        MessageCli.GRAPH_NOT_FOUND.printMessage(target);
+        return true;
+      }
+    }
+
+    // A file is only open if there is a calculator instance.
+    // The user cannot do anything other than open a file, exit,
+    // or get help if there is no file.
+    if (current == null && !NO_GRAPH_COMMANDS.contains(command)) {
+      MessageCli.FILE_NOT_OPEN.printMessage();
+      return true;
+    }
+
+    // Only commands that read the graph can run in the background.
+    if (background && !BACKGROUND_COMMANDS.contains(command)) {
+      MessageCli.JOB_NOT_ALLOWED.printMessage(commandStr);
+      return true;
+    }
+
+    // Background jobs read the graph without locking it, so it can not change under them.
+    if ((command == Command.ADD_EDGE || command == Command.REMOVE_EDGE) && jobs.hasRunningJobs()) {
+      MessageCli.JOBS_RUNNING.printMessage(commandStr);
+      return true;
+    }
+
+    // Jobs keep the graph they started on, even if another file is opened.
+    if (background) {
+      final String line = input;
+      final String[] jobArgs = args;
+      final GraphCalculator jobCalculator = current;
+      final int id = jobs.submit(line, () -> runCommand(command, jobArgs, jobCalculator, false));
+      MessageCli.JOB_STARTED.printMessage(String.valueOf(id), line);
+      return true;
+    }
+
+    final boolean more = runCommand(command, args, current, true);
+
+    // Keep the graphs in memory within the budget, now the command is done with them.
+    try {
+      for (final String alias : workspace.enforceBudget()) {
+        MessageCli.GRAPH_SPILLED.printMessage(alias);
+      }
+    } catch (final IOException e) {
+      MessageCli.SPILL_FAILED.printMessage(e.toString());
+    }
+
+    if (!more) {
+      writeMetrics();
+    }
+
+    return more;
+  }
+
+  /**
+   * Run a command sent to the server on the graph it serves, if it only reads the graph.
+   *
+   * @param input The command sent by the client.
+   * @param served The calculator of the graph being served.
+   */
+  private void serveCommand(final String input, final GraphCalculator served) {
+    final String[] args = input.trim().split(" ");
+
+    final Command command = parseCommand(args);
+    if (command == null) {
+      return;
+    }
+
+    if (!SERVER_COMMANDS.contains(command)) {
+      MessageCli.REQUEST_NOT_ALLOWED.printMessage(command.toString());
+      return;
+    }
+
+    runCommand(command, args, served, false);
+  }
 
+  /**
+   * Helper method to find the command that was entered and check its number of arguments.
+   *
+   * @param args The command and its arguments.
+   * @return The command, or null if it is not valid.
+   */
+  private Command parseCommand(final String[] args) {
     // Allow any case, and dashes to be used instead of underscores.
     final String commandStr = args[0].toUpperCase().replaceAll("-", "_");
 
@@ -90,7 +563,7 @@ public class Main {
       command = Command.valueOf(commandStr);
     } catch (final Exception e) {
       MessageCli.COMMAND_NOT_FOUND.printMessage(commandStr);
-      return true;
+      return null;
     }
 
     // Check that the correct number of arguments were provided.
@@ -98,75 +571,283 @@ public class Main {
       final String numCommandArgs = String.valueOf(command.getNumArgs());
       final String plural = command.getNumArgs() > 1 ? "s" : "";
       MessageCli.WRONG_ARGUMENT_COUNT.printMessage(numCommandArgs, plural, commandStr);
-      return true;
+      return null;
     }
 
-    // A file is only open if there is a calculator instance.
-    // The user cannot do anything other than open a file, exit,
-    // or get help if there is no file.
-    if (calculator == null
-        && command != Command.OPEN_FILE
-        && command != Command.EXIT
-        && command != Command.HELP) {
-      MessageCli.FILE_NOT_OPEN.printMessage();
-      return true;
+    return command;
+  }
+
+  /**
+   * Helper method to set the time limit of later commands.
+   *
+   * @param milliseconds The time limit entered, where 0 means no limit.
+   */
+  private void setTimeout(final String milliseconds) {
+    final long value;
+
+    try {
+      value = Long.parseLong(milliseconds);
+    } catch (final NumberFormatException e) {
+      MessageCli.INVALID_NUMBER.printMessage(milliseconds, "timeout in milliseconds");
+      return;
+    }
+
+    if (value < 0) {
+      MessageCli.INVALID_NUMBER.printMessage(milliseconds, "timeout in milliseconds");
+      return;
+    }
+
+    timeout = TimeUnit.MILLISECONDS.toNanos(value);
+    if (value == 0) {
+      MessageCli.TIMEOUT_CLEARED.printMessage();
+    } else {
+      MessageCli.TIMEOUT_SET.printMessage(milliseconds);
+    }
+  }
+
+  /** Helper method to write the metrics of each command to the metrics file, if one was set. */
+  private void writeMetrics() {
+    if (metricsFile == null) {
+      return;
     }
 
+    try {
+      metrics.write(metricsFile);
+    } catch (final IOException e) {
+      MessageCli.METRICS_NOT_WRITTEN.printMessage(metricsFile.toString(), e.toString());
+    }
+  }
+
+  /**
+   * Run a command that has been checked and record its metrics.
+   *
+   * @param command The command to run.
+   * @param args The command and its arguments.
+   * @param current The calculator of the graph to run the command on.
+   * @param foreground True if the command runs in the foreground, and may draw its progress.
+   * @return If the program should continue to wait for another command.
+   */
+  private boolean runCommand(
+      final Command command,
+      final String[] args,
+      final GraphCalculator current,
+      final boolean foreground) {
+    // Time each command with the monotonic clock, along with the size of the graph it ran on.
+    final AllocationTracker tracker = allocationTracker;
+    final long allocatedBefore = tracker == null ? 0 : tracker.getAllocatedBytes();
+    final long collectionBefore = tracker == null ? 0 : tracker.getCollectionTime();
+    final long start = System.nanoTime();
+
+    // Graph algorithms check the token as they go, and stop once the timeout has passed
+    final CancellationToken token = new CancellationToken(timeout);
+    CancellationToken.install(token);
+
+    // Only the foreground command draws its progress, so jobs do not fight over the terminal
+    final ProgressReporter reporter = foreground ? progressReporter : null;
+    if (reporter != null) {
+      reporter.start(token);
+    }
+    boolean more = true;
+    try {
+      more = executeCommand(command, args, current);
+    } catch (final CancelledException e) {
+      if (e.isTimedOut()) {
+        MessageCli.COMMAND_TIMED_OUT.printMessage(
+            command.toString(),
+            String.valueOf(timeout / 1_000_000),
+            e.getPhase(),
+            String.valueOf(e.getProcessed()),
+            e.getUnit());
+      } else {
+        MessageCli.COMMAND_CANCELLED.printMessage(
+            command.toString(), e.getPhase(), String.valueOf(e.getProcessed()), e.getUnit());
+      }
+    } finally {
+      CancellationToken.install(null);
+      if (reporter != null) {
+        reporter.stop();
+      }
+    }
+
+    final long elapsed = System.nanoTime() - start;
+
+    if (tracker != null) {
+      metrics.recordAllocation(
+          command,
+          tracker.getAllocatedBytes() - allocatedBefore,
+          tracker.getCollectionTime() - collectionBefore);
+    }
+
+    // Opening a file changes the graph, so measure the one in use afterwards
+    final GraphCalculator measured =
+        WORKSPACE_COMMANDS.contains(command) ? workspace.getCurrent() : current;
+    if (measured == null) {
+      metrics.record(command, elapsed, 0, 0);
+    } else {
+      metrics.record(command, elapsed, measured.getVertexCount(), measured.getEdgeCount());
+    }
+
+    return more;
+  }
+
+  /**
+   * Run a command that has been checked, and determine if more commands are expected.
+   *
+   * @param command The command to run.
+   * @param args The command and its arguments.
+   * @param current The calculator of the graph to run the command on.
+   * @return If the program should continue to wait for another command.
+   */
+  private boolean executeCommand(
+      final Command command, final String[] args, final GraphCalculator current) {
     switch (command) {
       case OPEN_FILE:
         final String filename = args[1];
 
         try {
-          calculator = new GraphCalculator(filename);
+          workspace.open(filename, filename);
           MessageCli.OPENED_FILE_SUCCESSFULLY.printMessage(filename);
         } catch (FileNotFoundException e) {
           MessageCli.FILE_NOT_FOUND.printMessage(filename);
         }
         break;
+      case OPEN_GRAPH:
+        try {
+          workspace.open(args[1], args[2]);
+          MessageCli.OPENED_GRAPH.printMessage(args[2], args[1]);
+        } catch (FileNotFoundException e) {
+          MessageCli.FILE_NOT_FOUND.printMessage(args[2]);
+        }
+        break;
+      case USE_GRAPH:
+        try {
+          if (workspace.use(args[1])) {
+            MessageCli.USING_GRAPH.printMessage(args[1]);
+          } else {
+            MessageCli.GRAPH_NOT_FOUND.printMessage(args[1]);
+          }
+        } catch (IOException e) {
+          MessageCli.RELOAD_FAILED.printMessage(args[1], e.toString());
+        }
+        break;
+      case LIST_GRAPHS:
+        workspace.printGraphs();
+        break;
+      case CLOSE_GRAPH:
+        if (workspace.close(args[1])) {
+          MessageCli.CLOSED_GRAPH.printMessage(args[1]);
+        } else {
+          MessageCli.GRAPH_NOT_FOUND.printMessage(args[1]);
+        }
+        break;
       case INFO:
-        calculator.printInfo();
+        current.printInfo();
         break;
       case LIST_VERTICIES_EDGES:
-        calculator.printVerticiesEdges();
+        current.printVerticiesEdges();
         break;
       case LIST_ROOT_VERTICIES:
-        calculator.printRoots();
+        current.printRoots();
+        break;
+      case STATS:
+        current.printStatistics();
+        break;
+      case MEMORY:
+        current.printMemory();
+        break;
+      case ADD_EDGE:
+        current.addEdge(args[1], args[2]);
+        break;
+      case REMOVE_EDGE:
+        current.removeEdge(args[1], args[2]);
         break;
       case CHECK_REFLEXIVITY:
-        calculator.printReflexitivity();
+        current.printReflexitivity();
         break;
       case CHECK_SYMMETRY:
-        calculator.printSymmetry();
+        current.printSymmetry();
         break;
       case CHECK_TRANSITIVITY:
-        calculator.printTransitivity();
+        current.printTransitivity();
         break;
       case CHECK_ANTISYMMETRY:
-        calculator.printAntiSymmetry();
+        current.printAntiSymmetry();
         break;
       case CHECK_EQUIVALENCE:
-        calculator.printEquivalence();
+        current.printEquivalence();
         break;
       case COMPUTE_EQUIVALENCE:
-        calculator.printEquivalenceClass(args[1]);
+        current.printEquivalenceClass(args[1]);
+        break;
+      case CHECK_PARTIAL_ORDER:
+        current.printPartialOrder();
+        break;
+      case COMPUTE_HASSE_DIAGRAM:
+        current.printHasseDiagram();
         break;
       case GRAPH_SEARCH_IBFS:
-        calculator.printIterativeBreadthFirstSearch();
+        current.printIterativeBreadthFirstSearch();
         break;
       case GRAPH_SEARCH_IDFS:
-        calculator.printDepthFirstSearch();
+        current.printDepthFirstSearch();
         break;
       case GRAPH_SEARCH_RBFS:
-        calculator.printRecursiveBreadthFirstSearch();
+        current.printRecursiveBreadthFirstSearch();
         break;
       case GRAPH_SEARCH_RDFS:
-        calculator.printRecursiveDepthFirstSearch();
+        current.printRecursiveDepthFirstSearch();
+        break;
+      case TOPOLOGICAL_SORT:
+        current.printTopologicalSort();
+        break;
+      case SHORTEST_PATH:
+        current.printShortestPath(args[1], args[2]);
+        break;
+      case COMPUTE_NEIGHBOURHOOD:
+        current.printNeighbourhood(args[1], args[2], args[3]);
+        break;
+      case INDEX_REACHABILITY:
+        current.printReachabilityIndex();
+        break;
+      case REACHABLE:
+        current.printReachable(args[1], args[2]);
+        break;
+      case PAGE_RANK:
+        current.printPageRank(args[1], args[2], args[3], args[4]);
+        break;
+      case COUNT_TRIANGLES:
+        current.printTriangles();
+        break;
+      case COMPUTE_CLUSTERING:
+        current.printClustering(args[1]);
+        break;
+      case COUNT_WEAK_COMPONENTS:
+        current.printWeakComponents();
+        break;
+      case COMPUTE_WEAK_COMPONENT:
+        current.printWeakComponent(args[1]);
+        break;
+      case JOBS:
+        jobs.printJobs();
+        break;
+      case WAIT:
+        jobs.waitFor(args[1]);
+        break;
+      case CANCEL:
+        jobs.cancel(args[1]);
+        break;
+      case SET_TIMEOUT:
+        setTimeout(args[1]);
         break;
       case EXIT:
+        jobs.shutdown();
         MessageCli.END.printMessage();
 
         // Signal that the program should exit.
         return false;
+      case PROFILE:
+        metrics.printProfile();
+        break;
       case HELP:
         System.out.println(help());
         break;
@@ -1,9 +1,11 @@
 package nz.ac.auckland.se281;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Templates of messages that can be printed to the CLI.
  *
- * <p>You should not modify this class.
+ * <p>Messages starting with "Error" are counted, so a script can report how many errors it had.
  */
 public enum MessageCli {
   COMMAND_NOT_FOUND(
@@ -15,16 +17,122 @@ public enum MessageCli {
   OPENED_FILE_SUCCESSFULLY("Successfully opened graph from file %s"),
   FILE_NOT_OPEN("Error: no valid file open"),
   FILE_NOT_FOUND("Error: file '%s' not found in `testcases` folder"),
+  OPENED_GRAPH("Successfully opened graph from file %s as %s"),
+  USING_GRAPH("Using graph %s"),
+  CLOSED_GRAPH("Closed graph %s"),
+  GRAPH_NOT_FOUND("Error: there is no graph called '%s'"),
+  GRAPH_LIST_ENTRY("%s%s: file %s, %s verticies and %s edges, %s"),
+  GRAPH_IN_MEMORY("in memory (about %s bytes)"),
+  GRAPH_ON_DISK("spilled to disk"),
+  GRAPH_BUDGET("Graphs in memory take about %s of %s bytes"),
+  NO_GRAPHS("There are no graphs open"),
+  GRAPH_SPILLED("Spilled graph %s to disk to stay within the memory budget"),
+  SPILL_FAILED("Error: could not spill a graph to disk: %s"),
+  RELOAD_FAILED("Error: could not read graph %s back from disk: %s"),
   INFO("File name: %s"),
+  STATS_SIZE("Verticies: %s, edges: %s, self loops: %s, density: %s"),
+  STATS_DEGREE("%s-degree: max %s, mean %s, histogram %s"),
+  MEMORY_PART("%s: %s bytes (%s%)"),
+  MEMORY_TOTAL("Total: about %s bytes for %s verticies and %s edges"),
+  MEMORY_COMPACT("A compact representation would need about %s bytes, %s% of the total"),
+  MEMORY_HEAP("The maximum heap is %s bytes, enough for about %s graphs of this size"),
+
+  EDGE_ADDED("Added edge %s -> %s"),
+  EDGE_REMOVED("Removed edge %s -> %s"),
+  EDGE_ALREADY_EXISTS("Error: edge %s -> %s is already in the graph"),
+  EDGE_NOT_FOUND("Error: edge %s -> %s is not in the graph"),
+  INVALID_VERTEX("Error: vertex '%s' is not a whole number"),
 
   GRAPH_REFLEXIVE("The graph is %sreflexive"),
   GRAPH_SYMMETRIC("The graph is %ssymmetric"),
   GRAPH_ANTI_SYMMETRIC("The graph is %santisymmetric"),
   GRAPH_EQUIVALENCE("The graph is %san equivalence relation"),
   GRAPH_TRANSITIVE("The graph is %stransitive"),
+  GRAPH_PARTIAL_ORDER("The graph is %sa partial order"),
+  HASSE_DIAGRAM("Transitive reduction has %s of %s edges:"),
+  NO_HASSE_DIAGRAM(
+      "Error: the graph has a cycle between distinct verticies, so it has no reduction"),
+  GRAPH_CYCLE("The graph is not acyclic, found cycle: %s"),
+  SHORTEST_PATH("Shortest path from %s to %s: %s (%s hops)"),
+  NO_PATH("There is no path from %s to %s"),
+  NEIGHBOURHOOD("Found %s verticies within %s hops of %s going %s"),
+  NEIGHBOURHOOD_LAYER("Hop %s: %s"),
+  REACHABILITY_INDEX("Built reachability index in %s ms (%s components, %s intervals, %s bytes)"),
+  REACHABLE("%s can %sreach %s"),
+  WEAK_COMPONENT_COUNT("The graph has %s weakly connected components"),
+  WEAK_COMPONENT_SIZES("Number of components of each size: %s"),
+  TRIANGLES(
+      "The graph has %s triangles, global clustering coefficient %s, average clustering"
+          + " coefficient %s"),
+  VERTEX_TRIANGLES("Vertex %s is in %s triangles, clustering coefficient %s"),
+  TRIANGLES_NEED_SYMMETRY("Error: triangles can only be counted in a symmetric graph"),
+  PAGE_RANK_ITERATION("Iteration %s took %s ms, total change %s"),
+  PAGE_RANK_RESULT("PageRank %s after %s iterations"),
+  PAGE_RANK_VERTEX("%s. %s (score %s)"),
+  INVALID_NUMBER("Error: '%s' is not a valid %s"),
+  INVALID_DIRECTION("Error: '%s' is not a valid direction, expected one of %s"),
+  VERTEX_NOT_FOUND("Error: vertex '%s' is not in the graph"),
+
+  GENERATED_GRAPH("Generated %s verticies and %s edges into %s"),
+  GENERATOR_FAILED("Error: could not write '%s': %s"),
+  GENERATOR_USAGE(
+      "Usage: <FILENAME> <MODEL> <VERTICIES> [PARAMETER] [SEED], where the models are:"),
+
+  JOB_STARTED("Started job %s: %s"),
+  JOB_STATUS("[%s] %s after %s ms: %s"),
+  JOB_FINISHED("Job %s %s after %s ms: %s"),
+  JOB_FAILED("Error: job %s failed: %s"),
+  JOB_CANCELLED("Cancelled job %s: %s"),
+  JOB_ALREADY_FINISHED("Job %s has already finished, so it was not cancelled: %s"),
+  JOB_NOT_FOUND("Error: there is no job %s"),
+  JOB_NOT_ALLOWED("Error: %s can not run in the background"),
+  JOBS_RUNNING("Error: %s must wait until the background jobs have finished"),
+  NO_JOBS("There are no jobs"),
+
+  TIMEOUT_SET("Commands now stop after %s ms"),
+  TIMEOUT_CLEARED("Commands no longer have a time limit"),
+  COMMAND_TIMED_OUT("Error: %s timed out after %s ms while %s, having processed %s %s"),
+  COMMAND_CANCELLED("Error: %s was cancelled while %s, having processed %s %s"),
+  PROGRESS_COUNTED("%s: %s% (%s of %s %s, %s %s/s, %s s left)"),
+  PROGRESS_UNCOUNTED("%s: %s s so far"),
+
+  PROFILE_COMMAND(
+      "%s: %s calls, p50 %s ms, p99 %s ms, max %s ms, last graph %s verticies and %s edges"),
+  PROFILE_ALLOCATION(
+      "\tallocated p50 %s bytes, p99 %s bytes, max %s bytes, %s ms of garbage collection"),
+  ALLOCATIONS_NOT_SUPPORTED("Error: allocations can not be tracked on this JVM: %s"),
+  NO_PROFILE("No commands have been run yet"),
+  METRICS_NOT_WRITTEN("Error: could not write metrics to '%s': %s"),
+
+  SERVER_STARTED("Serving '%s' on http://%s:%s/"),
+  SERVER_FAILED("Error: could not listen on port %s: %s"),
+  REQUEST_NOT_ALLOWED("Error: %s can not be run through the server"),
+  NO_REQUEST_COMMAND("Error: no command given, send one as the %s parameter or the body of a POST"),
+  REQUEST_FAILED("Error: request failed: %s"),
+
+  USAGE(
+      "Usage: [--batch [SCRIPT] | --serve PORT FILENAME] [--metrics-file FILE] [--allocations]"
+          + " [--graph-budget MB] [--progress], where batch mode reads commands from SCRIPT or"
+          + " standard input, server mode answers commands on FILENAME over HTTP on the loopback"
+          + " PORT, the metrics of each command are written to FILE on exit, the bytes allocated by"
+          + " each command are tracked, open graphs are spilled to disk beyond MB megabytes, and"
+          + " the progress of slow commands is shown on standard error"),
+  SCRIPT_NOT_FOUND("Error: could not read script '%s': %s"),
 
   END("You closed the terminal. Goodbye.");
 
+  // Counts every error printed, so a batch run can report if any command failed
+  private static final AtomicInteger errorCount = new AtomicInteger();
+
+  /**
+   * Get the number of error messages printed so far.
+   *
+   * @return The number of errors.
+   */
+  public static int getErrorCount() {
+    return errorCount.get();
+  }
+
   private final String msg;
 
   /**
@@ -59,6 +167,19 @@ public enum MessageCli {
    * @param args The arguments to fill in the template.
    */
   public void printMessage(final String... args) {
+    if (isError()) {
+      errorCount.incrementAndGet();
+    }
+
     System.out.println(getMessage(args));
   }
+
+  /**
+   * Determine if the message reports an error.
+   *
+   * @return True if the message is an error, false otherwise.
+   */
+  public boolean isError() {
+    return msg.startsWith("Error");
+  }
 }
@@ -0,0 +1,130 @@
+package nz.ac.auckland.se281;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import nz.ac.auckland.se281.datastructures.CancellationToken;
+
+/**
+ * Draws the progress of the command running in the foreground on one line of standard error, so it
+ * never mixes with the output of the command.
+ *
+ * <p>The token of the command is polled a few times a second from a thread of its own, so the
+ * command never waits on the terminal however fast it works. Nothing is drawn for a command that
+ * finishes within a second, and the line is cleared once the command is done.
+ */
+public class ProgressReporter {
+
+  private static final long DELAY = TimeUnit.SECONDS.toNanos(1);
+  private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(250);
+  private static final String UNKNOWN = "?";
+
+  private final PrintStream out;
+  private final ScheduledExecutorService ticker =
+      Executors.newSingleThreadScheduledExecutor(
+          task -> {
+            final Thread thread = new Thread(task, "progress");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private CancellationToken token;
+  private ScheduledFuture<?> drawing;
+  private int drawnWidth;
+
+  /**
+   * Creates a reporter.
+   *
+   * @param out The stream to draw the progress line on.
+   */
+  public ProgressReporter(final PrintStream out) {
+    this.out = out;
+  }
+
+  /**
+   * Starts drawing the progress of a command, once it has run for a second.
+   *
+   * @param token The token the command reports its progress to.
+   */
+  public synchronized void start(final CancellationToken token) {
+    this.token = token;
+    drawing = ticker.scheduleAtFixedRate(this::draw, DELAY, INTERVAL, TimeUnit.NANOSECONDS);
+  }
+
+  /** Stops drawing the progress of the command, and clears the line if anything was drawn. */
+  public synchronized void stop() {
+    if (drawing != null) {
+      drawing.cancel(false);
+      drawing = null;
+    }
+    token = null;
+
+    if (drawnWidth > 0) {
+      out.print("\r" + " ".repeat(drawnWidth) + "\r");
+      out.flush();
+      drawnWidth = 0;
+    }
+  }
+
+  /**
+   * Describes the progress of a phase of work.
+   *
+   * @param phase What is being done.
+   * @param unit What the work is counted in.
+   * @param processed The work done so far.
+   * @param total The work expected, or -1 if it is not known.
+   * @param elapsed The time the phase has taken so far, in nanoseconds.
+   * @return The line to draw.
+   */
+  static String describe(
+      final String phase,
+      final String unit,
+      final long processed,
+      final long total,
+      final long elapsed) {
+    final String name = Character.toUpperCase(phase.charAt(0)) + phase.substring(1);
+    final double seconds = elapsed / 1e9;
+
+    if (total < 0) {
+      return MessageCli.PROGRESS_UNCOUNTED.getMessage(name, String.format("%.1f", seconds));
+    }
+
+    // Work out the rate from the whole phase so far, which is steadier than the last interval
+    final long done = Math.min(processed, total);
+    final double rate = seconds > 0 ? done / seconds : 0;
+    final String left =
+        rate > 0 ? String.valueOf((long) Math.ceil((total - done) / rate)) : UNKNOWN;
+
+    return MessageCli.PROGRESS_COUNTED.getMessage(
+        name,
+        String.valueOf(total == 0 ? 100 : done * 100 / total),
+        String.valueOf(done),
+        String.valueOf(total),
+        unit,
+        String.valueOf((long) rate),
+        unit,
+        left);
+  }
+
+  /** Helper method to draw the progress line over the last one. */
+  private synchronized void draw() {
+    if (token == null || token.getPhase() == null) {
+      return;
+    }
+
+    final String line =
+        describe(
+            token.getPhase(),
+            token.getUnit(),
+            token.getReportedProcessed(),
+            token.getTotal(),
+            System.nanoTime() - token.getPhaseStart());
+
+    // Pad over whatever is left of a longer line drawn before
+    out.print("\r" + line + " ".repeat(Math.max(0, drawnWidth - line.length())));
+    out.flush();
+    drawnWidth = Math.max(drawnWidth, line.length());
+  }
+}
@@ -0,0 +1,100 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * The standard output stream, sending what each thread prints to the buffer chosen for that thread,
+ * or to the original stream if none was chosen. Background jobs and the requests of the graph
+ * server use it to collect the output of the commands they run without holding up the console.
+ */
+class RoutedOutput extends OutputStream {
+
+  private final OutputStream console;
+  private final ThreadLocal<OutputStream> buffers = new ThreadLocal<OutputStream>();
+
+  /**
+   * Creates a routed stream.
+   *
+   * @param console The stream to use for threads with no buffer of their own.
+   */
+  private RoutedOutput(final OutputStream console) {
+    this.console = console;
+  }
+
+  /**
+   * Routes {@link System#out} through a routed stream, unless it already is.
+   *
+   * @return The routed stream behind {@link System#out}.
+   */
+  static synchronized RoutedOutput install() {
+    if (System.out instanceof RoutedPrintStream) {
+      return ((RoutedPrintStream) System.out).routed;
+    }
+
+    final RoutedOutput routed = new RoutedOutput(System.out);
+    System.setOut(new RoutedPrintStream(routed));
+    return routed;
+  }
+
+  /**
+   * Chooses where the current thread's output goes.
+   *
+   * @param buffer The buffer to write to, or null to write to the original stream.
+   */
+  void route(final OutputStream buffer) {
+    if (buffer == null) {
+      buffers.remove();
+    } else {
+      buffers.set(buffer);
+    }
+  }
+
+  /**
+   * Helper method to get where the current thread's output goes.
+   *
+   * @return The stream to write to.
+   */
+  private OutputStream target() {
+    final OutputStream buffer = buffers.get();
+    return buffer == null ? console : buffer;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    final OutputStream target = target();
+    synchronized (target) {
+      target.write(b);
+    }
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    final OutputStream target = target();
+    synchronized (target) {
+      target.write(b, off, len);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    target().flush();
+  }
+
+  /** The print stream installed as {@link System#out} once output is routed. */
+  private static class RoutedPrintStream extends PrintStream {
+
+    private final RoutedOutput routed;
+
+    /**
+     * Creates the print stream.
+     *
+     * @param routed The stream it writes to.
+     */
+    private RoutedPrintStream(final RoutedOutput routed) {
+      super(routed, false);
+      this.routed = routed;
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package nz.ac.auckland.se281.datastructures;
+
+/**
+ * Lets a long graph algorithm be stopped part way through, either from another thread or once a
+ * deadline has passed, and shows how far it has got.
+ *
+ * <p>A token is installed for the current thread, and the algorithms of every graph check it as
+ * they process each vertex or edge. Only the count is updated on each check, and the clock, the
+ * cancelled flag and the thread's interrupt flag are read once every {@value #CHECK_INTERVAL}
+ * units, so a check costs next to nothing. An algorithm that is stopped throws a {@link
+ * CancelledException} with how far it got, and leaves the graph and its caches as they were.
+ *
+ * <p>Each algorithm starts a phase with the amount of work it expects. The progress of the phase is
+ * published at every check, so another thread can poll it to show the fraction done, the rate and
+ * the time left, without the algorithm ever waiting on it.
+ */
+public class CancellationToken {
+
+  private static final int CHECK_INTERVAL = 1024;
+
+  private static final ThreadLocal<CancellationToken> current =
+      new ThreadLocal<CancellationToken>();
+
+  private final long start;
+  private final long timeout;
+  private volatile boolean cancelled;
+
+  // Only touched by the thread running the algorithm
+  private long processed;
+  private long untilCheck = CHECK_INTERVAL;
+
+  // Published for other threads to poll
+  private volatile String phase;
+  private volatile String unit;
+  private volatile long total = -1;
+  private volatile long phaseStart;
+  private volatile long reported;
+
+  /** Creates a token with no deadline, that only stops when it is cancelled. */
+  public CancellationToken() {
+    this(0);
+  }
+
+  /**
+   * Creates a token that stops once a timeout has passed, counting from now.
+   *
+   * @param timeout The timeout in nanoseconds, or 0 for no deadline.
+   */
+  public CancellationToken(long timeout) {
+    this.start = System.nanoTime();
+    this.timeout = timeout;
+  }
+
+  /**
+   * Sets the token the graph algorithms check on the current thread.
+   *
+   * @param token The token to check, or null to remove the token.
+   */
+  public static void install(CancellationToken token) {
+    if (token == null) {
+      current.remove();
+    } else {
+      current.set(token);
+    }
+  }
+
+  /**
+   * Get the token of the current thread, for an algorithm to check as it runs.
+   *
+   * @return The installed token, or a new token with no deadline if none is installed.
+   */
+  public static CancellationToken current() {
+    CancellationToken token = current.get();
+    return token == null ? new CancellationToken() : token;
+  }
+
+  /** Asks any algorithm checking the token to stop, from any thread. */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Starts a new phase of work, counting from zero.
+   *
+   * @param phase What is being done, such as "searching".
+   * @param total The amount of work expected, or -1 if it is not known.
+   * @param unit What the work is counted in, such as "verticies".
+   */
+  public void begin(String phase, long total, String unit) {
+    processed = 0;
+    reported = 0;
+    this.unit = unit;
+    this.total = total;
+    this.phaseStart = System.nanoTime();
+    this.phase = phase;
+  }
+
+  /**
+   * Counts one unit of work as done, and every so often publishes the progress and stops the
+   * algorithm if the token has been cancelled, the thread has been interrupted or the deadline has
+   * passed.
+   *
+   * @throws CancelledException If the algorithm should stop.
+   */
+  public void checkpoint() {
+    processed++;
+    if (--untilCheck <= 0) {
+      check();
+    }
+  }
+
+  /**
+   * Counts several units of work as done, checking the token as {@link #checkpoint()} does.
+   *
+   * @param count The number of units done.
+   * @throws CancelledException If the algorithm should stop.
+   */
+  public void checkpoint(long count) {
+    processed += count;
+    untilCheck -= count;
+    if (untilCheck <= 0) {
+      check();
+    }
+  }
+
+  /**
+   * Get the work done in the current phase, as seen by the thread doing it.
+   *
+   * @return The number of units processed.
+   */
+  public long getProcessed() {
+    return processed;
+  }
+
+  /**
+   * Get the work done in the current phase as last published, for other threads to poll.
+   *
+   * @return The number of units processed, up to one check interval behind.
+   */
+  public long getReportedProcessed() {
+    return reported;
+  }
+
+  /**
+   * Get what the current phase is doing.
+   *
+   * @return The phase, or null if none has started.
+   */
+  public String getPhase() {
+    return phase;
+  }
+
+  /**
+   * Get what the work of the current phase is counted in.
+   *
+   * @return The unit of work.
+   */
+  public String getUnit() {
+    return unit;
+  }
+
+  /**
+   * Get the work the current phase expects to do.
+   *
+   * @return The total number of units, or -1 if it is not known.
+   */
+  public long getTotal() {
+    return total;
+  }
+
+  /**
+   * Get when the current phase started.
+   *
+   * @return The start time in nanoseconds, on the same clock as {@link System#nanoTime()}.
+   */
+  public long getPhaseStart() {
+    return phaseStart;
+  }
+
+  /**
+   * Helper method to publish the progress and stop the algorithm if it should stop.
+   *
+   * @throws CancelledException If the algorithm should stop.
+   */
+  private void check() {
+    untilCheck = CHECK_INTERVAL;
+    reported = processed;
+
+    if (cancelled || Thread.currentThread().isInterrupted()) {
+      throw new CancelledException(phase, processed, unit, false);
+    }
+
+    // Compare elapsed times rather than instants, as the clock can wrap around
+    if (timeout > 0 && System.nanoTime() - start >= timeout) {
+      throw new CancelledException(phase, processed, unit, true);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package nz.ac.auckland.se281.datastructures;
+
+/** Thrown when a graph algorithm is stopped by its {@link CancellationToken}. */
+public class CancelledException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String phase;
+  private final long processed;
+  private final String unit;
+  private final boolean timedOut;
+
+  /**
+   * Creates the exception.
+   *
+   * @param phase What the algorithm was doing when it stopped.
+   * @param processed The work done in that phase before stopping.
+   * @param unit What the work is counted in.
+   * @param timedOut True if the deadline passed, false if the token was cancelled.
+   */
+  CancelledException(String phase, long processed, String unit, boolean timedOut) {
+    super(
+        (timedOut ? "timed out" : "cancelled")
+            + " while "
+            + phase
+            + " after processing "
+            + processed
+            + " "
+            + unit);
+    this.phase = phase;
+    this.processed = processed;
+    this.unit = unit;
+    this.timedOut = timedOut;
+  }
+
+  /**
+   * Get what the algorithm was doing when it stopped.
+   *
+   * @return The phase of the algorithm.
+   */
+  public String getPhase() {
+    return phase;
+  }
+
+  /**
+   * Get how far the algorithm got through its phase before stopping.
+   *
+   * @return The number of units processed.
+   */
+  public long getProcessed() {
+    return processed;
+  }
+
+  /**
+   * Get what the work of the phase is counted in.
+   *
+   * @return The unit of work.
+   */
+  public String getUnit() {
+    return unit;
+  }
+
+  /**
+   * Determines if the algorithm stopped because its deadline passed.
+   *
+   * @return True if the deadline passed, false if the token was cancelled.
+   */
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+}
@@ -0,0 +1,178 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An array based view of a graph. Verticies are numbered in the order they are searched, and the
+ * edges leaving and entering each vertex are stored as sorted ranges of one shared array.
+ *
+ * @param <T> The type of each vertex.
+ */
+class CompactGraph<T> {
+
+  private List<T> verticies;
+  private Map<T, Integer> indicies;
+
+  // Edges of vertex i are at outTargets[outOffsets[i]] up to outTargets[outOffsets[i + 1]]
+  private int[] outOffsets;
+  private int[] outTargets;
+  private int[] inOffsets;
+  private int[] inSources;
+
+  /**
+   * Creates a new compact view of a graph.
+   *
+   * @param verticies The verticies of the graph in search order.
+   * @param edges The edges of the graph.
+   */
+  CompactGraph(List<T> verticies, Collection<Edge<T>> edges) {
+
+    // Number each vertex by its position
+    this.verticies = new ArrayList<T>(verticies);
+    this.indicies = new HashMap<T, Integer>();
+    for (int i = 0; i < verticies.size(); i++) {
+      indicies.put(verticies.get(i), i);
+    }
+
+    int[] sources = new int[edges.size()];
+    int[] destinations = new int[edges.size()];
+    int i = 0;
+    for (Edge<T> edge : edges) {
+      sources[i] = indicies.get(edge.getSource());
+      destinations[i] = indicies.get(edge.getDestination());
+      i++;
+    }
+
+    outOffsets = new int[verticies.size() + 1];
+    outTargets = new int[edges.size()];
+    fillRanges(sources, destinations, outOffsets, outTargets);
+
+    inOffsets = new int[verticies.size() + 1];
+    inSources = new int[edges.size()];
+    fillRanges(destinations, sources, inOffsets, inSources);
+  }
+
+  /**
+   * Get the number of verticies in the graph.
+   *
+   * @return The number of verticies.
+   */
+  int size() {
+    return verticies.size();
+  }
+
+  /**
+   * Get the number of edges in the graph.
+   *
+   * @return The number of edges.
+   */
+  int edgeCount() {
+    return outTargets.length;
+  }
+
+  /**
+   * Get the number given to a vertex.
+   *
+   * @param vertex The vertex to find.
+   * @return The number of the vertex, or -1 if it is not in the graph.
+   */
+  int indexOf(T vertex) {
+    Integer index = indicies.get(vertex);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Get the vertex with the given number.
+   *
+   * @param index The number of the vertex.
+   * @return The vertex.
+   */
+  T getVertex(int index) {
+    return verticies.get(index);
+  }
+
+  /**
+   * Get the start of each vertex's range of outgoing edges, with one extra entry for the end.
+   *
+   * @return The offsets into {@link #getOutTargets()}.
+   */
+  int[] getOutOffsets() {
+    return outOffsets;
+  }
+
+  /**
+   * Get the destinations of all edges, grouped by source and sorted within each group.
+   *
+   * @return The destination of each edge.
+   */
+  int[] getOutTargets() {
+    return outTargets;
+  }
+
+  /**
+   * Get the start of each vertex's range of incoming edges, with one extra entry for the end.
+   *
+   * @return The offsets into {@link #getInSources()}.
+   */
+  int[] getInOffsets() {
+    return inOffsets;
+  }
+
+  /**
+   * Get the sources of all edges, grouped by destination and sorted within each group.
+   *
+   * @return The source of each edge.
+   */
+  int[] getInSources() {
+    return inSources;
+  }
+
+  /**
+   * Estimates the memory kept by the arrays of the view, and the list and map of its verticies
+   * without the verticies themselves.
+   *
+   * @return The estimated bytes.
+   */
+  long estimateBytes() {
+    return MemoryFootprint.object(6, 0)
+        + MemoryFootprint.arrayList(verticies.size())
+        + MemoryFootprint.hashMap(indicies.size())
+        + MemoryFootprint.boxedIndicies(indicies.size())
+        + 2 * MemoryFootprint.intArray(outOffsets.length)
+        + 2 * MemoryFootprint.intArray(outTargets.length);
+  }
+
+  /**
+   * Helper method to group edges by one endpoint using a counting sort.
+   *
+   * @param keys The endpoint to group each edge by.
+   * @param values The other endpoint of each edge.
+   * @param offsets The array to fill with the start of each group.
+   * @param grouped The array to fill with the values in group order.
+   */
+  private static void fillRanges(int[] keys, int[] values, int[] offsets, int[] grouped) {
+
+    // Count the size of each group, then turn the counts into starting offsets
+    for (int key : keys) {
+      offsets[key + 1]++;
+    }
+    for (int i = 1; i < offsets.length; i++) {
+      offsets[i] += offsets[i - 1];
+    }
+
+    int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+    for (int i = 0; i < keys.length; i++) {
+      grouped[next[keys[i]]++] = values[i];
+    }
+
+    // Sort each group so neighbours are in search order
+    for (int i = 0; i < offsets.length - 1; i++) {
+      Arrays.sort(grouped, offsets[i], offsets[i + 1]);
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package nz.ac.auckland.se281.datastructures;
 
+import java.util.Objects;
+
 /**
  * An edge in a graph that connects two verticies.
  *
@@ -41,4 +43,32 @@ public class Edge<T> {
   public T getDestination() {
     return destination;
   }
+
+  /**
+   * Checks if another object is an edge with the same source and destination.
+   *
+   * @param obj The object to compare with.
+   * @return True if the object is an equal edge, false otherwise.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Edge)) {
+      return false;
+    }
+    Edge<?> other = (Edge<?>) obj;
+    return source.equals(other.source) && destination.equals(other.destination);
+  }
+
+  /**
+   * Returns a hash code made from the source and destination.
+   *
+   * @return The hash code of this edge.
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(source, destination);
+  }
 }
@@ -2,28 +2,58 @@ package nz.ac.auckland.se281.datastructures;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 /**
  * A graph that is composed of a set of verticies and edges.
  *
+ * <p>The checks and searches that follow the edges are run on the {@link GraphSnapshot} of the
+ * graph, which is taken on first use and kept up to date as edges change.
+ *
+ * <p>Building the graph, and the checks and searches that can take a long time on a large graph,
+ * report their progress to the {@link CancellationToken} of the current thread as they go, and stop
+ * with a {@link CancelledException} when it is cancelled or its deadline passes.
+ *
  * <p>You must NOT change the signature of the existing methods or constructor of this class.
  *
  * @param <T> The type of each vertex, that have a total ordering.
  */
 public class Graph<T extends Comparable<T>> {
 
+  /**
+   * The stack size to give a thread that may run the recursive searches, which recurse once per
+   * vertex. A thread with the default stack runs out of it on a long chain of verticies.
+   */
+  public static final long RECURSIVE_SEARCH_STACK_SIZE = 1L << 28;
+
   // Instance variables
   private Set<T> verticies;
   private Set<Edge<T>> edges;
   private Map<T, LinkedList<Edge<T>>> adjacencyMap; // Linked List is sorted
+  private Map<T, Integer> inDegrees;
+
+  // Results worked out on first use. Each is fully built before it is stored, and the fields are
+  // volatile, so a graph that is not being changed can be read from several threads at once.
+  private volatile CompactGraph<T> compactGraph;
+  private volatile ReachabilityIndex<T> reachabilityIndex;
+  private volatile WeakComponents<T> weakComponents;
+  private volatile Triangles<T> triangles;
+  private volatile PartialOrder<T> partialOrder;
+  private volatile NeighbourhoodSearch<T> neighbourhoodSearch;
 
-  private Set<Set<T>> allEquivalenceClasses;
-  private Set<T> roots;
+  // Counts kept up to date as edges are added and removed
+  private int selfLoopCount;
+  private int symmetricPairCount; // Pairs of distinct verticies with edges both ways
+  private int asymmetricEdgeCount; // Edges between distinct verticies with no reverse edge
+
+  // Kept up to date as edges are added and removed, by copying only the blocks an edge changes
+  private volatile GraphSnapshot<T> snapshot;
 
   /**
    * Creates a new Graph.
@@ -44,42 +74,22 @@ public class Graph<T extends Comparable<T>> {
     adjacencyMap = new HashMap<T, LinkedList<Edge<T>>>();
     createAdjacencyMap();
 
-    // If graph is equivalence, find all equivalence classes
-    if (isEquivalence()) {
-      allEquivalenceClasses = getAllEquivalenceClasses();
-    }
+    // Count incoming edges of each vertex
+    inDegrees = new HashMap<T, Integer>();
+    createInDegreeMap();
 
-    this.roots = getRoots();
+    // Count the edges that decide reflexivity and symmetry
+    countEdgeProperties();
   }
 
   /**
-   * Gets the roots in the graph.
+   * Gets the roots in the graph, which are the verticies with no incoming edges, or the smallest
+   * vertex of each equivalence class if the graph is an equivalence relation.
    *
    * @return The set of roots in the graph.
    */
   public Set<T> getRoots() {
-
-    Set<T> roots = new HashSet<T>();
-
-    // Iterate through all verticies and check if they are a root
-    for (T vertex : verticies) {
-      if (isRoot(vertex)) {
-        roots.add(vertex);
-      }
-    }
-
-    // Add all lowest values of equivalence classes to roots
-    if (isEquivalence()) {
-
-      // Find lowest value of each equivalence class
-      for (Set<T> equivalenceClass : allEquivalenceClasses) {
-        Set<Integer> integerEquivalenceClass = convertToIntegerSet(equivalenceClass);
-        Integer min = Collections.min(integerEquivalenceClass);
-        roots.add(getVertex(min, equivalenceClass));
-      }
-    }
-
-    return roots;
+    return getSnapshot().getRoots();
   }
 
   /**
@@ -89,13 +99,8 @@ public class Graph<T extends Comparable<T>> {
    */
   public boolean isReflexive() {
 
-    for (T vertex : verticies) {
-      if (!findDestinationVertices(vertex).contains(vertex)) {
-        return false;
-      }
-    }
-
-    return true;
+    // Graph is reflexive if every vertex has a self loop
+    return selfLoopCount == verticies.size();
   }
 
   /**
@@ -105,40 +110,18 @@ public class Graph<T extends Comparable<T>> {
    */
   public boolean isSymmetric() {
 
-    for (Edge<T> edge : edges) {
-      // Graph is not symmetric if there is an edge that does not have a symmetric edge
-      if (!isSymmetricEdge(edge)) {
-        return false;
-      }
-    }
-    return true;
+    // Graph is not symmetric if there is an edge that does not have a symmetric edge
+    return asymmetricEdgeCount == 0;
   }
 
   /**
-   * Determines if a graph is transitive or not.
+   * Determines if a graph is transitive or not. Every edge A->B checks each edge leaving B, so this
+   * takes time in proportion to the sum of the squared out degrees rather than the number of edges.
    *
    * @return True if the graph is transitive, false otherwise.
    */
   public boolean isTransitive() {
-
-    // Find all B such that A->B - for each vertex A
-    for (T vertex : verticies) {
-      Set<T> adjacentVertices = findDestinationVertices(vertex);
-
-      // Find all C such that B->C - for each vertex B
-      for (T adjacentVertex : adjacentVertices) {
-        Set<T> adjacentAdjacentVertices = findDestinationVertices(adjacentVertex);
-
-        // Check if A->B and B->C, then A->C - for each vertex C
-        for (T adjacentAdjacentVertex : adjacentAdjacentVertices) {
-          // Graph is not transitive if A->C does not exist
-          if (!adjacentVertices.contains(adjacentAdjacentVertex)) {
-            return false;
-          }
-        }
-      }
-    }
-    return true;
+    return getSnapshot().isTransitive();
   }
 
   /**
@@ -149,12 +132,34 @@ public class Graph<T extends Comparable<T>> {
   public boolean isAntiSymmetric() {
 
     // Graph is not antisymmetric if there is a symmetrical edge that is not a self loop
-    for (Edge<T> edge : edges) {
-      if (isSymmetricEdge(edge) && edge.getSource() != edge.getDestination()) {
-        return false;
-      }
+    return symmetricPairCount == 0;
+  }
+
+  /**
+   * Determines if a graph is a partial order or not.
+   *
+   * @return True if the graph is a partial order, false otherwise.
+   */
+  public boolean isPartialOrder() {
+
+    // Graph is a partial order if it is reflexive, antisymmetric and transitive, and the
+    // transitive check on the reduction also rules out cycles through distinct verticies
+    return isReflexive() && isAntiSymmetric() && getPartialOrder().isTransitive();
+  }
+
+  /**
+   * Gets the transitive reduction of the graph, finding it on first use. For a partial order this
+   * is its Hasse diagram.
+   *
+   * @return The transitive reduction of the graph.
+   */
+  public PartialOrder<T> getPartialOrder() {
+
+    if (partialOrder == null) {
+      partialOrder = new PartialOrder<T>(getCompactGraph());
     }
-    return true;
+
+    return partialOrder;
   }
 
   /**
@@ -164,11 +169,10 @@ public class Graph<T extends Comparable<T>> {
    */
   public boolean isEquivalence() {
 
-    // Graph is an equivalence relation if it is reflexive, symmetric and transitive
-    if (isReflexive() && isSymmetric() && isTransitive()) {
-      return true;
-    }
-    return false;
+    // Graph is an equivalence relation if it is reflexive, symmetric and transitive, which is
+    // when every connected set of verticies has an edge between every pair of its members. The
+    // counts rule most graphs out before the sets are needed.
+    return isReflexive() && isSymmetric() && getSnapshot().isEquivalence();
   }
 
   /**
@@ -178,327 +182,550 @@ public class Graph<T extends Comparable<T>> {
    * @return The set of verticies in the equivalence class.
    */
   public Set<T> getEquivalenceClass(T vertex) {
+    return getSnapshot().getEquivalenceClass(vertex);
+  }
 
-    Set<T> equivalenceClass = findDestinationVertices(vertex);
+  /**
+   * Performs a breadth-first search iteratively on the graph.
+   *
+   * @return The list of verticies visited in order.
+   */
+  public List<T> iterativeBreadthFirstSearch() {
+    return getSnapshot().iterativeBreadthFirstSearch();
+  }
 
-    // Check if graph is an equivalence relation
-    if (!isEquivalence()) {
-      return new HashSet<T>();
-    }
+  /**
+   * Performs a depth-first search iteratively on the graph.
+   *
+   * @return The list of verticies visited in order.
+   */
+  public List<T> iterativeDepthFirstSearch() {
+    return getSnapshot().iterativeDepthFirstSearch();
+  }
 
-    return equivalenceClass;
+  /**
+   * Performs a breadth-first search recursively on the graph.
+   *
+   * @return The list of verticies visited in order.
+   */
+  public List<T> recursiveBreadthFirstSearch() {
+    return getSnapshot().recursiveBreadthFirstSearch();
   }
 
   /**
-   * Performs a breadth-first search iteratively on the graph.
+   * Performs a depth-first search recursively on the graph.
    *
    * @return The list of verticies visited in order.
    */
-  public List<T> iterativeBreadthFirstSearch() {
+  public List<T> recursiveDepthFirstSearch() {
+    return getSnapshot().recursiveDepthFirstSearch();
+  }
+
+  /**
+   * Performs a topological sort on the graph using Kahn's algorithm. Verticies with no remaining
+   * incoming edges are taken smallest first, matching the order used by the searches. If some
+   * verticies are never freed of incoming edges, a cycle is traced through them instead.
+   *
+   * @return The verticies in topological order, or a cycle if the graph has one.
+   */
+  public TopologicalOrder<T> topologicalSort() {
 
-    // Vertices visited
-    List<T> verticiesVisited = new ArrayList<T>();
+    List<T> order = new ArrayList<T>();
+    Map<T, Integer> remaining = removeSources(order);
 
-    // Vertices to visit
-    Set<T> verticiesToVisit = new HashSet<T>();
-    verticiesToVisit.addAll(roots);
-    Set<Integer> verticiesToVisitIntegers = convertToIntegerSet(verticiesToVisit);
+    // Verticies left over by Kahn's algorithm all lie on or after a cycle
+    if (remaining.isEmpty()) {
+      return new TopologicalOrder<T>(order, new ArrayList<T>());
+    }
 
-    // Add smallest root to queue
-    Queue<T> queue = new Queue<T>();
-    addRootQueue(verticiesToVisit, verticiesToVisitIntegers, queue);
+    return new TopologicalOrder<T>(new ArrayList<T>(), traceCycle(remaining));
+  }
 
-    // Go through queue
-    while (!queue.isEmpty()) {
-      T vertex = queue.peek();
-      verticiesVisited.add(vertex);
+  /**
+   * Helper method to trace a cycle through the verticies left over by Kahn's algorithm.
+   *
+   * @param remaining The verticies that could not be removed, which is not empty.
+   * @return The verticies of the cycle in order, starting and ending with the same vertex.
+   */
+  private List<T> traceCycle(Map<T, Integer> remaining) {
 
-      // If vertex has no adjacent vertices, remove from queue and continue
-      if (adjacencyMap.get(vertex).isEmpty()) {
-        queue.dequeue();
-        addRootQueue(verticiesToVisit, verticiesToVisitIntegers, queue);
+    // Every remaining vertex has a remaining predecessor, so walking backwards must repeat
+    Map<T, T> predecessors = new HashMap<T, T>();
+    GraphCounters.scanEdges(edges.size());
+    for (Edge<T> edge : edges) {
+      if (!remaining.containsKey(edge.getSource())
+          || !remaining.containsKey(edge.getDestination())) {
         continue;
       }
 
-      // Add all adjacent vertices to queue in order
-      addAdjacentVerticesQueue(vertex, queue, verticiesVisited);
+      // Keep the smallest predecessor so the same cycle is found every time
+      T predecessor = predecessors.get(edge.getDestination());
+      if (predecessor == null || vertexComparator().compare(edge.getSource(), predecessor) < 0) {
+        predecessors.put(edge.getDestination(), edge.getSource());
+      }
+    }
 
-      // Remove vertex from queue
-      queue.dequeue();
+    // Start from the smallest remaining vertex and walk back until a vertex repeats
+    List<T> path = new ArrayList<T>();
+    Map<T, Integer> positions = new HashMap<T, Integer>();
+    T vertex = Collections.min(remaining.keySet(), vertexComparator());
+    while (!positions.containsKey(vertex)) {
+      positions.put(vertex, path.size());
+      path.add(vertex);
+      vertex = predecessors.get(vertex);
+    }
 
-      // Go to next root if queue is empty
-      addRootQueue(verticiesToVisit, verticiesToVisitIntegers, queue);
+    // The walk went against the edges, so reverse the repeated section
+    List<T> cycle = new ArrayList<T>();
+    for (int i = path.size() - 1; i >= positions.get(vertex); i--) {
+      cycle.add(path.get(i));
     }
-    return verticiesVisited;
+    cycle.add(cycle.get(0));
+
+    return cycle;
   }
 
   /**
-   * Performs a depth-first search iteratively on the graph.
+   * Adds an edge to the graph, adding either vertex if it is not already in the graph.
    *
-   * @return The list of verticies visited in order.
+   * @param source The source vertex of the edge.
+   * @param destination The destination vertex of the edge.
+   * @return True if the edge was added, false if it was already in the graph.
    */
-  public List<T> iterativeDepthFirstSearch() {
+  public boolean addEdge(T source, T destination) {
 
-    // Vertices visited
-    List<T> verticiesVisited = new ArrayList<T>();
+    Edge<T> edge = new Edge<T>(source, destination);
+    GraphCounters.lookUp();
+    if (edges.contains(edge)) {
+      return false;
+    }
 
-    // Add all roots to stack in reverse order
-    Stack<T> stack = addRootsReverseOrderStack();
+    addVertex(source);
+    addVertex(destination);
 
-    // Go through stack
-    while (!stack.isEmpty()) {
+    // Update the counts before the edge is in the set
+    if (source.equals(destination)) {
+      selfLoopCount++;
+    } else if (isSymmetricEdge(edge)) {
+      asymmetricEdgeCount--;
+      symmetricPairCount++;
+    } else {
+      asymmetricEdgeCount++;
+    }
 
-      T vertex = stack.pop();
-      if (verticiesVisited.contains(vertex)) {
-        continue;
-      }
-      verticiesVisited.add(vertex);
+    edges.add(edge);
+
+    // Insert edge into the sorted adjacency list of the source
+    LinkedList<Edge<T>> adjacentVertices = adjacencyMap.get(source);
+    Node<Edge<T>> node = adjacentVertices.getHead();
+    int index = 0;
+    while (node != null
+        && vertexComparator().compare(node.getData().getDestination(), destination) < 0) {
+      GraphCounters.visitNode();
+      node = node.getNext();
+      index++;
+    }
+    adjacentVertices.insert(index, edge);
 
-      // If vertex has no adjacent vertices, remove from stack and continue
-      if (adjacencyMap.get(vertex).isEmpty()) {
-        continue;
-      }
+    inDegrees.put(destination, inDegrees.get(destination) + 1);
 
-      addAdjacentVerticesStack(vertex, stack, verticiesVisited);
+    GraphSnapshot<T> cachedSnapshot = snapshot;
+    if (cachedSnapshot != null) {
+      snapshot = cachedSnapshot.withEdge(source, destination);
     }
 
-    return verticiesVisited;
+    edgesChanged();
+    return true;
   }
 
   /**
-   * Performs a breadth-first search recursively on the graph.
+   * Removes an edge from the graph. Both verticies stay in the graph.
    *
-   * @return The list of verticies visited in order.
+   * @param source The source vertex of the edge.
+   * @param destination The destination vertex of the edge.
+   * @return True if the edge was removed, false if it was not in the graph.
    */
-  public List<T> recursiveBreadthFirstSearch() {
+  public boolean removeEdge(T source, T destination) {
+
+    Edge<T> edge = new Edge<T>(source, destination);
+    GraphCounters.lookUp();
+    if (!edges.remove(edge)) {
+      return false;
+    }
 
-    // Vertices visited
-    List<T> verticiesVisited = new ArrayList<T>();
+    // Update the counts now the edge is out of the set
+    if (source.equals(destination)) {
+      selfLoopCount--;
+    } else if (isSymmetricEdge(edge)) {
+      asymmetricEdgeCount++;
+      symmetricPairCount--;
+    } else {
+      asymmetricEdgeCount--;
+    }
 
-    // Vertices to visit
-    Set<T> verticiesToVisit = new HashSet<T>();
-    verticiesToVisit.addAll(roots);
-    Set<Integer> verticiesToVisitIntegers = convertToIntegerSet(verticiesToVisit);
+    LinkedList<Edge<T>> adjacentVertices = adjacencyMap.get(source);
+    adjacentVertices.remove(adjacentVertices.indexOf(edge));
 
-    // Add smallest root to queue
-    Queue<T> queue = new Queue<T>();
-    addRootQueue(verticiesToVisit, verticiesToVisitIntegers, queue);
+    inDegrees.put(destination, inDegrees.get(destination) - 1);
 
-    // Go through queue recursively
-    recursiveBreadthFirstSearchHelper(
-        verticiesVisited, queue, verticiesToVisitIntegers, verticiesToVisit);
+    GraphSnapshot<T> cachedSnapshot = snapshot;
+    if (cachedSnapshot != null) {
+      snapshot = cachedSnapshot.withoutEdge(source, destination);
+    }
 
-    return verticiesVisited;
+    edgesChanged();
+    return true;
   }
 
   /**
-   * Performs a depth-first search recursively on the graph.
+   * Determines if a vertex is in the graph.
    *
-   * @return The list of verticies visited in order.
+   * @param vertex The vertex to look for.
+   * @return True if the vertex is in the graph, false otherwise.
    */
-  public List<T> recursiveDepthFirstSearch() {
-    // Vertices visited
-    List<T> verticiesVisited = new ArrayList<T>();
-
-    // Add all roots to stack in reverse order
-    Stack<T> stack = addRootsReverseOrderStack();
-
-    // Go through stack recursively
-    recursiveDepthFirstSearchHelper(verticiesVisited, stack);
-
-    return verticiesVisited;
+  public boolean containsVertex(T vertex) {
+    return verticies.contains(vertex);
   }
 
   /**
-   * Helper method that recursively does a breadth-first search.
+   * Finds a shortest path between two verticies with a bidirectional breadth-first search. The
+   * search grows forwards from the source and backwards from the destination, always expanding the
+   * smaller frontier, and stops as soon as the two meet.
    *
-   * @param verticiesVisited The list of verticies visited in order.
-   * @param queue The queue of verticies to visit.
-   * @param verticiesToVisitIntegers The set of verticies to visit as integers for sorting.
-   * @param verticiesToVisit The set of verticies to visit as generic for retrieving original
-   *     instance.
+   * @param source The vertex to start from.
+   * @param destination The vertex to finish at.
+   * @return The verticies along the path in order, or an empty list if there is no path.
    */
-  private void recursiveBreadthFirstSearchHelper(
-      List<T> verticiesVisited,
-      Queue<T> queue,
-      Set<Integer> verticiesToVisitIntegers,
-      Set<T> verticiesToVisit) {
+  public List<T> findShortestPath(T source, T destination) {
 
-    // Base case
-    if (queue.isEmpty()) {
-      return;
-    }
+    CompactGraph<T> compact = getCompactGraph();
+    int start = compact.indexOf(source);
+    int end = compact.indexOf(destination);
+    List<T> path = new ArrayList<T>();
 
-    // Go through queue recursively
-    T vertex = queue.peek();
-    verticiesVisited.add(vertex);
+    if (start == -1 || end == -1) {
+      return path;
+    }
 
-    // Add all adjacent vertices to queue in order
-    addAdjacentVerticesQueue(vertex, queue, verticiesVisited);
+    // Each side remembers which vertex it reached every vertex from
+    Map<Integer, Integer> forwardParents = new HashMap<Integer, Integer>();
+    Map<Integer, Integer> backwardParents = new HashMap<Integer, Integer>();
+    forwardParents.put(start, -1);
+    backwardParents.put(end, -1);
+
+    List<Integer> forwardFrontier = new ArrayList<Integer>();
+    List<Integer> backwardFrontier = new ArrayList<Integer>();
+    forwardFrontier.add(start);
+    backwardFrontier.add(end);
+
+    int meeting = start == end ? start : -1;
+    CancellationToken token = CancellationToken.current();
+    token.begin("finding a shortest path", compact.size(), "verticies");
+
+    // Expand the smaller side one level at a time until the two sides meet
+    while (meeting == -1 && !forwardFrontier.isEmpty() && !backwardFrontier.isEmpty()) {
+      if (forwardFrontier.size() <= backwardFrontier.size()) {
+        List<Integer> frontier = forwardFrontier;
+        forwardFrontier = new ArrayList<Integer>();
+        meeting =
+            expandFrontier(
+                frontier,
+                forwardFrontier,
+                compact.getOutOffsets(),
+                compact.getOutTargets(),
+                forwardParents,
+                backwardParents,
+                token);
+      } else {
+        List<Integer> frontier = backwardFrontier;
+        backwardFrontier = new ArrayList<Integer>();
+        meeting =
+            expandFrontier(
+                frontier,
+                backwardFrontier,
+                compact.getInOffsets(),
+                compact.getInSources(),
+                backwardParents,
+                forwardParents,
+                token);
+      }
+    }
 
-    // Remove vertex from queue
-    queue.dequeue();
+    if (meeting == -1) {
+      return path;
+    }
 
-    // Add next root to queue if queue is empty
-    addRootQueue(verticiesToVisit, verticiesToVisitIntegers, queue);
+    // Walk back to the source, then forward to the destination
+    for (int i = meeting; i != -1; i = forwardParents.get(i)) {
+      path.add(compact.getVertex(i));
+    }
+    Collections.reverse(path);
+    for (int i = backwardParents.get(meeting); i != -1; i = backwardParents.get(i)) {
+      path.add(compact.getVertex(i));
+    }
 
-    recursiveBreadthFirstSearchHelper(
-        verticiesVisited, queue, verticiesToVisitIntegers, verticiesToVisit);
+    return path;
   }
 
   /**
-   * Helper method that recursively does a depth-first search.
+   * Finds the verticies within a number of hops of a vertex. The searcher is kept between calls, so
+   * each search only costs as much as the neighbourhood it finds.
    *
-   * @param verticiesVisited The list of verticies visited in order.
-   * @param stack The stack of verticies to visit.
+   * @param start The vertex to search from.
+   * @param hops The most edges to follow from the start vertex.
+   * @param direction The edges to follow.
+   * @return The verticies at each distance in vertex order, starting with the start vertex, or an
+   *     empty list if the start vertex is not in the graph.
    */
-  private void recursiveDepthFirstSearchHelper(List<T> verticiesVisited, Stack<T> stack) {
+  public List<List<T>> findNeighbourhood(
+      T start, int hops, NeighbourhoodSearch.Direction direction) {
 
-    // Base case
-    if (stack.isEmpty()) {
-      return;
+    if (neighbourhoodSearch == null) {
+      neighbourhoodSearch = new NeighbourhoodSearch<T>(getCompactGraph());
     }
 
-    // Go through stack recursively
-    T vertex = stack.pop();
+    return neighbourhoodSearch.search(start, hops, direction);
+  }
 
-    // Skip if vertex already visited
-    if (!verticiesVisited.contains(vertex)) {
-      verticiesVisited.add(vertex);
+  /**
+   * Gets the index used to answer reachability queries, building it on first use.
+   *
+   * @return The reachability index of the graph.
+   */
+  public ReachabilityIndex<T> getReachabilityIndex() {
 
-      // Add all adjacent vertices to stack in reverse order
-      addAdjacentVerticesStack(vertex, stack, verticiesVisited);
+    if (reachabilityIndex == null) {
+      reachabilityIndex = new ReachabilityIndex<T>(getCompactGraph());
     }
-    // Go through stack recursively
-    recursiveDepthFirstSearchHelper(verticiesVisited, stack);
+
+    return reachabilityIndex;
   }
 
   /**
-   * Helper method for creating stack and adding roots to stack in reverse order.
+   * Determines if there is a path from one vertex to another, using the reachability index.
    *
-   * @return The stack of roots in reverse order.
+   * @param source The vertex to start from.
+   * @param destination The vertex to finish at.
+   * @return True if the destination can be reached from the source, false otherwise.
    */
-  private Stack<T> addRootsReverseOrderStack() {
+  public boolean isReachable(T source, T destination) {
+    return getReachabilityIndex().isReachable(source, destination);
+  }
 
-    // Vertices to visit starting with roots
-    Set<T> verticiesToVisit = new HashSet<T>();
-    verticiesToVisit.addAll(roots);
-    Set<Integer> verticiesToVisitIntegers = convertToIntegerSet(verticiesToVisit);
+  /**
+   * Gets the weakly connected components of the graph, finding them on first use.
+   *
+   * @return The weakly connected components.
+   */
+  public WeakComponents<T> getWeakComponents() {
 
-    // Add all roots to stack in reverse order
-    Stack<T> stack = new Stack<T>();
-    for (int i = 0; i < verticiesToVisit.size(); i++) {
-      Integer max = Collections.max(verticiesToVisitIntegers);
-      T maximum = getVertex(max, verticiesToVisit);
-      stack.push(maximum);
-      verticiesToVisitIntegers.remove(max);
+    if (weakComponents == null) {
+      weakComponents = new WeakComponents<T>(getCompactGraph());
     }
-    return stack;
+
+    return weakComponents;
   }
 
   /**
-   * Helper method for adding roots to queue in order.
+   * Gathers the degree statistics of the graph.
    *
-   * @param verticiesToVisit The set of verticies to visit.
-   * @param verticiesToVisitIntegers The set of verticies to visit as integers for sorting.
-   * @param queue The queue to add roots to.
+   * @return The statistics of the graph.
    */
-  private void addRootQueue(
-      Set<T> verticiesToVisit, Set<Integer> verticiesToVisitIntegers, Queue<T> queue) {
+  public GraphStatistics getStatistics() {
 
-    // Go to next smallest root if queue is empty
-    if (queue.isEmpty()) {
-      if (!verticiesToVisitIntegers.isEmpty()) {
-        Integer min = Collections.min(verticiesToVisitIntegers);
-        T minimum = getVertex(min, verticiesToVisit);
-        queue.enqueue(minimum);
-        verticiesToVisitIntegers.remove(min);
-        verticiesToVisit.remove(minimum);
-      }
+    CancellationToken token = CancellationToken.current();
+    token.begin("gathering statistics", verticies.size(), "verticies");
+
+    // The degrees are kept up to date as edges change, so one pass over the verticies is enough
+    GraphStatistics statistics = new GraphStatistics(edges.size(), selfLoopCount);
+    for (T vertex : verticies) {
+      token.checkpoint();
+      GraphCounters.lookUp();
+      statistics.addVertex(adjacencyMap.get(vertex).size(), inDegrees.get(vertex));
     }
+
+    return statistics;
   }
 
   /**
-   * Helper method for adding adjacent vertices to queue in order.
+   * Gets an unchanging snapshot of the graph, taking it on first use. Later changes to the graph
+   * give a new snapshot, so one that has been handed out can be searched from any number of threads
+   * while the graph changes.
    *
-   * @param vertex The vertex to find adjacent vertices of.
-   * @param queue The queue to add adjacent vertices to.
-   * @param verticiesVisited The list of verticies already visited.
+   * @return The snapshot of the graph as it is now.
    */
-  private void addAdjacentVerticesQueue(T vertex, Queue<T> queue, List<T> verticiesVisited) {
-
-    // If vertex has no adjacent vertices return
-    int i = 0;
-    if (adjacencyMap.get(vertex).isEmpty()) {
-      return;
+  public GraphSnapshot<T> getSnapshot() {
+
+    GraphSnapshot<T> cachedSnapshot = snapshot;
+    if (cachedSnapshot == null) {
+      List<T> sortedVerticies = new ArrayList<T>(verticies);
+      sortedVerticies.sort(vertexComparator());
+      cachedSnapshot =
+          new GraphSnapshot<T>(
+              sortedVerticies,
+              adjacencyMap,
+              selfLoopCount,
+              symmetricPairCount,
+              asymmetricEdgeCount);
+      snapshot = cachedSnapshot;
     }
 
-    // Add all adjacent vertices to queue in order
-    Node<Edge<T>> node = adjacencyMap.get(vertex).getHead();
-
-    while (node.getNext() != null || i == 0) {
+    return cachedSnapshot;
+  }
 
-      // Iterate after first
-      if (i != 0) {
-        node = node.getNext();
-      }
+  /**
+   * Estimates the memory kept by each structure of the graph, including the results worked out so
+   * far, and the memory a compact representation of the graph would need instead.
+   *
+   * @return The estimated footprint of the graph.
+   */
+  public MemoryFootprint getMemoryFootprint() {
+
+    MemoryFootprint footprint = new MemoryFootprint();
+    long vertexBytes = MemoryFootprint.verticies(verticies);
+    footprint.add("verticies", vertexBytes);
+    footprint.add("edges", edges.size() * MemoryFootprint.object(2, 0));
+    footprint.add("vertex set", MemoryFootprint.hashSet(verticies.size()));
+    footprint.add("edge set", MemoryFootprint.hashSet(edges.size()));
+
+    // A list for each vertex, with a node for each edge leaving it
+    footprint.add(
+        "adjacency lists",
+        MemoryFootprint.hashMap(adjacencyMap.size())
+            + adjacencyMap.size() * MemoryFootprint.object(2, Integer.BYTES)
+            + edges.size() * MemoryFootprint.object(3, 0));
+
+    long inDegreeBytes = MemoryFootprint.hashMap(inDegrees.size());
+    for (int inDegree : inDegrees.values()) {
+      inDegreeBytes += MemoryFootprint.boxed(inDegree);
+    }
+    footprint.add("in-degrees", inDegreeBytes);
 
-      // If vertex is in queue or vertice already visited, skip
-      if (verticiesVisited.contains(node.getData().getDestination())
-          || queue.contains(node.getData().getDestination())) {
-        i++;
-        continue;
-      }
+    // Read each result once, as another thread may drop it while the graph is changed
+    CompactGraph<T> cachedCompactGraph = compactGraph;
+    if (cachedCompactGraph != null) {
+      footprint.add("compact view", cachedCompactGraph.estimateBytes());
+    }
+    ReachabilityIndex<T> index = reachabilityIndex;
+    if (index != null) {
+      footprint.add("reachability index", index.estimateBytes());
+    }
+    WeakComponents<T> components = weakComponents;
+    if (components != null) {
+      footprint.add("weak components", components.estimateBytes());
+    }
+    Triangles<T> cachedTriangles = triangles;
+    if (cachedTriangles != null) {
+      footprint.add("triangles", cachedTriangles.estimateBytes());
+    }
+    PartialOrder<T> order = partialOrder;
+    if (order != null) {
+      footprint.add("partial order", order.estimateBytes());
+    }
+    NeighbourhoodSearch<T> search = neighbourhoodSearch;
+    if (search != null) {
+      footprint.add("neighbourhood search", search.estimateBytes());
+    }
+    GraphSnapshot<T> cachedSnapshot = snapshot;
+    if (cachedSnapshot != null) {
+      footprint.add("snapshot", cachedSnapshot.estimateBytes());
+    }
 
-      // Add destination to queue
-      queue.enqueue(node.getData().getDestination());
+    // A sorted array of the verticies to look them up, and the edges as ranges of shared arrays
+    footprint.setCompactBytes(
+        vertexBytes
+            + MemoryFootprint.referenceArray(verticies.size())
+            + 2 * MemoryFootprint.intArray(verticies.size() + 1)
+            + 2 * MemoryFootprint.intArray(edges.size()));
 
-      // Iterate if first
-      if (i == 0) {
-        i++;
-      }
-    }
+    return footprint;
   }
 
   /**
-   * Helper method for adding adjacent vertices to stack in reverse order.
+   * Gets the triangles of the graph, counting them on first use. Only meaningful when the graph is
+   * symmetric.
    *
-   * @param vertex The vertex to find adjacent vertices of.
-   * @param stack The stack to add adjacent vertices to.
-   * @param verticiesVisited The list of verticies already visited.
+   * @return The triangles and clustering coefficients of the graph.
    */
-  private void addAdjacentVerticesStack(T vertex, Stack<T> stack, List<T> verticiesVisited) {
+  public Triangles<T> getTriangles() {
 
-    // If vertex has no adjacent vertices return
-    int i = 0;
-    if (adjacencyMap.get(vertex).isEmpty()) {
-      return;
+    if (triangles == null) {
+      triangles = new Triangles<T>(getCompactGraph());
     }
 
-    // Add all adjacent vertices to stack in order
-    Node<Edge<T>> node = adjacencyMap.get(vertex).getTail();
+    return triangles;
+  }
 
-    while (node.getPrevious() != null || i == 0) {
+  /**
+   * Ranks the verticies of the graph by importance with PageRank.
+   *
+   * @param damping The chance of following an edge rather than jumping to a random vertex.
+   * @param tolerance The total change in scores below which the scores have converged.
+   * @param maxIterations The most iterations to run before giving up on converging.
+   * @return The PageRank scores of the graph.
+   */
+  public PageRank<T> computePageRank(double damping, double tolerance, int maxIterations) {
+    return new PageRank<T>(getCompactGraph(), damping, tolerance, maxIterations);
+  }
 
-      // Iterate after first
-      if (i != 0) {
-        node = node.getPrevious();
-      }
+  /**
+   * Helper method for expanding one level of a bidirectional breadth-first search.
+   *
+   * @param frontier The verticies found in the previous level.
+   * @param nextFrontier The list to add newly found verticies to.
+   * @param offsets The start of each vertex's range of neighbours.
+   * @param neighbours The neighbours of every vertex in the direction being searched.
+   * @param parents The verticies this side has found, mapped to where they were found from.
+   * @param otherParents The verticies the other side has found.
+   * @param token The token to check as each vertex is expanded.
+   * @return The vertex where the two sides met, or -1 if they have not met.
+   */
+  private int expandFrontier(
+      List<Integer> frontier,
+      List<Integer> nextFrontier,
+      int[] offsets,
+      int[] neighbours,
+      Map<Integer, Integer> parents,
+      Map<Integer, Integer> otherParents,
+      CancellationToken token) {
+
+    for (int vertex : frontier) {
+      token.checkpoint();
+      GraphCounters.scanEdges(offsets[vertex + 1] - offsets[vertex]);
+      for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+        int neighbour = neighbours[i];
+        GraphCounters.lookUp();
+
+        // Skip verticies this side has already found
+        if (parents.containsKey(neighbour)) {
+          continue;
+        }
+        parents.put(neighbour, vertex);
 
-      // If vertex already visited, skip
-      if (verticiesVisited.contains(node.getData().getDestination())) {
-        i++;
-        continue;
+        // The first vertex found by both sides lies on a shortest path
+        if (otherParents.containsKey(neighbour)) {
+          return neighbour;
+        }
+        nextFrontier.add(neighbour);
       }
+    }
+    return -1;
+  }
 
-      // Add destination to stack
-      stack.push(node.getData().getDestination());
+  /**
+   * Helper method to get the array based view of the graph, creating it on first use.
+   *
+   * @return The compact view of the graph.
+   */
+  CompactGraph<T> getCompactGraph() {
 
-      // Iterate if first
-      if (i == 0) {
-        i++;
-      }
+    if (compactGraph == null) {
+      List<T> sortedVerticies = new ArrayList<T>(verticies);
+      sortedVerticies.sort(vertexComparator());
+      compactGraph = new CompactGraph<T>(sortedVerticies, edges);
     }
+
+    return compactGraph;
   }
 
   /**
@@ -507,191 +734,183 @@ public class Graph<T extends Comparable<T>> {
    */
   private void createAdjacencyMap() {
 
-    // Use each vertex as key for each adjacency list
-    for (T vertex : verticies) {
-      LinkedList<Edge<T>> adjacentVertices = new LinkedList<Edge<T>>();
-
-      // Find all edges that have the vertex as a source
-      for (Edge<T> edge : edges) {
+    CancellationToken token = CancellationToken.current();
+    token.begin("building adjacency lists", edges.size(), "edges");
 
-        if (!(edge.getSource().equals(vertex))) {
-          continue;
-        }
+    // Group the edges by their source vertex
+    GraphCounters.scanEdges(edges.size());
+    Map<T, List<Edge<T>>> edgesBySource = new HashMap<T, List<Edge<T>>>();
+    for (T vertex : verticies) {
+      edgesBySource.put(vertex, new ArrayList<Edge<T>>());
+    }
+    for (Edge<T> edge : edges) {
+      token.checkpoint();
+      edgesBySource.get(edge.getSource()).add(edge);
+    }
 
-        // First edge just appended to list
-        if (adjacentVertices.size() == 0) {
-          adjacentVertices.append(edge);
-          continue;
-        }
+    // Sort each group by destination and store it as a linked-list
+    Comparator<Edge<T>> byDestination =
+        Comparator.comparing(Edge::getDestination, vertexComparator());
+    for (T vertex : verticies) {
+      List<Edge<T>> group = edgesBySource.get(vertex);
+      group.sort(byDestination);
 
-        // Insert edge into list in order
-        Node<Edge<T>> previous = adjacentVertices.getHead();
-        int i = 0;
-        while (previous.getNext() != null || adjacentVertices.size() == 1) {
-
-          // Iterate after first
-          if (i != 0) {
-            previous = previous.getNext();
-          }
-
-          T previousEdgeDestination = previous.getData().getDestination();
-          // Convert to integer if not already
-          Integer previousEdgeDestinationInteger = castToInteger(previousEdgeDestination);
-
-          // If edge is greater than previous edge, continue
-          if (previousEdgeDestinationInteger.compareTo(castToInteger(edge.getDestination())) < 0) {
-
-            // If previous is tail, append edge to tail
-            if (previous == adjacentVertices.getTail()) {
-              adjacentVertices.append(edge);
-              break;
-
-              // Else continue to next edge
-            } else {
-              if (i == 0) {
-                i++;
-              }
-              continue;
-            }
-          }
-
-          // If edge is less than previous edge, insert edge before previous edge
-          int index = adjacentVertices.indexOf(previous.getData());
-          adjacentVertices.insert(index, edge);
-          break;
-        }
+      LinkedList<Edge<T>> adjacentVertices = new LinkedList<Edge<T>>();
+      for (Edge<T> edge : group) {
+        adjacentVertices.append(edge);
       }
-
-      // Add adjacency list to adjacency map
       adjacencyMap.put(vertex, adjacentVertices);
     }
   }
 
-  /**
-   * Helper method to cast generic type to integer.
-   *
-   * @param data The data to cast.
-   * @return The data as an integer.
-   */
-  private Integer castToInteger(T data) {
-    if (data.getClass() == Integer.class) {
-      return (Integer) data;
-    } else {
-      return Integer.parseInt((String) data);
+  /** Helper method to count the number of edges coming into each vertex. */
+  private void createInDegreeMap() {
+
+    for (T vertex : verticies) {
+      inDegrees.put(vertex, 0);
+    }
+
+    CancellationToken token = CancellationToken.current();
+    token.begin("counting in-degrees", edges.size(), "edges");
+
+    GraphCounters.scanEdges(edges.size());
+    for (Edge<T> edge : edges) {
+      token.checkpoint();
+      inDegrees.put(edge.getDestination(), inDegrees.get(edge.getDestination()) + 1);
     }
   }
 
-  /**
-   * Helper method to check if a vertex has in-degree 0.
-   *
-   * @param vertex The vertex to check.
-   * @return True if the vertex has in-degree 0, false otherwise.
-   */
-  private boolean isRoot(T vertex) {
+  /** Helper method to count self loops, and edges with and without a reverse edge. */
+  private void countEdgeProperties() {
 
-    // Check if vertice is a destination of any edge
+    CancellationToken token = CancellationToken.current();
+    token.begin("matching reverse edges", edges.size(), "edges");
+
+    GraphCounters.scanEdges(edges.size());
     for (Edge<T> edge : edges) {
-      if ((edge.getDestination().equals(vertex))) {
-        return false;
+      token.checkpoint();
+      if (edge.getSource().equals(edge.getDestination())) {
+        selfLoopCount++;
+      } else if (isSymmetricEdge(edge)) {
+        symmetricPairCount++;
+      } else {
+        asymmetricEdgeCount++;
       }
     }
 
-    return true;
+    // Each symmetric pair was counted from both of its edges
+    symmetricPairCount /= 2;
   }
 
   /**
-   * Helper method to convert a set of generic type to a set of integers.
+   * Helper method to add a vertex with no edges, if it is not already in the graph.
    *
-   * @param set The set to convert.
-   * @return The set converted to integers.
+   * @param vertex The vertex to add.
    */
-  private Set<Integer> convertToIntegerSet(Set<T> set) {
-    Set<Integer> integerSet = new HashSet<Integer>();
+  private void addVertex(T vertex) {
 
-    // Convert each element to integer
-    for (T element : set) {
-      // Cast if already Integer
-      Integer elementInt = castToInteger(element);
-      integerSet.add(elementInt);
+    if (!verticies.add(vertex)) {
+      return;
     }
-    return integerSet;
+
+    adjacencyMap.put(vertex, new LinkedList<Edge<T>>());
+    inDegrees.put(vertex, 0);
+  }
+
+  /** Helper method to forget everything worked out from the old edges of the graph. */
+  private void edgesChanged() {
+    compactGraph = null;
+    reachabilityIndex = null;
+    weakComponents = null;
+    triangles = null;
+    partialOrder = null;
+    neighbourhoodSearch = null;
   }
 
   /**
-   * Helper method to check if an edge has a symmetric edge - including self loop.
+   * Helper method that repeatedly removes the smallest vertex with no incoming edges, as in Kahn's
+   * algorithm.
    *
-   * @param edge The edge to check.
-   * @return True if the edge has a symmetric edge, false otherwise.
+   * @param order The list to add the removed verticies to in order.
+   * @return The verticies that could not be removed mapped to their remaining in-degree.
    */
-  private boolean isSymmetricEdge(Edge<T> edge) {
+  private Map<T, Integer> removeSources(List<T> order) {
 
-    // Check if there is an edge with the same source and destination but in the opposite direction
-    for (Edge<T> e : edges) {
-      if (edge.getSource().equals(e.getDestination())
-          && edge.getDestination().equals(e.getSource())) {
-        return true;
+    // Work on a copy so the in-degrees of the graph are untouched
+    Map<T, Integer> remaining = new HashMap<T, Integer>(inDegrees);
+
+    // Start with the verticies that have in-degree 0
+    PriorityQueue<T> sources = new PriorityQueue<T>(vertexComparator());
+    for (T vertex : verticies) {
+      if (remaining.get(vertex) == 0) {
+        GraphCounters.push();
+        sources.add(vertex);
+      }
+    }
+
+    CancellationToken token = CancellationToken.current();
+    token.begin("sorting topologically", verticies.size(), "verticies");
+
+    while (!sources.isEmpty()) {
+      token.checkpoint();
+      GraphCounters.pop();
+      T vertex = sources.poll();
+      remaining.remove(vertex);
+      order.add(vertex);
+
+      // Removing the vertex removes one incoming edge from each destination
+      for (Node<Edge<T>> node = adjacencyMap.get(vertex).getHead();
+          node != null;
+          node = node.getNext()) {
+        GraphCounters.visitNode();
+        GraphCounters.lookUp();
+        T destination = node.getData().getDestination();
+        int inDegree = remaining.get(destination) - 1;
+        remaining.put(destination, inDegree);
+
+        if (inDegree == 0) {
+          GraphCounters.push();
+          sources.add(destination);
+        }
       }
     }
-    return false;
+
+    return remaining;
   }
 
   /**
-   * Helper method to find all vertices that a vertex has an edge to.
+   * Helper method to get the ordering of verticies used when searching the graph.
    *
-   * @param vertex The vertex to find adjacent vertices of.
-   * @return The set of adjacent vertices.
+   * @return The comparator that orders verticies by their integer value.
    */
-  private Set<T> findDestinationVertices(T vertex) {
-    Set<T> adjacentVertices = new HashSet<T>();
-    for (Edge<T> edge : edges) {
-      if (edge.getSource().equals(vertex)) {
-        adjacentVertices.add(edge.getDestination());
-      }
-    }
-    return adjacentVertices;
+  static <T> Comparator<T> vertexComparator() {
+    return Comparator.comparing(Graph::castToInteger);
   }
 
   /**
-   * Helper method to find all equivalence classes.
+   * Helper method to cast generic type to integer.
    *
-   * @return The set of all equivalence classes where each equivalence class is a set.
+   * @param data The data to cast.
+   * @return The data as an integer.
    */
-  private Set<Set<T>> getAllEquivalenceClasses() {
-
-    // Create a new set of all verticies
-    List<T> verticiesToAdd = new ArrayList<T>();
-    verticiesToAdd.addAll(verticies);
-
-    Set<Set<T>> allEquivalenceClasses = new HashSet<Set<T>>();
-
-    // Find all equivalence classes
-    while (verticiesToAdd.size() != 0) {
-      T vertex = verticiesToAdd.get(0);
-      Set<T> equivalenceClass = getEquivalenceClass(vertex);
-      verticiesToAdd.removeAll(equivalenceClass);
-      allEquivalenceClasses.add(equivalenceClass);
+  private static Integer castToInteger(Object data) {
+    if (data.getClass() == Integer.class) {
+      return (Integer) data;
+    } else {
+      return Integer.parseInt((String) data);
     }
-    return allEquivalenceClasses;
   }
 
   /**
-   * Helper method to return corresponding vertex from set of type generic.
+   * Helper method to check if an edge has a symmetric edge - including self loop.
    *
-   * @param vertex The vertex to find as an Integer.
-   * @param verticies The set of verticies to search through as a generic set.
-   * @return The corresponding vertex as a generic type.
+   * @param edge The edge to check.
+   * @return True if the edge has a symmetric edge, false otherwise.
    */
-  private T getVertex(Integer vertex, Set<T> verticies) {
-
-    // Loop through all verticies
-    for (T v : verticies) {
-      Integer v1 = castToInteger(v);
+  private boolean isSymmetricEdge(Edge<T> edge) {
 
-      // Compare verticies to find match
-      if (v1.equals(vertex)) {
-        return v;
-      }
-    }
-    return null;
+    // Check if there is an edge with the same source and destination but in the opposite direction
+    GraphCounters.lookUp();
+    return edges.contains(new Edge<T>(edge.getDestination(), edge.getSource()));
   }
 }
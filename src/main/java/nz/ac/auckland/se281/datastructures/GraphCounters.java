@@ -0,0 +1,133 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts of the work done inside every graph: edges scanned, adjacency nodes visited, hash lookups,
+ * and pushes and pops of queues and stacks.
+ *
+ * <p>The counters are only updated when the JVM is started with {@code -Dgraph.counters=true}. The
+ * switch is a constant, so when it is off the compiler removes every count along with its check.
+ * When it is on, each counter is a {@link LongAdder} so graphs used from several threads do not
+ * contend over one value, and the counters are registered as a platform MXBean for JConsole or a
+ * test to read.
+ */
+public final class GraphCounters implements GraphCountersMXBean {
+
+  /** The name the counters are registered under with the platform MBean server. */
+  public static final String OBJECT_NAME = "nz.ac.auckland.se281:type=GraphCounters";
+
+  static final boolean ENABLED = Boolean.getBoolean("graph.counters");
+
+  private static final GraphCounters INSTANCE = new GraphCounters();
+
+  private final LongAdder edgesScanned = new LongAdder();
+  private final LongAdder nodesVisited = new LongAdder();
+  private final LongAdder hashLookups = new LongAdder();
+  private final LongAdder pushes = new LongAdder();
+  private final LongAdder pops = new LongAdder();
+
+  static {
+    if (ENABLED) {
+      try {
+        ManagementFactory.getPlatformMBeanServer()
+            .registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+      } catch (final JMException e) {
+        // Counting still works without the MXBean, it just can not be seen remotely
+      }
+    }
+  }
+
+  /** Creates the counters, which are shared by every graph. */
+  private GraphCounters() {}
+
+  /**
+   * Get the counters shared by every graph.
+   *
+   * @return The counters.
+   */
+  public static GraphCounters getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Counts edges read from an edge set or adjacency array.
+   *
+   * @param count The number of edges scanned.
+   */
+  static void scanEdges(long count) {
+    if (ENABLED) {
+      INSTANCE.edgesScanned.add(count);
+    }
+  }
+
+  /** Counts one adjacency list node followed. */
+  static void visitNode() {
+    if (ENABLED) {
+      INSTANCE.nodesVisited.increment();
+    }
+  }
+
+  /** Counts one lookup into a hash set or map. */
+  static void lookUp() {
+    if (ENABLED) {
+      INSTANCE.hashLookups.increment();
+    }
+  }
+
+  /** Counts one vertex added to a queue or stack. */
+  static void push() {
+    if (ENABLED) {
+      INSTANCE.pushes.increment();
+    }
+  }
+
+  /** Counts one vertex taken from a queue or stack. */
+  static void pop() {
+    if (ENABLED) {
+      INSTANCE.pops.increment();
+    }
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return ENABLED;
+  }
+
+  @Override
+  public long getEdgesScanned() {
+    return edgesScanned.sum();
+  }
+
+  @Override
+  public long getNodesVisited() {
+    return nodesVisited.sum();
+  }
+
+  @Override
+  public long getHashLookups() {
+    return hashLookups.sum();
+  }
+
+  @Override
+  public long getPushes() {
+    return pushes.sum();
+  }
+
+  @Override
+  public long getPops() {
+    return pops.sum();
+  }
+
+  @Override
+  public void reset() {
+    edgesScanned.reset();
+    nodesVisited.reset();
+    hashLookups.reset();
+    pushes.reset();
+    pops.reset();
+  }
+}
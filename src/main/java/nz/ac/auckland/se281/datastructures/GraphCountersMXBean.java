@@ -0,0 +1,53 @@
+package nz.ac.auckland.se281.datastructures;
+
+/**
+ * The counts of work done by graphs, as seen through JMX under the name {@value
+ * GraphCounters#OBJECT_NAME}.
+ */
+public interface GraphCountersMXBean {
+
+  /**
+   * Determine if the counters are being updated, which is set once at startup.
+   *
+   * @return True if the counters are enabled, false otherwise.
+   */
+  boolean isEnabled();
+
+  /**
+   * Get the number of edges read from edge sets and adjacency arrays.
+   *
+   * @return The number of edges scanned.
+   */
+  long getEdgesScanned();
+
+  /**
+   * Get the number of adjacency list nodes followed.
+   *
+   * @return The number of nodes visited.
+   */
+  long getNodesVisited();
+
+  /**
+   * Get the number of lookups into hash sets and maps.
+   *
+   * @return The number of hash lookups.
+   */
+  long getHashLookups();
+
+  /**
+   * Get the number of verticies added to queues and stacks.
+   *
+   * @return The number of pushes.
+   */
+  long getPushes();
+
+  /**
+   * Get the number of verticies taken from queues and stacks.
+   *
+   * @return The number of pops.
+   */
+  long getPops();
+
+  /** Sets every counter back to zero. */
+  void reset();
+}
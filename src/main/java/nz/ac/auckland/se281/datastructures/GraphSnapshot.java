@@ -0,0 +1,1135 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An unchanging copy of a graph that any number of threads can search at once without locking.
+ *
+ * <p>Every field but one is final and built before the constructor returns, so a snapshot is safely
+ * published however it is shared. The edges leaving and entering the verticies are stored in blocks
+ * of {@value #BLOCK_SIZE} verticies each. Adding or removing an edge gives a new snapshot that
+ * copies only the two blocks the edge is in and the tables of blocks, sharing every other block
+ * with the old snapshot. Adding a vertex also copies the list of verticies and their indicies.
+ *
+ * <p>The verticies with no incoming edges are carried forward from the old snapshot, as only the
+ * destination of the edge can gain or lose its last incoming edge. The equivalence classes take a
+ * search of the whole snapshot, so they are only looked for the first time they are asked for, and
+ * only when the snapshot is reflexive and symmetric, which its counts show straight away. They are
+ * kept in the one field that is not final, which is volatile and only ever set to a finished array,
+ * so two threads asking at once at worst both look for the same classes.
+ *
+ * @param <T> The type of each vertex, that have a total ordering.
+ */
+public final class GraphSnapshot<T extends Comparable<T>> {
+
+  private static final int BLOCK_BITS = 6;
+  private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+  private static final int SLOT_MASK = BLOCK_SIZE - 1;
+  private static final Block EMPTY_BLOCK = new Block(new int[BLOCK_SIZE + 1], new int[0]);
+
+  // Kept as the class roots of a snapshot found not to be an equivalence relation
+  private static final int[] NOT_EQUIVALENCE = new int[0];
+
+  // Verticies copied from the graph are numbered in vertex order, and new ones go at the end
+  private final List<T> verticies;
+  private final Map<T, Integer> indicies;
+  private final Comparator<T> order = Graph.vertexComparator();
+
+  // Neighbours of vertex i are in block i / BLOCK_SIZE, sorted in vertex order
+  private final Block[] outBlocks;
+  private final Block[] inBlocks;
+
+  private final int edgeCount;
+  private final int selfLoopCount;
+  private final int symmetricPairCount;
+  private final int asymmetricEdgeCount;
+
+  // Verticies with no incoming edges, and the smallest of each equivalence class once looked for
+  private final int[] sourceRoots; // In vertex order
+  private volatile int[] classRoots; // In vertex order
+
+  /**
+   * Creates a snapshot of a graph.
+   *
+   * @param verticies The verticies of the graph in vertex order.
+   * @param adjacencyMap The edges leaving each vertex, in vertex order of their destinations.
+   * @param selfLoopCount The number of edges from a vertex to itself.
+   * @param symmetricPairCount The number of pairs of distinct verticies with edges both ways.
+   * @param asymmetricEdgeCount The number of edges between distinct verticies with no reverse edge.
+   */
+  GraphSnapshot(
+      List<T> verticies,
+      Map<T, LinkedList<Edge<T>>> adjacencyMap,
+      int selfLoopCount,
+      int symmetricPairCount,
+      int asymmetricEdgeCount) {
+
+    Map<T, Integer> newIndicies = new HashMap<T, Integer>();
+    for (int i = 0; i < verticies.size(); i++) {
+      newIndicies.put(verticies.get(i), i);
+    }
+    this.verticies = Collections.unmodifiableList(new ArrayList<T>(verticies));
+    this.indicies = Collections.unmodifiableMap(newIndicies);
+
+    // List the edges by source, so the sources of each destination also come out in vertex order
+    int count = 0;
+    for (LinkedList<Edge<T>> adjacentEdges : adjacencyMap.values()) {
+      count += adjacentEdges.size();
+    }
+    int[] sources = new int[count];
+    int[] destinations = new int[count];
+
+    CancellationToken token = CancellationToken.current();
+    token.begin("taking a snapshot", count, "edges");
+
+    int i = 0;
+    for (int source = 0; source < verticies.size(); source++) {
+      for (Node<Edge<T>> node = adjacencyMap.get(verticies.get(source)).getHead();
+          node != null;
+          node = node.getNext()) {
+        token.checkpoint();
+        GraphCounters.visitNode();
+        sources[i] = source;
+        destinations[i] = newIndicies.get(node.getData().getDestination());
+        i++;
+      }
+    }
+
+    outBlocks = group(verticies.size(), sources, destinations);
+    inBlocks = group(verticies.size(), destinations, sources);
+    this.edgeCount = count;
+    this.selfLoopCount = selfLoopCount;
+    this.symmetricPairCount = symmetricPairCount;
+    this.asymmetricEdgeCount = asymmetricEdgeCount;
+
+    // The verticies are numbered in vertex order, so these are already sorted
+    int[] sourceRoots = new int[verticies.size()];
+    int sourceRootCount = 0;
+    for (int vertex = 0; vertex < verticies.size(); vertex++) {
+      Block block = inBlocks[vertex >>> BLOCK_BITS];
+      int slot = vertex & SLOT_MASK;
+      if (block.offsets[slot] == block.offsets[slot + 1]) {
+        sourceRoots[sourceRootCount++] = vertex;
+      }
+    }
+
+    this.sourceRoots = Arrays.copyOf(sourceRoots, sourceRootCount);
+  }
+
+  /**
+   * Creates a snapshot from the parts of another.
+   *
+   * @param verticies The verticies by index.
+   * @param indicies The index of each vertex.
+   * @param outBlocks The blocks of edges leaving the verticies.
+   * @param inBlocks The blocks of edges entering the verticies.
+   * @param edgeCount The number of edges.
+   * @param selfLoopCount The number of edges from a vertex to itself.
+   * @param symmetricPairCount The number of pairs of distinct verticies with edges both ways.
+   * @param asymmetricEdgeCount The number of edges between distinct verticies with no reverse edge.
+   * @param sourceRoots The verticies with no incoming edges, in vertex order.
+   */
+  private GraphSnapshot(
+      List<T> verticies,
+      Map<T, Integer> indicies,
+      Block[] outBlocks,
+      Block[] inBlocks,
+      int edgeCount,
+      int selfLoopCount,
+      int symmetricPairCount,
+      int asymmetricEdgeCount,
+      int[] sourceRoots) {
+    this.verticies = verticies;
+    this.indicies = indicies;
+    this.outBlocks = outBlocks;
+    this.inBlocks = inBlocks;
+    this.edgeCount = edgeCount;
+    this.selfLoopCount = selfLoopCount;
+    this.symmetricPairCount = symmetricPairCount;
+    this.asymmetricEdgeCount = asymmetricEdgeCount;
+    this.sourceRoots = sourceRoots;
+  }
+
+  /**
+   * Get the number of verticies.
+   *
+   * @return The number of verticies.
+   */
+  public int size() {
+    return verticies.size();
+  }
+
+  /**
+   * Get the number of edges.
+   *
+   * @return The number of edges.
+   */
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Get the verticies, in vertex order apart from any added since the snapshot of the graph.
+   *
+   * @return The verticies, which can not be changed.
+   */
+  public List<T> getVerticies() {
+    return verticies;
+  }
+
+  /**
+   * Determines if a vertex is in the snapshot.
+   *
+   * @param vertex The vertex to look for.
+   * @return True if the vertex is in the snapshot, false otherwise.
+   */
+  public boolean containsVertex(T vertex) {
+    return indicies.containsKey(vertex);
+  }
+
+  /**
+   * Determines if an edge is in the snapshot.
+   *
+   * @param source The source vertex of the edge.
+   * @param destination The destination vertex of the edge.
+   * @return True if the edge is in the snapshot, false otherwise.
+   */
+  public boolean containsEdge(T source, T destination) {
+    Integer from = indicies.get(source);
+    Integer to = indicies.get(destination);
+    return from != null && to != null && find(outBlocks, from, to) >= 0;
+  }
+
+  /**
+   * Get the verticies a vertex has an edge to.
+   *
+   * @param vertex The vertex to start from.
+   * @return The destinations in vertex order, or an empty list if the vertex is not in the
+   *     snapshot.
+   */
+  public List<T> getSuccessors(T vertex) {
+    return neighbours(outBlocks, vertex);
+  }
+
+  /**
+   * Get the verticies that have an edge to a vertex.
+   *
+   * @param vertex The vertex to finish at.
+   * @return The sources in vertex order, or an empty list if the vertex is not in the snapshot.
+   */
+  public List<T> getPredecessors(T vertex) {
+    return neighbours(inBlocks, vertex);
+  }
+
+  /**
+   * Determines if the snapshot is reflexive or not.
+   *
+   * @return True if every vertex has an edge to itself, false otherwise.
+   */
+  public boolean isReflexive() {
+    return selfLoopCount == verticies.size();
+  }
+
+  /**
+   * Determines if the snapshot is symmetric or not.
+   *
+   * @return True if every edge has a reverse edge, false otherwise.
+   */
+  public boolean isSymmetric() {
+    return asymmetricEdgeCount == 0;
+  }
+
+  /**
+   * Determines if the snapshot is anti-symmetric or not.
+   *
+   * @return True if no two distinct verticies have edges both ways, false otherwise.
+   */
+  public boolean isAntiSymmetric() {
+    return symmetricPairCount == 0;
+  }
+
+  /**
+   * Determines if the snapshot is an equivalence relation or not.
+   *
+   * @return True if the snapshot is an equivalence relation, false otherwise.
+   */
+  public boolean isEquivalence() {
+    return getClassRoots() != NOT_EQUIVALENCE;
+  }
+
+  /**
+   * Determines if the snapshot is transitive or not. Every edge A->B checks each edge leaving B, so
+   * this takes time in proportion to the sum of the squared out degrees.
+   *
+   * @return True if for every A->B and B->C there is also A->C, false otherwise.
+   */
+  public boolean isTransitive() {
+
+    // The destinations of the vertex being checked are marked with its index plus one
+    int[] marks = new int[verticies.size()];
+
+    CancellationToken token = CancellationToken.current();
+    token.begin("checking transitivity", edgeCount, "edges");
+
+    for (int vertex = 0; vertex < verticies.size(); vertex++) {
+      Block block = outBlocks[vertex >>> BLOCK_BITS];
+      int slot = vertex & SLOT_MASK;
+      GraphCounters.scanEdges(block.offsets[slot + 1] - block.offsets[slot]);
+      for (int i = block.offsets[slot]; i < block.offsets[slot + 1]; i++) {
+        marks[block.neighbours[i]] = vertex + 1;
+      }
+
+      for (int i = block.offsets[slot]; i < block.offsets[slot + 1]; i++) {
+        token.checkpoint();
+        int adjacent = block.neighbours[i];
+        Block adjacentBlock = outBlocks[adjacent >>> BLOCK_BITS];
+        int adjacentSlot = adjacent & SLOT_MASK;
+        GraphCounters.scanEdges(
+            adjacentBlock.offsets[adjacentSlot + 1] - adjacentBlock.offsets[adjacentSlot]);
+        for (int j = adjacentBlock.offsets[adjacentSlot];
+            j < adjacentBlock.offsets[adjacentSlot + 1];
+            j++) {
+          if (marks[adjacentBlock.neighbours[j]] != vertex + 1) {
+            return false;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the equivalence class of a vertex, which in an equivalence relation is every vertex it has
+   * an edge to.
+   *
+   * @param vertex The vertex to find the class of.
+   * @return The class, or an empty set if the snapshot is not an equivalence relation or the vertex
+   *     is not in it.
+   */
+  public Set<T> getEquivalenceClass(T vertex) {
+    if (!isEquivalence()) {
+      return new HashSet<T>();
+    }
+    return new HashSet<T>(getSuccessors(vertex));
+  }
+
+  /**
+   * Gets the roots, which are the verticies with no incoming edges, and the smallest vertex of each
+   * equivalence class when the snapshot is an equivalence relation.
+   *
+   * @return The set of roots.
+   */
+  public Set<T> getRoots() {
+    Set<T> rootSet = new HashSet<T>();
+    for (int root : searchRoots()) {
+      rootSet.add(verticies.get(root));
+    }
+    return rootSet;
+  }
+
+  /**
+   * Performs a breadth-first search from each root in turn, smallest first, visiting the
+   * destinations of each vertex in vertex order, as {@link Graph#iterativeBreadthFirstSearch()}
+   * does.
+   *
+   * @return The list of verticies visited in order.
+   */
+  public List<T> iterativeBreadthFirstSearch() {
+
+    boolean[] seen = new boolean[verticies.size()];
+    int[] queue = new int[verticies.size()];
+    int head = 0;
+    int tail = 0;
+    List<T> verticiesVisited = new ArrayList<T>();
+    int[] roots = searchRoots();
+
+    CancellationToken token = CancellationToken.current();
+    token.begin("searching", verticies.size(), "verticies");
+
+    for (int root : roots) {
+      if (seen[root]) {
+        continue;
+      }
+      seen[root] = true;
+      queue[tail++] = root;
+
+      while (head < tail) {
+        token.checkpoint();
+        int vertex = queue[head++];
+        verticiesVisited.add(verticies.get(vertex));
+
+        Block block = outBlocks[vertex >>> BLOCK_BITS];
+        int slot = vertex & SLOT_MASK;
+        GraphCounters.scanEdges(block.offsets[slot + 1] - block.offsets[slot]);
+        for (int i = block.offsets[slot]; i < block.offsets[slot + 1]; i++) {
+          int destination = block.neighbours[i];
+          if (!seen[destination]) {
+            seen[destination] = true;
+            queue[tail++] = destination;
+          }
+        }
+      }
+    }
+
+    return verticiesVisited;
+  }
+
+  /**
+   * Performs a depth-first search from each root in turn, smallest first, visiting the destinations
+   * of each vertex in vertex order, as {@link Graph#iterativeDepthFirstSearch()} does.
+   *
+   * @return The list of verticies visited in order.
+   */
+  public List<T> iterativeDepthFirstSearch() {
+
+    // Each vertex is visited once and pushes each of its edges at most once
+    boolean[] visited = new boolean[verticies.size()];
+    int[] roots = searchRoots();
+    int[] stack = new int[roots.length + edgeCount];
+    int top = 0;
+    List<T> verticiesVisited = new ArrayList<T>();
+
+    for (int i = roots.length - 1; i >= 0; i--) {
+      stack[top++] = roots[i];
+    }
+
+    CancellationToken token = CancellationToken.current();
+    token.begin("searching", verticies.size(), "verticies");
+
+    while (top > 0) {
+      int vertex = stack[--top];
+      if (visited[vertex]) {
+        continue;
+      }
+      token.checkpoint();
+      visited[vertex] = true;
+      verticiesVisited.add(verticies.get(vertex));
+
+      // Push the destinations largest first, so the smallest is visited next
+      Block block = outBlocks[vertex >>> BLOCK_BITS];
+      int slot = vertex & SLOT_MASK;
+      GraphCounters.scanEdges(block.offsets[slot + 1] - block.offsets[slot]);
+      for (int i = block.offsets[slot + 1] - 1; i >= block.offsets[slot]; i--) {
+        int destination = block.neighbours[i];
+        if (!visited[destination]) {
+          stack[top++] = destination;
+        }
+      }
+    }
+
+    return verticiesVisited;
+  }
+
+  /**
+   * Performs a breadth-first search that takes one vertex from the queue per call, giving the same
+   * order as {@link #iterativeBreadthFirstSearch()}. The search recurses once per vertex, so it
+   * needs a large stack.
+   *
+   * @return The list of verticies visited in order.
+   */
+  public List<T> recursiveBreadthFirstSearch() {
+    List<T> verticiesVisited = new ArrayList<T>();
+    int[] roots = searchRoots();
+    CancellationToken token = CancellationToken.current();
+    token.begin("searching", verticies.size(), "verticies");
+
+    breadthFirstStep(
+        new int[verticies.size()],
+        0,
+        0,
+        roots,
+        0,
+        new boolean[verticies.size()],
+        verticiesVisited,
+        token);
+    return verticiesVisited;
+  }
+
+  /**
+   * Performs a depth-first search that calls itself for each destination not yet visited, giving
+   * the same order as {@link #iterativeDepthFirstSearch()}. The search recurses as deep as the
+   * longest path it follows, so it needs a large stack.
+   *
+   * @return The list of verticies visited in order.
+   */
+  public List<T> recursiveDepthFirstSearch() {
+    List<T> verticiesVisited = new ArrayList<T>();
+    boolean[] visited = new boolean[verticies.size()];
+    int[] roots = searchRoots();
+    CancellationToken token = CancellationToken.current();
+    token.begin("searching", verticies.size(), "verticies");
+
+    for (int root : roots) {
+      if (!visited[root]) {
+        depthFirstStep(root, visited, verticiesVisited, token);
+      }
+    }
+    return verticiesVisited;
+  }
+
+  /**
+   * Gives a snapshot with an edge added, adding either vertex if it is not already in the snapshot.
+   * This snapshot is left as it is.
+   *
+   * @param source The source vertex of the edge.
+   * @param destination The destination vertex of the edge.
+   * @return The new snapshot, or this snapshot if the edge is already in it.
+   */
+  public GraphSnapshot<T> withEdge(T source, T destination) {
+
+    if (containsEdge(source, destination)) {
+      return this;
+    }
+
+    // Copy the verticies only if there are new ones to number
+    List<T> newVerticies = verticies;
+    Map<T, Integer> newIndicies = indicies;
+    if (!indicies.containsKey(source) || !indicies.containsKey(destination)) {
+      List<T> addedVerticies = new ArrayList<T>(verticies);
+      Map<T, Integer> addedIndicies = new HashMap<T, Integer>(indicies);
+      for (T vertex : Arrays.asList(source, destination)) {
+        if (!addedIndicies.containsKey(vertex)) {
+          addedIndicies.put(vertex, addedVerticies.size());
+          addedVerticies.add(vertex);
+        }
+      }
+      newVerticies = Collections.unmodifiableList(addedVerticies);
+      newIndicies = Collections.unmodifiableMap(addedIndicies);
+    }
+
+    int from = newIndicies.get(source);
+    int to = newIndicies.get(destination);
+
+    // New verticies have no incoming edges, until the destination gets this one
+    int[] newSourceRoots = sourceRoots;
+    for (int vertex = verticies.size(); vertex < newVerticies.size(); vertex++) {
+      newSourceRoots = withRoot(newSourceRoots, vertex, newVerticies);
+    }
+    newSourceRoots = withoutRoot(newSourceRoots, to, newVerticies);
+
+    Block[] newOutBlocks = copyBlocks(outBlocks, newVerticies.size());
+    Block[] newInBlocks = copyBlocks(inBlocks, newVerticies.size());
+    insert(newOutBlocks, from, to, newVerticies);
+    insert(newInBlocks, to, from, newVerticies);
+
+    // Update the counts as the graph does, checking for the reverse edge before this one is added
+    int newSelfLoopCount = selfLoopCount;
+    int newSymmetricPairCount = symmetricPairCount;
+    int newAsymmetricEdgeCount = asymmetricEdgeCount;
+    if (from == to) {
+      newSelfLoopCount++;
+    } else if (containsEdge(destination, source)) {
+      newAsymmetricEdgeCount--;
+      newSymmetricPairCount++;
+    } else {
+      newAsymmetricEdgeCount++;
+    }
+
+    return new GraphSnapshot<T>(
+        newVerticies,
+        newIndicies,
+        newOutBlocks,
+        newInBlocks,
+        edgeCount + 1,
+        newSelfLoopCount,
+        newSymmetricPairCount,
+        newAsymmetricEdgeCount,
+        newSourceRoots);
+  }
+
+  /**
+   * Gives a snapshot with an edge removed. Both verticies stay in the snapshot, and this snapshot
+   * is left as it is.
+   *
+   * @param source The source vertex of the edge.
+   * @param destination The destination vertex of the edge.
+   * @return The new snapshot, or this snapshot if the edge is not in it.
+   */
+  public GraphSnapshot<T> withoutEdge(T source, T destination) {
+
+    if (!containsEdge(source, destination)) {
+      return this;
+    }
+
+    int from = indicies.get(source);
+    int to = indicies.get(destination);
+    Block[] newOutBlocks = outBlocks.clone();
+    Block[] newInBlocks = inBlocks.clone();
+    remove(newOutBlocks, from, to);
+    remove(newInBlocks, to, from);
+
+    // The destination is a root again if that was its last incoming edge
+    int[] newSourceRoots = sourceRoots;
+    Block block = newInBlocks[to >>> BLOCK_BITS];
+    int slot = to & SLOT_MASK;
+    if (block.offsets[slot] == block.offsets[slot + 1]) {
+      newSourceRoots = withRoot(newSourceRoots, to, verticies);
+    }
+
+    int newSelfLoopCount = selfLoopCount;
+    int newSymmetricPairCount = symmetricPairCount;
+    int newAsymmetricEdgeCount = asymmetricEdgeCount;
+    if (from == to) {
+      newSelfLoopCount--;
+    } else if (containsEdge(destination, source)) {
+      newAsymmetricEdgeCount++;
+      newSymmetricPairCount--;
+    } else {
+      newAsymmetricEdgeCount--;
+    }
+
+    return new GraphSnapshot<T>(
+        verticies,
+        indicies,
+        newOutBlocks,
+        newInBlocks,
+        edgeCount - 1,
+        newSelfLoopCount,
+        newSymmetricPairCount,
+        newAsymmetricEdgeCount,
+        newSourceRoots);
+  }
+
+  /**
+   * Estimates the memory kept by the snapshot, counting blocks it shares with other snapshots but
+   * not the verticies themselves.
+   *
+   * @return The estimated bytes.
+   */
+  long estimateBytes() {
+    int[] cachedClassRoots = classRoots;
+    long bytes =
+        MemoryFootprint.object(7, 4 * Integer.BYTES)
+            + MemoryFootprint.intArray(sourceRoots.length)
+            + (cachedClassRoots == null ? 0 : MemoryFootprint.intArray(cachedClassRoots.length))
+            + MemoryFootprint.arrayList(verticies.size())
+            + MemoryFootprint.hashMap(indicies.size())
+            + MemoryFootprint.boxedIndicies(indicies.size())
+            + 2 * MemoryFootprint.referenceArray(outBlocks.length);
+
+    for (Block[] blocks : Arrays.asList(outBlocks, inBlocks)) {
+      for (Block block : blocks) {
+        bytes +=
+            MemoryFootprint.object(2, 0)
+                + MemoryFootprint.intArray(block.offsets.length)
+                + MemoryFootprint.intArray(block.neighbours.length);
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Helper method to group edges into blocks by one endpoint using a counting sort, which keeps the
+   * other endpoints of each vertex in the order they are given.
+   *
+   * @param vertexCount The number of verticies.
+   * @param keys The endpoint to group each edge by.
+   * @param values The other endpoint of each edge.
+   * @return The blocks of the grouped edges.
+   */
+  private static Block[] group(int vertexCount, int[] keys, int[] values) {
+
+    int[] degrees = new int[vertexCount];
+    for (int key : keys) {
+      degrees[key]++;
+    }
+
+    Block[] blocks = new Block[blockCount(vertexCount)];
+    for (int b = 0; b < blocks.length; b++) {
+      int[] offsets = new int[BLOCK_SIZE + 1];
+      for (int slot = 0; slot < BLOCK_SIZE; slot++) {
+        int vertex = (b << BLOCK_BITS) + slot;
+        offsets[slot + 1] = offsets[slot] + (vertex < vertexCount ? degrees[vertex] : 0);
+      }
+      blocks[b] = new Block(offsets, new int[offsets[BLOCK_SIZE]]);
+    }
+
+    // Count down the degrees as each vertex is filled
+    for (int i = 0; i < keys.length; i++) {
+      Block block = blocks[keys[i] >>> BLOCK_BITS];
+      int slot = keys[i] & SLOT_MASK;
+      block.neighbours[block.offsets[slot + 1] - degrees[keys[i]]--] = values[i];
+    }
+
+    return blocks;
+  }
+
+  /**
+   * Helper method to count the blocks needed for a number of verticies.
+   *
+   * @param vertexCount The number of verticies.
+   * @return The number of blocks.
+   */
+  private static int blockCount(int vertexCount) {
+    return (vertexCount + BLOCK_SIZE - 1) >>> BLOCK_BITS;
+  }
+
+  /**
+   * Helper method to copy a table of blocks, adding empty blocks for any new verticies.
+   *
+   * @param blocks The table to copy.
+   * @param vertexCount The number of verticies the copy must cover.
+   * @return The copy of the table.
+   */
+  private static Block[] copyBlocks(Block[] blocks, int vertexCount) {
+    Block[] copy = Arrays.copyOf(blocks, blockCount(vertexCount));
+    Arrays.fill(copy, blocks.length, copy.length, EMPTY_BLOCK);
+    return copy;
+  }
+
+  /**
+   * Helper method to find a neighbour of a vertex with a binary search in vertex order.
+   *
+   * @param blocks The blocks to search.
+   * @param vertex The index of the vertex.
+   * @param neighbour The index of the neighbour.
+   * @return The position of the neighbour in its block, or -(insertion point) - 1 if it is not
+   *     there.
+   */
+  private int find(Block[] blocks, int vertex, int neighbour) {
+    return find(blocks, vertex, neighbour, verticies);
+  }
+
+  /**
+   * Helper method to find a neighbour of a vertex with a binary search in vertex order.
+   *
+   * @param blocks The blocks to search.
+   * @param vertex The index of the vertex.
+   * @param neighbour The index of the neighbour.
+   * @param numbered The verticies by index.
+   * @return The position of the neighbour in its block, or -(insertion point) - 1 if it is not
+   *     there.
+   */
+  private int find(Block[] blocks, int vertex, int neighbour, List<T> numbered) {
+
+    Block block = blocks[vertex >>> BLOCK_BITS];
+    int slot = vertex & SLOT_MASK;
+    T target = numbered.get(neighbour);
+    int low = block.offsets[slot];
+    int high = block.offsets[slot + 1] - 1;
+
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = order.compare(numbered.get(block.neighbours[middle]), target);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Helper method to replace the block of a vertex with a copy that has a new neighbour.
+   *
+   * @param blocks The table of blocks, which is changed.
+   * @param vertex The index of the vertex.
+   * @param neighbour The index of the new neighbour.
+   * @param numbered The verticies by index.
+   */
+  private void insert(Block[] blocks, int vertex, int neighbour, List<T> numbered) {
+    int position = -find(blocks, vertex, neighbour, numbered) - 1;
+    blocks[vertex >>> BLOCK_BITS] =
+        blocks[vertex >>> BLOCK_BITS].insert(vertex & SLOT_MASK, position, neighbour);
+  }
+
+  /**
+   * Helper method to replace the block of a vertex with a copy that no longer has a neighbour.
+   *
+   * @param blocks The table of blocks, which is changed.
+   * @param vertex The index of the vertex.
+   * @param neighbour The index of the neighbour.
+   */
+  private void remove(Block[] blocks, int vertex, int neighbour) {
+    int position = find(blocks, vertex, neighbour);
+    blocks[vertex >>> BLOCK_BITS] =
+        blocks[vertex >>> BLOCK_BITS].remove(vertex & SLOT_MASK, position);
+  }
+
+  /**
+   * Helper method to list the neighbours of a vertex.
+   *
+   * @param blocks The blocks to read.
+   * @param vertex The vertex.
+   * @return The neighbours in vertex order, or an empty list if the vertex is not in the snapshot.
+   */
+  private List<T> neighbours(Block[] blocks, T vertex) {
+
+    List<T> neighbours = new ArrayList<T>();
+    Integer index = indicies.get(vertex);
+    if (index == null) {
+      return neighbours;
+    }
+
+    Block block = blocks[index >>> BLOCK_BITS];
+    int slot = index & SLOT_MASK;
+    for (int i = block.offsets[slot]; i < block.offsets[slot + 1]; i++) {
+      neighbours.add(verticies.get(block.neighbours[i]));
+    }
+    return neighbours;
+  }
+
+  /**
+   * Helper method to take the next vertex from the queue of a breadth-first search, starting from
+   * the next root not yet seen when the queue is empty, and then call itself for the rest.
+   *
+   * @param queue The verticies waiting to be visited, from head up to tail.
+   * @param head Where the next vertex to visit is in the queue.
+   * @param tail Where the next vertex to wait goes in the queue.
+   * @param roots The roots to start from, in vertex order.
+   * @param nextRoot The position in the roots to start looking for an unseen root from.
+   * @param seen Whether each vertex has been visited or is waiting.
+   * @param verticiesVisited The list of verticies visited in order.
+   * @param token The token of the search, to check for cancellation.
+   */
+  private void breadthFirstStep(
+      int[] queue,
+      int head,
+      int tail,
+      int[] roots,
+      int nextRoot,
+      boolean[] seen,
+      List<T> verticiesVisited,
+      CancellationToken token) {
+
+    // Go to the next root if the queue is empty
+    while (head == tail && nextRoot < roots.length) {
+      int root = roots[nextRoot++];
+      if (!seen[root]) {
+        seen[root] = true;
+        queue[tail++] = root;
+      }
+    }
+
+    // Base case
+    if (head == tail) {
+      return;
+    }
+
+    token.checkpoint();
+    int vertex = queue[head++];
+    verticiesVisited.add(verticies.get(vertex));
+
+    Block block = outBlocks[vertex >>> BLOCK_BITS];
+    int slot = vertex & SLOT_MASK;
+    GraphCounters.scanEdges(block.offsets[slot + 1] - block.offsets[slot]);
+    for (int i = block.offsets[slot]; i < block.offsets[slot + 1]; i++) {
+      int destination = block.neighbours[i];
+      if (!seen[destination]) {
+        seen[destination] = true;
+        queue[tail++] = destination;
+      }
+    }
+
+    breadthFirstStep(queue, head, tail, roots, nextRoot, seen, verticiesVisited, token);
+  }
+
+  /**
+   * Helper method to visit a vertex, then call itself for each destination not yet visited.
+   *
+   * @param vertex The index of the vertex to visit.
+   * @param visited Whether each vertex has been visited.
+   * @param verticiesVisited The list of verticies visited in order.
+   * @param token The token of the search, to check for cancellation.
+   */
+  private void depthFirstStep(
+      int vertex, boolean[] visited, List<T> verticiesVisited, CancellationToken token) {
+    token.checkpoint();
+    visited[vertex] = true;
+    verticiesVisited.add(verticies.get(vertex));
+
+    Block block = outBlocks[vertex >>> BLOCK_BITS];
+    int slot = vertex & SLOT_MASK;
+    GraphCounters.scanEdges(block.offsets[slot + 1] - block.offsets[slot]);
+    for (int i = block.offsets[slot]; i < block.offsets[slot + 1]; i++) {
+      if (!visited[block.neighbours[i]]) {
+        depthFirstStep(block.neighbours[i], visited, verticiesVisited, token);
+      }
+    }
+  }
+
+  /**
+   * Helper method to get the roots the searches start from.
+   *
+   * @return The smallest vertex of each equivalence class if the snapshot is an equivalence
+   *     relation, or the verticies with no incoming edges otherwise, in vertex order.
+   */
+  private int[] searchRoots() {
+
+    // The counts rule out most snapshots, and a reflexive one has no verticies without edges in
+    if (!isReflexive() || !isSymmetric()) {
+      return sourceRoots;
+    }
+
+    int[] roots = getClassRoots();
+    return roots == NOT_EQUIVALENCE ? sourceRoots : roots;
+  }
+
+  /**
+   * Helper method to get the smallest vertex of each equivalence class, looking for the classes the
+   * first time they are asked for.
+   *
+   * @return The roots of the classes in vertex order, or {@link #NOT_EQUIVALENCE} if the snapshot
+   *     is not an equivalence relation.
+   */
+  private int[] getClassRoots() {
+
+    int[] roots = classRoots;
+    if (roots == null) {
+      int[] classes = findEquivalenceClasses();
+      roots = classes == null ? NOT_EQUIVALENCE : classRoots(classes);
+      classRoots = roots;
+    }
+    return roots;
+  }
+
+  /**
+   * Helper method to find the smallest vertex of each equivalence class.
+   *
+   * @param classes The first vertex found in the class of each vertex.
+   * @return The indicies of the smallest verticies, in vertex order.
+   */
+  private int[] classRoots(int[] classes) {
+
+    int[] smallest = new int[verticies.size()];
+    Arrays.fill(smallest, -1);
+    for (int vertex = 0; vertex < verticies.size(); vertex++) {
+      int first = classes[vertex];
+      if (smallest[first] < 0
+          || order.compare(verticies.get(vertex), verticies.get(smallest[first])) < 0) {
+        smallest[first] = vertex;
+      }
+    }
+
+    int[] sorted = new int[verticies.size()];
+    int count = 0;
+    for (int vertex : smallest) {
+      if (vertex >= 0) {
+        sorted[count++] = vertex;
+      }
+    }
+    return sortInOrder(Arrays.copyOf(sorted, count), verticies);
+  }
+
+  /**
+   * Helper method to sort the indicies of verticies in vertex order.
+   *
+   * @param unsorted The indicies to sort.
+   * @param numbered The verticies by index.
+   * @return The sorted indicies.
+   */
+  private int[] sortInOrder(int[] unsorted, List<T> numbered) {
+    Integer[] boxed = new Integer[unsorted.length];
+    for (int i = 0; i < unsorted.length; i++) {
+      boxed[i] = unsorted[i];
+    }
+    Arrays.sort(boxed, (first, second) -> order.compare(numbered.get(first), numbered.get(second)));
+
+    int[] sorted = new int[boxed.length];
+    for (int i = 0; i < boxed.length; i++) {
+      sorted[i] = boxed[i];
+    }
+    return sorted;
+  }
+
+  /**
+   * Helper method to find where a vertex is, or would go, in roots sorted in vertex order.
+   *
+   * @param sortedRoots The roots in vertex order.
+   * @param vertex The index of the vertex.
+   * @param numbered The verticies by index.
+   * @return The position of the vertex, or -(insertion point) - 1 if it is not a root.
+   */
+  private int findRoot(int[] sortedRoots, int vertex, List<T> numbered) {
+
+    T target = numbered.get(vertex);
+    int low = 0;
+    int high = sortedRoots.length - 1;
+
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = order.compare(numbered.get(sortedRoots[middle]), target);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Helper method to copy roots sorted in vertex order with a vertex added.
+   *
+   * @param sortedRoots The roots in vertex order, which are left as they are.
+   * @param vertex The index of the vertex to add.
+   * @param numbered The verticies by index.
+   * @return The new roots, or the same roots if the vertex is already one.
+   */
+  private int[] withRoot(int[] sortedRoots, int vertex, List<T> numbered) {
+
+    int position = findRoot(sortedRoots, vertex, numbered);
+    if (position >= 0) {
+      return sortedRoots;
+    }
+
+    position = -position - 1;
+    int[] newRoots = new int[sortedRoots.length + 1];
+    System.arraycopy(sortedRoots, 0, newRoots, 0, position);
+    newRoots[position] = vertex;
+    System.arraycopy(sortedRoots, position, newRoots, position + 1, sortedRoots.length - position);
+    return newRoots;
+  }
+
+  /**
+   * Helper method to copy roots sorted in vertex order with a vertex taken out.
+   *
+   * @param sortedRoots The roots in vertex order, which are left as they are.
+   * @param vertex The index of the vertex to take out.
+   * @param numbered The verticies by index.
+   * @return The new roots, or the same roots if the vertex is not one.
+   */
+  private int[] withoutRoot(int[] sortedRoots, int vertex, List<T> numbered) {
+
+    int position = findRoot(sortedRoots, vertex, numbered);
+    if (position < 0) {
+      return sortedRoots;
+    }
+
+    int[] newRoots = new int[sortedRoots.length - 1];
+    System.arraycopy(sortedRoots, 0, newRoots, 0, position);
+    System.arraycopy(
+        sortedRoots, position + 1, newRoots, position, sortedRoots.length - position - 1);
+    return newRoots;
+  }
+
+  /**
+   * Helper method to find the equivalence classes, if the snapshot is an equivalence relation. That
+   * is when it is reflexive and symmetric, and every connected set of verticies has an edge from
+   * every member to every member.
+   *
+   * @return The first vertex found in the class of each vertex, or null if the snapshot is not an
+   *     equivalence relation.
+   */
+  private int[] findEquivalenceClasses() {
+
+    if (!isReflexive() || !isSymmetric()) {
+      return null;
+    }
+
+    int[] classes = new int[verticies.size()];
+    Arrays.fill(classes, -1);
+    int[] queue = new int[verticies.size()];
+
+    CancellationToken token = CancellationToken.current();
+    token.begin("finding equivalence classes", verticies.size(), "verticies");
+
+    for (int first = 0; first < verticies.size(); first++) {
+      if (classes[first] >= 0) {
+        continue;
+      }
+
+      // Every edge of a symmetric graph stays inside its connected set
+      classes[first] = first;
+      queue[0] = first;
+      int head = 0;
+      int tail = 1;
+      long edgesInside = 0;
+      while (head < tail) {
+        token.checkpoint();
+        int vertex = queue[head++];
+        Block block = outBlocks[vertex >>> BLOCK_BITS];
+        int slot = vertex & SLOT_MASK;
+        GraphCounters.scanEdges(block.offsets[slot + 1] - block.offsets[slot]);
+        for (int i = block.offsets[slot]; i < block.offsets[slot + 1]; i++) {
+          edgesInside++;
+          int destination = block.neighbours[i];
+          if (classes[destination] < 0) {
+            classes[destination] = first;
+            queue[tail++] = destination;
+          }
+        }
+      }
+
+      if (edgesInside != (long) tail * tail) {
+        return null;
+      }
+    }
+
+    return classes;
+  }
+
+  /** The neighbours of a block of verticies, stored as ranges of one array and never changed. */
+  private static final class Block {
+
+    // Neighbours of slot s are at neighbours[offsets[s]] up to neighbours[offsets[s + 1]]
+    private final int[] offsets;
+    private final int[] neighbours;
+
+    /**
+     * Creates a block.
+     *
+     * @param offsets Where the neighbours of each slot start, with the end of the last slot.
+     * @param neighbours The neighbours of every slot.
+     */
+    private Block(int[] offsets, int[] neighbours) {
+      this.offsets = offsets;
+      this.neighbours = neighbours;
+    }
+
+    /**
+     * Copies the block with a neighbour added.
+     *
+     * @param slot The slot of the vertex in the block.
+     * @param position Where the neighbour goes in the block.
+     * @param neighbour The index of the neighbour.
+     * @return The new block.
+     */
+    private Block insert(int slot, int position, int neighbour) {
+      int[] newOffsets = offsets.clone();
+      for (int s = slot + 1; s <= BLOCK_SIZE; s++) {
+        newOffsets[s]++;
+      }
+
+      int[] newNeighbours = new int[neighbours.length + 1];
+      System.arraycopy(neighbours, 0, newNeighbours, 0, position);
+      newNeighbours[position] = neighbour;
+      System.arraycopy(
+          neighbours, position, newNeighbours, position + 1, neighbours.length - position);
+      return new Block(newOffsets, newNeighbours);
+    }
+
+    /**
+     * Copies the block with a neighbour removed.
+     *
+     * @param slot The slot of the vertex in the block.
+     * @param position Where the neighbour is in the block.
+     * @return The new block.
+     */
+    private Block remove(int slot, int position) {
+      int[] newOffsets = offsets.clone();
+      for (int s = slot + 1; s <= BLOCK_SIZE; s++) {
+        newOffsets[s]--;
+      }
+
+      int[] newNeighbours = new int[neighbours.length - 1];
+      System.arraycopy(neighbours, 0, newNeighbours, 0, position);
+      System.arraycopy(
+          neighbours, position + 1, newNeighbours, position, neighbours.length - position - 1);
+      return new Block(newOffsets, newNeighbours);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Degree statistics of a graph, gathered in one pass over the degrees of its verticies.
+ *
+ * <p>Degrees are counted into power of two buckets: bucket 0 holds degree 0, and bucket k holds
+ * degrees from 2^(k-1) up to 2^k - 1.
+ */
+public class GraphStatistics {
+
+  private static final int BUCKETS = Integer.SIZE + 1;
+
+  private int vertexCount;
+  private long edgeCount;
+  private long selfLoopCount;
+
+  private int maxOutDegree;
+  private int maxInDegree;
+  private long[] outDegreeBuckets;
+  private long[] inDegreeBuckets;
+
+  /**
+   * Starts gathering the statistics of a graph, with no verticies counted yet.
+   *
+   * @param edgeCount The number of edges.
+   * @param selfLoopCount The number of edges from a vertex to itself.
+   */
+  GraphStatistics(long edgeCount, long selfLoopCount) {
+    this.edgeCount = edgeCount;
+    this.selfLoopCount = selfLoopCount;
+    outDegreeBuckets = new long[BUCKETS];
+    inDegreeBuckets = new long[BUCKETS];
+  }
+
+  /**
+   * Counts the degrees of a vertex.
+   *
+   * @param outDegree The number of edges leaving the vertex.
+   * @param inDegree The number of edges entering the vertex.
+   */
+  void addVertex(int outDegree, int inDegree) {
+    vertexCount++;
+    maxOutDegree = Math.max(maxOutDegree, outDegree);
+    maxInDegree = Math.max(maxInDegree, inDegree);
+    outDegreeBuckets[bucket(outDegree)]++;
+    inDegreeBuckets[bucket(inDegree)]++;
+  }
+
+  /**
+   * Get the number of verticies.
+   *
+   * @return The number of verticies.
+   */
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  /**
+   * Get the number of edges.
+   *
+   * @return The number of edges.
+   */
+  public long getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Get the number of edges from a vertex to itself.
+   *
+   * @return The number of self loops.
+   */
+  public long getSelfLoopCount() {
+    return selfLoopCount;
+  }
+
+  /**
+   * Get the fraction of all possible edges, self loops included, that are in the graph.
+   *
+   * @return The density of the graph.
+   */
+  public double getDensity() {
+    return vertexCount == 0 ? 0 : edgeCount / ((double) vertexCount * vertexCount);
+  }
+
+  /**
+   * Get the mean number of edges per vertex, which is the same going out and coming in.
+   *
+   * @return The mean degree.
+   */
+  public double getMeanDegree() {
+    return vertexCount == 0 ? 0 : (double) edgeCount / vertexCount;
+  }
+
+  /**
+   * Get the largest number of edges leaving one vertex.
+   *
+   * @return The maximum out-degree.
+   */
+  public int getMaxOutDegree() {
+    return maxOutDegree;
+  }
+
+  /**
+   * Get the largest number of edges entering one vertex.
+   *
+   * @return The maximum in-degree.
+   */
+  public int getMaxInDegree() {
+    return maxInDegree;
+  }
+
+  /**
+   * Get the number of verticies in each out-degree bucket, up to the bucket of the maximum.
+   *
+   * @return The count of each bucket, labelled by its range of degrees.
+   */
+  public Map<String, Long> getOutDegreeHistogram() {
+    return histogram(outDegreeBuckets, maxOutDegree);
+  }
+
+  /**
+   * Get the number of verticies in each in-degree bucket, up to the bucket of the maximum.
+   *
+   * @return The count of each bucket, labelled by its range of degrees.
+   */
+  public Map<String, Long> getInDegreeHistogram() {
+    return histogram(inDegreeBuckets, maxInDegree);
+  }
+
+  /**
+   * Helper method to find the bucket of a degree.
+   *
+   * @param degree The degree of a vertex.
+   * @return The bucket the degree is counted in.
+   */
+  private static int bucket(int degree) {
+    return Integer.SIZE - Integer.numberOfLeadingZeros(degree);
+  }
+
+  /**
+   * Helper method to label the buckets of a histogram with their range of degrees.
+   *
+   * @param buckets The count of each bucket.
+   * @param maxDegree The largest degree counted.
+   * @return The count of each bucket, labelled by its range of degrees.
+   */
+  private static Map<String, Long> histogram(long[] buckets, int maxDegree) {
+    Map<String, Long> histogram = new LinkedHashMap<String, Long>();
+
+    for (int i = 0; i <= bucket(maxDegree); i++) {
+      long low = i == 0 ? 0 : 1L << (i - 1);
+      long high = i == 0 ? 0 : (1L << i) - 1;
+      histogram.put(low == high ? String.valueOf(low) : low + "-" + high, buckets[i]);
+    }
+
+    return histogram;
+  }
+}
@@ -10,11 +10,13 @@ public class LinkedList<T> {
 
   private Node<T> head;
   private Node<T> tail;
+  private int size; // Kept up to date so the size is known without walking the list
 
   /** Creates a new doubly Linked-list. */
   public LinkedList() {
     head = null;
     tail = null;
+    size = 0;
   }
 
   /**
@@ -25,6 +27,7 @@ public class LinkedList<T> {
    */
   private void add(T data, End end) {
     Node<T> node = new Node<T>(data);
+    size++;
 
     // If list is empty, set head and tail to node
     if (head == null) {
@@ -123,6 +126,7 @@ public class LinkedList<T> {
     }
 
     // Overwrite next and previous of node and new node
+    size++;
     newNode.setNext(node);
     newNode.setPrevious(node.getPrevious());
     node.getPrevious().setNext(newNode);
@@ -137,6 +141,7 @@ public class LinkedList<T> {
   public void remove(int index) {
 
     Node<T> node = locateNode(index);
+    size--;
 
     // Removing only node
     if (head == tail) {
@@ -166,6 +171,7 @@ public class LinkedList<T> {
 
   /** Remove the current head of linked-list and update new head. */
   public void removeHead() {
+    size--;
 
     // Removing only node
     if (head == tail) {
@@ -181,6 +187,8 @@ public class LinkedList<T> {
 
   /** Remove the current tail of linked-list and update new tail. */
   public void removeTail() {
+    size--;
+
     // Removing only node
     if (head == tail) {
       head = null;
@@ -213,27 +221,6 @@ public class LinkedList<T> {
    * @return The size of the list.
    */
   public int size() {
-
-    int size = 0;
-
-    // If list is empty, return 0
-    if (head == null) {
-      return size;
-    }
-
-    // If list has one node, return 1
-    if (head == tail) {
-      return 1;
-    }
-
-    Node<T> node = head;
-
-    // Count nodes
-    while (node != tail) {
-      node = node.getNext();
-      size++;
-    }
-    size++;
     return size;
   }
 
@@ -243,10 +230,7 @@ public class LinkedList<T> {
    * @return True if list is empty, false otherwise.
    */
   public boolean isEmpty() {
-    if (size() == 0) {
-      return true;
-    }
-    return false;
+    return size == 0;
   }
 
   /**
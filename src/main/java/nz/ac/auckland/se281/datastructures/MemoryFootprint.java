@@ -0,0 +1,242 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The estimated memory kept by each structure of a graph, next to what a compact representation of
+ * the same graph would need.
+ *
+ * <p>Sizes follow the object layout of a 64-bit JVM with compressed references: a 12 byte object
+ * header, 4 byte references, arrays with a 16 byte header, and every object rounded up to 8 bytes.
+ * Strings are counted at one byte per character, as the digits of a vertex always are. Objects
+ * shared between structures, such as the verticies and edges, are only counted once.
+ */
+public class MemoryFootprint {
+
+  private static final int HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 4;
+  private static final int ALIGNMENT = 8;
+
+  // Object sizes of the parts of the collections, with their fields
+  private static final long HASH_MAP =
+      align(HEADER + 4 * REFERENCE + 3 * Integer.BYTES + Float.BYTES);
+  private static final long HASH_MAP_ENTRY = align(HEADER + 3 * REFERENCE + Integer.BYTES);
+  private static final long LINKED_HASH_MAP = align(HASH_MAP + 2 * REFERENCE + 1);
+  private static final long LINKED_HASH_MAP_ENTRY = align(HASH_MAP_ENTRY + 2 * REFERENCE);
+  private static final long HASH_SET = align(HEADER + REFERENCE);
+  private static final long ARRAY_LIST = align(HEADER + 2 * Integer.BYTES + REFERENCE);
+  private static final long STRING = align(HEADER + REFERENCE + Integer.BYTES + 2);
+  private static final long BOXED = align(HEADER + Integer.BYTES);
+
+  // Boxed integers from -128 to 127 are shared, so only larger ones take memory of their own
+  private static final int SHARED_INTEGERS = 128;
+
+  private final Map<String, Long> parts = new LinkedHashMap<String, Long>();
+  private long compactBytes;
+
+  /** Creates a footprint with nothing counted yet. */
+  public MemoryFootprint() {}
+
+  /**
+   * Counts the memory of a structure, adding to it if it has already been counted.
+   *
+   * @param part The name of the structure.
+   * @param bytes The estimated bytes it keeps.
+   */
+  public void add(String part, long bytes) {
+    parts.merge(part, bytes, Long::sum);
+  }
+
+  /**
+   * Get the estimated memory of each structure, in the order they were counted.
+   *
+   * @return The bytes kept by each structure.
+   */
+  public Map<String, Long> getParts() {
+    return parts;
+  }
+
+  /**
+   * Get the estimated memory of every structure together.
+   *
+   * @return The total bytes kept.
+   */
+  public long getTotal() {
+    long total = 0;
+    for (long bytes : parts.values()) {
+      total += bytes;
+    }
+    return total;
+  }
+
+  /**
+   * Get the memory the graph would need as a sorted array of its verticies with the edges leaving
+   * and entering each vertex as ranges of shared arrays of numbers, like its compact view.
+   *
+   * @return The estimated bytes of the compact representation.
+   */
+  public long getCompactBytes() {
+    return compactBytes;
+  }
+
+  /**
+   * Sets the memory the graph would need in a compact representation.
+   *
+   * @param compactBytes The estimated bytes of the compact representation.
+   */
+  void setCompactBytes(long compactBytes) {
+    this.compactBytes = compactBytes;
+  }
+
+  /**
+   * Estimates the memory of an object from its fields.
+   *
+   * @param references The number of fields that refer to other objects.
+   * @param primitiveBytes The bytes of the other fields together.
+   * @return The estimated bytes.
+   */
+  public static long object(int references, int primitiveBytes) {
+    return align(HEADER + references * REFERENCE + primitiveBytes);
+  }
+
+  /**
+   * Estimates the memory of a hash set, not counting its elements.
+   *
+   * @param size The number of elements.
+   * @return The estimated bytes.
+   */
+  public static long hashSet(int size) {
+    return HASH_SET + hashMap(size);
+  }
+
+  /**
+   * Estimates the memory of a linked hash set, not counting its elements.
+   *
+   * @param size The number of elements.
+   * @return The estimated bytes.
+   */
+  public static long linkedHashSet(int size) {
+    return HASH_SET + LINKED_HASH_MAP + table(size) + size * LINKED_HASH_MAP_ENTRY;
+  }
+
+  /**
+   * Estimates the memory of a hash map, not counting its keys and values.
+   *
+   * @param size The number of entries.
+   * @return The estimated bytes.
+   */
+  public static long hashMap(int size) {
+    return HASH_MAP + table(size) + size * HASH_MAP_ENTRY;
+  }
+
+  /**
+   * Estimates the memory of an array list filled to its capacity, not counting its elements.
+   *
+   * @param size The number of elements.
+   * @return The estimated bytes.
+   */
+  public static long arrayList(int size) {
+    return ARRAY_LIST + referenceArray(size);
+  }
+
+  /**
+   * Estimates the memory of an array of references, not counting what they refer to.
+   *
+   * @param length The length of the array.
+   * @return The estimated bytes.
+   */
+  public static long referenceArray(int length) {
+    return align(ARRAY_HEADER + (long) length * REFERENCE);
+  }
+
+  /**
+   * Estimates the memory of an array of ints.
+   *
+   * @param length The length of the array.
+   * @return The estimated bytes.
+   */
+  public static long intArray(int length) {
+    return align(ARRAY_HEADER + (long) length * Integer.BYTES);
+  }
+
+  /**
+   * Estimates the memory of an array of longs.
+   *
+   * @param length The length of the array.
+   * @return The estimated bytes.
+   */
+  public static long longArray(int length) {
+    return align(ARRAY_HEADER + (long) length * Long.BYTES);
+  }
+
+  /**
+   * Estimates the memory of the boxed numbers from 0 up to a count, such as the values of a map
+   * from each vertex to its index.
+   *
+   * @param count The number of boxed numbers.
+   * @return The estimated bytes of the numbers that are not shared.
+   */
+  public static long boxedIndicies(int count) {
+    return Math.max(0, count - SHARED_INTEGERS) * BOXED;
+  }
+
+  /**
+   * Estimates the memory of a boxed number.
+   *
+   * @param value The number.
+   * @return The estimated bytes, or 0 if the boxed number is shared.
+   */
+  public static long boxed(int value) {
+    return value >= -SHARED_INTEGERS && value < SHARED_INTEGERS ? 0 : BOXED;
+  }
+
+  /**
+   * Estimates the memory of a collection of verticies themselves.
+   *
+   * @param verticies The verticies.
+   * @return The estimated bytes.
+   */
+  public static long verticies(Collection<?> verticies) {
+    long bytes = 0;
+    for (Object vertex : verticies) {
+      if (vertex instanceof String) {
+        bytes += STRING + align(ARRAY_HEADER + ((String) vertex).length());
+      } else {
+        bytes += BOXED;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Helper method to estimate the table of buckets of a hash map, which doubles whenever it is more
+   * than three quarters full.
+   *
+   * @param size The number of entries.
+   * @return The estimated bytes of the table.
+   */
+  private static long table(int size) {
+    if (size == 0) {
+      return 0;
+    }
+
+    long capacity = 16;
+    while (size > capacity * 3 / 4) {
+      capacity *= 2;
+    }
+    return referenceArray((int) Math.min(capacity, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Helper method to round the size of an object up to the alignment of the heap.
+   *
+   * @param bytes The size of the fields and header.
+   * @return The size the object takes on the heap.
+   */
+  private static long align(long bytes) {
+    return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+  }
+}
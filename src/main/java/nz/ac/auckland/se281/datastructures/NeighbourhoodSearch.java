@@ -0,0 +1,150 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Breadth-first searches that stop a given number of hops away from their start vertex.
+ *
+ * <p>Visited verticies are marked by writing the number of the current search into an array, so a
+ * vertex counts as visited only if its mark matches the current search. Starting a new search just
+ * moves on to the next number, and the array is only cleared when the numbers wrap around. The
+ * queue is also kept between searches, so a search only touches the verticies it reaches.
+ *
+ * @param <T> The type of each vertex.
+ */
+public class NeighbourhoodSearch<T> {
+
+  /** The edges a search is allowed to follow. */
+  public enum Direction {
+    FORWARDS,
+    BACKWARDS,
+    BOTH
+  }
+
+  private CompactGraph<T> graph;
+
+  private int[] marks;
+  private int search;
+  private int[] queue;
+
+  /**
+   * Creates the searcher for a graph.
+   *
+   * @param graph The compact view of the graph.
+   */
+  NeighbourhoodSearch(CompactGraph<T> graph) {
+    this.graph = graph;
+    marks = new int[graph.size()];
+    queue = new int[graph.size()];
+  }
+
+  /**
+   * Finds the verticies within a number of hops of a vertex, grouped by their distance from it.
+   *
+   * @param start The vertex to search from.
+   * @param hops The most edges to follow from the start vertex.
+   * @param direction The edges to follow.
+   * @return The verticies at each distance in vertex order, starting with the start vertex at
+   *     distance 0, or an empty list if the start vertex is not in the graph.
+   */
+  public synchronized List<List<T>> search(T start, int hops, Direction direction) {
+    List<List<T>> layers = new ArrayList<List<T>>();
+    int index = graph.indexOf(start);
+
+    if (index == -1) {
+      return layers;
+    }
+
+    // Only clear the marks when the search numbers run out
+    search++;
+    if (search == Integer.MAX_VALUE) {
+      Arrays.fill(marks, 0);
+      search = 1;
+    }
+
+    marks[index] = search;
+    queue[0] = index;
+    int layerStart = 0;
+    int layerEnd = 1;
+
+    CancellationToken token = CancellationToken.current();
+    token.begin("searching the neighbourhood", graph.size(), "verticies");
+
+    for (int hop = 0; layerStart < layerEnd; hop++) {
+      layers.add(toVerticies(layerStart, layerEnd));
+
+      // Stop expanding once the last allowed layer has been reached
+      if (hop == hops) {
+        break;
+      }
+
+      int filled = layerEnd;
+      for (int i = layerStart; i < layerEnd; i++) {
+        token.checkpoint();
+        if (direction != Direction.BACKWARDS) {
+          filled = visit(queue[i], graph.getOutOffsets(), graph.getOutTargets(), filled);
+        }
+        if (direction != Direction.FORWARDS) {
+          filled = visit(queue[i], graph.getInOffsets(), graph.getInSources(), filled);
+        }
+      }
+
+      layerStart = layerEnd;
+      layerEnd = filled;
+    }
+
+    return layers;
+  }
+
+  /**
+   * Estimates the memory kept by the arrays of the search, without the compact view it shares with
+   * the graph.
+   *
+   * @return The estimated bytes.
+   */
+  long estimateBytes() {
+    return MemoryFootprint.object(3, Integer.BYTES)
+        + MemoryFootprint.intArray(marks.length)
+        + MemoryFootprint.intArray(queue.length);
+  }
+
+  /**
+   * Helper method to add the unvisited neighbours of a vertex to the end of the queue.
+   *
+   * @param vertex The vertex to expand.
+   * @param offsets Where the neighbours of each vertex start.
+   * @param neighbours The neighbours of every vertex.
+   * @param filled The length of the queue.
+   * @return The new length of the queue.
+   */
+  private int visit(int vertex, int[] offsets, int[] neighbours, int filled) {
+    GraphCounters.scanEdges(offsets[vertex + 1] - offsets[vertex]);
+    for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+      if (marks[neighbours[i]] != search) {
+        marks[neighbours[i]] = search;
+        queue[filled++] = neighbours[i];
+      }
+    }
+    return filled;
+  }
+
+  /**
+   * Helper method to turn a layer of the queue into verticies in vertex order.
+   *
+   * @param from The start of the layer in the queue.
+   * @param to One past the end of the layer in the queue.
+   * @return The verticies of the layer.
+   */
+  private List<T> toVerticies(int from, int to) {
+    int[] layer = Arrays.copyOfRange(queue, from, to);
+    Arrays.sort(layer);
+
+    List<T> verticies = new ArrayList<T>();
+    for (int vertex : layer) {
+      verticies.add(graph.getVertex(vertex));
+    }
+    return verticies;
+  }
+}
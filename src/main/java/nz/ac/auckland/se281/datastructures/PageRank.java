@@ -0,0 +1,238 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The PageRank of every vertex in a graph, found by power iteration.
+ *
+ * <p>Each iteration pulls rank along the incoming edges of every vertex, so each score is written
+ * by exactly one thread. Ranges of verticies are split across a fork-join pool, and the scores of
+ * the previous and next iteration are kept in two arrays that swap places. Rank held by verticies
+ * with no outgoing edges is spread evenly over the whole graph.
+ *
+ * @param <T> The type of each vertex.
+ */
+public class PageRank<T> {
+
+  // Ranges smaller than this are not split any further
+  private static final int SPLIT_SIZE = 1024;
+
+  private CompactGraph<T> graph;
+  private double damping;
+
+  private double[] scores;
+  private double[] nextScores;
+  private double[] contributions;
+
+  private List<Long> iterationTimes;
+  private List<Double> iterationChanges;
+  private boolean converged;
+
+  /**
+   * Runs PageRank on a graph.
+   *
+   * @param graph The compact view of the graph.
+   * @param damping The chance of following an edge rather than jumping to a random vertex.
+   * @param tolerance The total change in scores below which the scores have converged.
+   * @param maxIterations The most iterations to run before giving up on converging.
+   */
+  PageRank(CompactGraph<T> graph, double damping, double tolerance, int maxIterations) {
+    this.graph = graph;
+    this.damping = damping;
+
+    int size = graph.size();
+    scores = new double[size];
+    nextScores = new double[size];
+    contributions = new double[size];
+    Arrays.fill(scores, 1.0 / size);
+
+    iterationTimes = new ArrayList<Long>();
+    iterationChanges = new ArrayList<Double>();
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    while (!converged && iterationTimes.size() < maxIterations) {
+      long start = System.nanoTime();
+
+      // Share out the current scores, then pull them along the incoming edges
+      double danglingScore = pool.invoke(new ContributionTask(0, size));
+      double base = (1 - damping + damping * danglingScore) / size;
+      double change = pool.invoke(new PullTask(0, size, base));
+
+      double[] swap = scores;
+      scores = nextScores;
+      nextScores = swap;
+
+      iterationTimes.add(System.nanoTime() - start);
+      iterationChanges.add(change);
+      converged = change < tolerance;
+    }
+  }
+
+  /**
+   * Get the score of a vertex.
+   *
+   * @param vertex The vertex to get the score of.
+   * @return The score of the vertex, or 0 if it is not in the graph.
+   */
+  public double getScore(T vertex) {
+    int index = graph.indexOf(vertex);
+    return index == -1 ? 0 : scores[index];
+  }
+
+  /**
+   * Get the highest ranked verticies, with ties broken in search order.
+   *
+   * @param count The number of verticies to get.
+   * @return Up to count verticies, highest score first.
+   */
+  public List<T> getTopVerticies(int count) {
+    List<Integer> indicies = new ArrayList<Integer>();
+    for (int i = 0; i < scores.length; i++) {
+      indicies.add(i);
+    }
+
+    indicies.sort(
+        Comparator.comparingDouble((Integer i) -> scores[i]).reversed().thenComparing(i -> i));
+
+    List<T> top = new ArrayList<T>();
+    for (int i = 0; i < Math.min(count, indicies.size()); i++) {
+      top.add(graph.getVertex(indicies.get(i)));
+    }
+    return top;
+  }
+
+  /**
+   * Get how long each iteration took.
+   *
+   * @return The time of each iteration in nanoseconds.
+   */
+  public List<Long> getIterationTimes() {
+    return iterationTimes;
+  }
+
+  /**
+   * Get the total change in scores made by each iteration.
+   *
+   * @return The change made by each iteration.
+   */
+  public List<Double> getIterationChanges() {
+    return iterationChanges;
+  }
+
+  /**
+   * Determines if the scores converged before the iteration limit was reached.
+   *
+   * @return True if the scores converged, false otherwise.
+   */
+  public boolean isConverged() {
+    return converged;
+  }
+
+  /** Divides the score of each vertex between its outgoing edges. */
+  private class ContributionTask extends RecursiveTask<Double> {
+
+    private static final long serialVersionUID = 1L;
+
+    private int from;
+    private int to;
+
+    /**
+     * Creates a task for a range of verticies.
+     *
+     * @param from The first vertex of the range.
+     * @param to One past the last vertex of the range.
+     */
+    private ContributionTask(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    /**
+     * Works out the contributions of the range.
+     *
+     * @return The total score of verticies in the range with no outgoing edges.
+     */
+    @Override
+    protected Double compute() {
+
+      if (to - from > SPLIT_SIZE) {
+        int middle = (from + to) >>> 1;
+        ContributionTask left = new ContributionTask(from, middle);
+        left.fork();
+        double right = new ContributionTask(middle, to).compute();
+        return left.join() + right;
+      }
+
+      int[] offsets = graph.getOutOffsets();
+      double danglingScore = 0;
+      for (int vertex = from; vertex < to; vertex++) {
+        int outDegree = offsets[vertex + 1] - offsets[vertex];
+        if (outDegree == 0) {
+          danglingScore += scores[vertex];
+          contributions[vertex] = 0;
+        } else {
+          contributions[vertex] = scores[vertex] / outDegree;
+        }
+      }
+      return danglingScore;
+    }
+  }
+
+  /** Sums the contributions coming into each vertex to give its next score. */
+  private class PullTask extends RecursiveTask<Double> {
+
+    private static final long serialVersionUID = 1L;
+
+    private int from;
+    private int to;
+    private double base;
+
+    /**
+     * Creates a task for a range of verticies.
+     *
+     * @param from The first vertex of the range.
+     * @param to One past the last vertex of the range.
+     * @param base The score every vertex gets from random jumps.
+     */
+    private PullTask(int from, int to, double base) {
+      this.from = from;
+      this.to = to;
+      this.base = base;
+    }
+
+    /**
+     * Works out the next scores of the range.
+     *
+     * @return The total change in score of the range.
+     */
+    @Override
+    protected Double compute() {
+
+      if (to - from > SPLIT_SIZE) {
+        int middle = (from + to) >>> 1;
+        PullTask left = new PullTask(from, middle, base);
+        left.fork();
+        double right = new PullTask(middle, to, base).compute();
+        return left.join() + right;
+      }
+
+      int[] offsets = graph.getInOffsets();
+      int[] sources = graph.getInSources();
+      double change = 0;
+      for (int vertex = from; vertex < to; vertex++) {
+        double sum = 0;
+        for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+          sum += contributions[sources[i]];
+        }
+        nextScores[vertex] = base + damping * sum;
+        change += Math.abs(nextScores[vertex] - scores[vertex]);
+      }
+      return change;
+    }
+  }
+}
@@ -0,0 +1,323 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The transitive reduction of a graph with no cycles other than self loops, which for a partial
+ * order is its Hasse diagram: the edges from each vertex to the verticies that directly cover it.
+ *
+ * <p>Verticies are numbered by their position in a topological order, and handled from last to
+ * first. The verticies reachable from each vertex are kept as a bitset over these positions. The
+ * successors of a vertex are visited in topological order, so a successor that is reachable through
+ * an earlier successor is already in the bitset when it is reached, and its edge is redundant. A
+ * bitset is dropped as soon as every predecessor of its vertex has been handled, so only the
+ * frontier of the order is held in memory at once.
+ *
+ * <p>The topological order comes from a depth-first search, which keeps the verticies reachable
+ * from each vertex close together in the order. Each bitset only stores the range of words between
+ * its lowest and highest set bits, so its size follows the spread of what is reachable rather than
+ * the size of the whole graph.
+ *
+ * @param <T> The type of each vertex.
+ */
+public class PartialOrder<T> {
+
+  private CompactGraph<T> graph;
+
+  private boolean acyclic;
+  private boolean transitive;
+  private int[] coverOffsets;
+  private int[] coverTargets;
+
+  /**
+   * Finds the transitive reduction of a graph.
+   *
+   * @param graph The compact view of the graph.
+   */
+  PartialOrder(CompactGraph<T> graph) {
+    this.graph = graph;
+
+    int size = graph.size();
+    int[] offsets = graph.getOutOffsets();
+    int[] targets = graph.getOutTargets();
+
+    int[] order = topologicalOrder();
+    acyclic = order.length == size;
+    transitive = acyclic;
+    coverOffsets = new int[size + 1];
+    coverTargets = new int[0];
+
+    if (!acyclic) {
+      return;
+    }
+
+    int[] positions = new int[size];
+    for (int i = 0; i < size; i++) {
+      positions[order[i]] = i;
+    }
+
+    // Predecessors left to handle for each vertex, once self loops are ignored
+    int[] waiting = new int[size];
+    for (int vertex = 0; vertex < size; vertex++) {
+      for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+        if (targets[i] != vertex) {
+          waiting[targets[i]]++;
+        }
+      }
+    }
+
+    ReachableSet[] reachable = new ReachableSet[size];
+    int[] covers = new int[targets.length];
+    int[] coverStarts = new int[size];
+    int coverCount = 0;
+    int[] successors = new int[size];
+    CancellationToken token = CancellationToken.current();
+    token.begin("reducing transitive edges", size, "verticies");
+
+    for (int i = size - 1; i >= 0; i--) {
+      token.checkpoint();
+      int vertex = order[i];
+      coverStarts[vertex] = coverCount;
+
+      // Visit successors in topological order, skipping the self loop
+      GraphCounters.scanEdges(offsets[vertex + 1] - offsets[vertex]);
+      int successorCount = 0;
+      for (int j = offsets[vertex]; j < offsets[vertex + 1]; j++) {
+        if (targets[j] != vertex) {
+          successors[successorCount++] = positions[targets[j]];
+        }
+      }
+      Arrays.sort(successors, 0, successorCount);
+
+      ReachableSet reach = new ReachableSet();
+      for (int j = 0; j < successorCount; j++) {
+        int position = successors[j];
+        int successor = order[position];
+
+        // An edge covers only if the successor cannot be reached another way
+        if (!reach.get(position)) {
+          covers[coverCount++] = successor;
+          reach.set(position);
+          reach.or(reachable[successor]);
+        }
+
+        // Release the successor once all of its predecessors are done with it
+        if (--waiting[successor] == 0) {
+          reachable[successor] = null;
+        }
+      }
+
+      // Transitive exactly when every reachable vertex is a direct successor
+      if (reach.cardinality() != successorCount) {
+        transitive = false;
+      }
+      reachable[vertex] = reach;
+    }
+
+    // Covers were found in topological order, so lay them out again in vertex order
+    coverTargets = new int[coverCount];
+    for (int vertex = 0; vertex < size; vertex++) {
+      int start = coverStarts[vertex];
+      int end = positions[vertex] == 0 ? coverCount : coverStarts[order[positions[vertex] - 1]];
+      coverOffsets[vertex + 1] = coverOffsets[vertex] + end - start;
+      System.arraycopy(covers, start, coverTargets, coverOffsets[vertex], end - start);
+      Arrays.sort(coverTargets, coverOffsets[vertex], coverOffsets[vertex + 1]);
+    }
+  }
+
+  /**
+   * Determines if the graph has no cycles other than self loops.
+   *
+   * @return True if the graph is acyclic apart from self loops, false otherwise.
+   */
+  public boolean isAcyclic() {
+    return acyclic;
+  }
+
+  /**
+   * Determines if the graph is transitive, found by comparing each vertex's successors with the
+   * verticies it can reach. Always false when the graph has a cycle.
+   *
+   * @return True if the acyclic graph is transitive, false otherwise.
+   */
+  public boolean isTransitive() {
+    return transitive;
+  }
+
+  /**
+   * Get the edges of the transitive reduction, ordered by source and then destination.
+   *
+   * @return The edges that are not implied by any other path, or an empty list if the graph has a
+   *     cycle.
+   */
+  public List<Edge<T>> getCoverEdges() {
+    List<Edge<T>> coverEdges = new ArrayList<Edge<T>>();
+
+    for (int vertex = 0; vertex < graph.size(); vertex++) {
+      for (int i = coverOffsets[vertex]; i < coverOffsets[vertex + 1]; i++) {
+        coverEdges.add(new Edge<T>(graph.getVertex(vertex), graph.getVertex(coverTargets[i])));
+      }
+    }
+
+    return coverEdges;
+  }
+
+  /**
+   * Estimates the memory kept by the arrays of the cover edges, without the compact view they share
+   * with the graph.
+   *
+   * @return The estimated bytes.
+   */
+  long estimateBytes() {
+    return MemoryFootprint.object(3, 2)
+        + MemoryFootprint.intArray(coverOffsets.length)
+        + MemoryFootprint.intArray(coverTargets.length);
+  }
+
+  /**
+   * Helper method to order the verticies by reversing the order a depth-first search finishes them,
+   * ignoring self loops.
+   *
+   * @return The verticies in topological order, or an empty array if the graph has a cycle.
+   */
+  private int[] topologicalOrder() {
+    int size = graph.size();
+    int[] offsets = graph.getOutOffsets();
+    int[] targets = graph.getOutTargets();
+
+    // 0 for unseen, 1 while on the search path, 2 once finished
+    int[] states = new int[size];
+    int[] cursors = Arrays.copyOf(offsets, size);
+    int[] path = new int[size];
+    int[] order = new int[size];
+    int next = size;
+    CancellationToken token = CancellationToken.current();
+    token.begin("ordering verticies", size, "verticies");
+
+    for (int root = 0; root < size; root++) {
+      if (states[root] != 0) {
+        continue;
+      }
+
+      int depth = 0;
+      path[depth++] = root;
+      states[root] = 1;
+
+      while (depth > 0) {
+        int vertex = path[depth - 1];
+
+        // Finish the vertex once all of its edges have been followed
+        if (cursors[vertex] == offsets[vertex + 1]) {
+          token.checkpoint();
+          depth--;
+          states[vertex] = 2;
+          order[--next] = vertex;
+          continue;
+        }
+
+        GraphCounters.scanEdges(1);
+        int target = targets[cursors[vertex]++];
+        if (target == vertex) {
+          continue;
+        }
+
+        // An edge back onto the search path closes a cycle
+        if (states[target] == 1) {
+          return new int[0];
+        }
+        if (states[target] == 0) {
+          states[target] = 1;
+          path[depth++] = target;
+        }
+      }
+    }
+
+    return order;
+  }
+
+  /** A bitset that only stores the words between its lowest and highest set bits. */
+  private static class ReachableSet {
+
+    private int firstWord;
+    private long[] words = new long[0];
+
+    /**
+     * Checks if a bit is set.
+     *
+     * @param bit The bit to check.
+     * @return True if the bit is set, false otherwise.
+     */
+    private boolean get(int bit) {
+      int word = (bit >>> 6) - firstWord;
+      return word >= 0 && word < words.length && (words[word] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Sets a bit.
+     *
+     * @param bit The bit to set.
+     */
+    private void set(int bit) {
+      cover(bit >>> 6, bit >>> 6);
+      words[(bit >>> 6) - firstWord] |= 1L << bit;
+    }
+
+    /**
+     * Sets every bit that is set in another bitset.
+     *
+     * @param other The other bitset.
+     */
+    private void or(ReachableSet other) {
+      if (other.words.length == 0) {
+        return;
+      }
+
+      cover(other.firstWord, other.firstWord + other.words.length - 1);
+      int shift = other.firstWord - firstWord;
+      for (int i = 0; i < other.words.length; i++) {
+        words[shift + i] |= other.words[i];
+      }
+    }
+
+    /**
+     * Counts the bits that are set.
+     *
+     * @return The number of set bits.
+     */
+    private int cardinality() {
+      int count = 0;
+      for (long word : words) {
+        count += Long.bitCount(word);
+      }
+      return count;
+    }
+
+    /**
+     * Helper method to widen the stored words to cover a range of words.
+     *
+     * @param from The first word to cover.
+     * @param to The last word to cover.
+     */
+    private void cover(int from, int to) {
+      if (words.length == 0) {
+        firstWord = from;
+        words = new long[to - from + 1];
+        return;
+      }
+
+      int lastWord = firstWord + words.length - 1;
+      if (from >= firstWord && to <= lastWord) {
+        return;
+      }
+
+      int newFirst = Math.min(firstWord, from);
+      int newLast = Math.max(lastWord, to);
+      long[] widened = new long[newLast - newFirst + 1];
+      System.arraycopy(words, 0, widened, firstWord - newFirst, words.length);
+      firstWord = newFirst;
+      words = widened;
+    }
+  }
+}
@@ -15,6 +15,7 @@ public class Queue<T> {
    * @param data The data to add.
    */
   public void enqueue(T data) {
+    GraphCounters.push();
     queue.append(data);
   }
 
@@ -24,6 +25,7 @@ public class Queue<T> {
    * @return The data of the node removed.
    */
   public T dequeue() {
+    GraphCounters.pop();
     T data = queue.getHead().getData();
     queue.removeHead();
     return data;
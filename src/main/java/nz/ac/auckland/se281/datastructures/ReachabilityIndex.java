@@ -0,0 +1,382 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * An index that answers whether one vertex can reach another without searching the graph.
+ *
+ * <p>Strongly connected components are collapsed into single nodes, giving an acyclic graph. A
+ * depth-first spanning forest of that graph numbers every component in post-order, so each
+ * component's tree is one interval of numbers. Each component then keeps the merged intervals of
+ * everything it can reach, and a query is a binary search for the destination's number.
+ *
+ * @param <T> The type of each vertex.
+ */
+public class ReachabilityIndex<T> {
+
+  private CompactGraph<T> graph;
+
+  private int[] components;
+  private int componentCount;
+  private int[] postOrder;
+  private int[] treeLow;
+
+  // Intervals of component c are pairs at intervals[intervalOffsets[c]] onwards
+  private int[] intervalOffsets;
+  private int[] intervals;
+
+  private long buildTime;
+
+  /**
+   * Creates a new reachability index.
+   *
+   * @param graph The compact view of the graph to index.
+   */
+  ReachabilityIndex(CompactGraph<T> graph) {
+    long start = System.nanoTime();
+
+    this.graph = graph;
+    findComponents();
+    numberSpanningForest();
+    mergeIntervals();
+
+    buildTime = System.nanoTime() - start;
+  }
+
+  /**
+   * Determines if there is a path from one vertex to another. Every vertex can reach itself.
+   *
+   * @param source The vertex to start from.
+   * @param destination The vertex to finish at.
+   * @return True if the destination can be reached from the source, false otherwise.
+   */
+  public boolean isReachable(T source, T destination) {
+    int from = graph.indexOf(source);
+    int to = graph.indexOf(destination);
+
+    if (from == -1 || to == -1) {
+      return false;
+    }
+
+    int fromComponent = components[from];
+    int target = postOrder[components[to]];
+
+    // Binary search for the last interval starting at or before the target
+    int low = intervalOffsets[fromComponent] / 2;
+    int high = intervalOffsets[fromComponent + 1] / 2 - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (intervals[2 * middle] <= target) {
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+
+    return high >= intervalOffsets[fromComponent] / 2 && intervals[2 * high + 1] >= target;
+  }
+
+  /**
+   * Get how long the index took to build.
+   *
+   * @return The build time in nanoseconds.
+   */
+  public long getBuildTime() {
+    return buildTime;
+  }
+
+  /**
+   * Get the number of strongly connected components in the graph.
+   *
+   * @return The number of components.
+   */
+  public int getComponentCount() {
+    return componentCount;
+  }
+
+  /**
+   * Get the number of intervals stored across all components.
+   *
+   * @return The number of intervals.
+   */
+  public int getIntervalCount() {
+    return intervals.length / 2;
+  }
+
+  /**
+   * Get the number of bytes used by the arrays of the index.
+   *
+   * @return The size of the index in bytes.
+   */
+  public long getSizeInBytes() {
+    long ints =
+        (long) components.length
+            + postOrder.length
+            + treeLow.length
+            + intervalOffsets.length
+            + intervals.length;
+    return ints * Integer.BYTES;
+  }
+
+  /**
+   * Estimates the memory kept by the arrays of the index, without the compact view it shares with
+   * the graph.
+   *
+   * @return The estimated bytes.
+   */
+  long estimateBytes() {
+    return MemoryFootprint.object(6, Integer.BYTES + Long.BYTES)
+        + MemoryFootprint.intArray(components.length)
+        + MemoryFootprint.intArray(postOrder.length)
+        + MemoryFootprint.intArray(treeLow.length)
+        + MemoryFootprint.intArray(intervalOffsets.length)
+        + MemoryFootprint.intArray(intervals.length);
+  }
+
+  /**
+   * Helper method to find the strongly connected components with an iterative version of Tarjan's
+   * algorithm. Components are numbered in the order they are completed, so every edge between two
+   * components goes from a higher number to a lower one.
+   */
+  private void findComponents() {
+    int size = graph.size();
+    int[] offsets = graph.getOutOffsets();
+    int[] targets = graph.getOutTargets();
+
+    components = new int[size];
+    int[] order = new int[size];
+    int[] low = new int[size];
+    Arrays.fill(order, -1);
+
+    // Verticies waiting to be assigned a component, and the simulated call stack
+    int[] pending = new int[size];
+    boolean[] isPending = new boolean[size];
+    int pendingSize = 0;
+    int[] calls = new int[size];
+    int[] nextEdge = new int[size];
+    int callSize = 0;
+    int counter = 0;
+
+    for (int root = 0; root < size; root++) {
+      if (order[root] != -1) {
+        continue;
+      }
+
+      order[root] = counter;
+      low[root] = counter;
+      counter++;
+      pending[pendingSize++] = root;
+      isPending[root] = true;
+      calls[callSize] = root;
+      nextEdge[callSize] = offsets[root];
+      callSize++;
+
+      while (callSize > 0) {
+        int vertex = calls[callSize - 1];
+
+        // Visit the next edge of the vertex on top of the call stack
+        if (nextEdge[callSize - 1] < offsets[vertex + 1]) {
+          int destination = targets[nextEdge[callSize - 1]++];
+
+          if (order[destination] == -1) {
+            order[destination] = counter;
+            low[destination] = counter;
+            counter++;
+            pending[pendingSize++] = destination;
+            isPending[destination] = true;
+            calls[callSize] = destination;
+            nextEdge[callSize] = offsets[destination];
+            callSize++;
+          } else if (isPending[destination]) {
+            low[vertex] = Math.min(low[vertex], order[destination]);
+          }
+          continue;
+        }
+
+        // All edges visited, so the vertex may close off a component
+        callSize--;
+        if (low[vertex] == order[vertex]) {
+          int member;
+          do {
+            member = pending[--pendingSize];
+            isPending[member] = false;
+            components[member] = componentCount;
+          } while (member != vertex);
+          componentCount++;
+        }
+
+        if (callSize > 0) {
+          int parent = calls[callSize - 1];
+          low[parent] = Math.min(low[parent], low[vertex]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Helper method to number the components in post-order of a depth-first spanning forest of the
+   * component graph, so that every tree covers one interval of numbers.
+   */
+  private void numberSpanningForest() {
+    int[] offsets = graph.getOutOffsets();
+    int[] targets = graph.getOutTargets();
+
+    // Group the verticies of each component together
+    int[] memberOffsets = new int[componentCount + 1];
+    for (int component : components) {
+      memberOffsets[component + 1]++;
+    }
+    for (int i = 1; i <= componentCount; i++) {
+      memberOffsets[i] += memberOffsets[i - 1];
+    }
+    int[] members = new int[components.length];
+    int[] next = Arrays.copyOf(memberOffsets, componentCount);
+    for (int vertex = 0; vertex < components.length; vertex++) {
+      members[next[components[vertex]]++] = vertex;
+    }
+
+    // The tree below a component is numbered between its discovery and its own number
+    postOrder = new int[componentCount];
+    treeLow = new int[componentCount];
+    boolean[] visited = new boolean[componentCount];
+    int[] calls = new int[componentCount];
+    int[] nextMember = new int[componentCount];
+    int[] nextEdge = new int[componentCount];
+    int counter = 0;
+
+    // Highest numbered components have no incoming edges from other components
+    for (int root = componentCount - 1; root >= 0; root--) {
+      if (visited[root]) {
+        continue;
+      }
+
+      int callSize = 0;
+      visited[root] = true;
+      treeLow[root] = counter;
+      calls[callSize] = root;
+      nextMember[callSize] = memberOffsets[root];
+      nextEdge[callSize] = -1;
+      callSize++;
+
+      while (callSize > 0) {
+        int top = callSize - 1;
+        int component = calls[top];
+
+        // Move on to the next member once its edges are used up
+        if (nextEdge[top] == -1 || nextEdge[top] == offsets[members[nextMember[top]] + 1]) {
+          if (nextEdge[top] != -1) {
+            nextMember[top]++;
+          }
+          if (nextMember[top] == memberOffsets[component + 1]) {
+            postOrder[component] = counter++;
+            callSize--;
+            continue;
+          }
+          nextEdge[top] = offsets[members[nextMember[top]]];
+          continue;
+        }
+
+        int destination = components[targets[nextEdge[top]++]];
+        if (!visited[destination]) {
+          visited[destination] = true;
+          treeLow[destination] = counter;
+          calls[callSize] = destination;
+          nextMember[callSize] = memberOffsets[destination];
+          nextEdge[callSize] = -1;
+          callSize++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Helper method to give every component the merged intervals of all components it can reach.
+   * Components are visited lowest number first, so everything they reach is already done.
+   */
+  private void mergeIntervals() {
+    int[] offsets = graph.getOutOffsets();
+    int[] targets = graph.getOutTargets();
+
+    // Successor components of each component, gathered from the edges of its members
+    int[][] successors = new int[componentCount][];
+    int[] successorCounts = new int[componentCount];
+    for (int i = 0; i < componentCount; i++) {
+      successors[i] = new int[2];
+    }
+    for (int vertex = 0; vertex < components.length; vertex++) {
+      int component = components[vertex];
+      for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+        int destination = components[targets[i]];
+        if (destination == component) {
+          continue;
+        }
+        if (successorCounts[component] == successors[component].length) {
+          successors[component] =
+              Arrays.copyOf(successors[component], 2 * successorCounts[component]);
+        }
+        successors[component][successorCounts[component]++] = destination;
+      }
+    }
+
+    int[][] reached = new int[componentCount][];
+    int total = 0;
+    CancellationToken token = CancellationToken.current();
+    token.begin("merging reachable intervals", componentCount, "components");
+
+    for (int component = 0; component < componentCount; component++) {
+      token.checkpoint();
+
+      // Collect the tree interval of the component and every interval of its successors
+      int count = 2;
+      for (int i = 0; i < successorCounts[component]; i++) {
+        count += reached[successors[component][i]].length;
+      }
+      long[] collected = new long[count / 2];
+      collected[0] = pack(treeLow[component], postOrder[component]);
+      int n = 1;
+      for (int i = 0; i < successorCounts[component]; i++) {
+        int[] successorIntervals = reached[successors[component][i]];
+        for (int j = 0; j < successorIntervals.length; j += 2) {
+          collected[n++] = pack(successorIntervals[j], successorIntervals[j + 1]);
+        }
+      }
+      Arrays.sort(collected);
+
+      // Merge intervals that overlap or touch
+      int[] merged = new int[2 * collected.length];
+      int m = 0;
+      for (long interval : collected) {
+        int start = (int) (interval >>> 32);
+        int end = (int) interval;
+        if (m > 0 && start <= merged[m - 1] + 1) {
+          merged[m - 1] = Math.max(merged[m - 1], end);
+        } else {
+          merged[m++] = start;
+          merged[m++] = end;
+        }
+      }
+      reached[component] = Arrays.copyOf(merged, m);
+      total += m;
+    }
+
+    // Flatten into one array
+    intervalOffsets = new int[componentCount + 1];
+    intervals = new int[total];
+    for (int component = 0; component < componentCount; component++) {
+      int start = intervalOffsets[component];
+      System.arraycopy(reached[component], 0, intervals, start, reached[component].length);
+      intervalOffsets[component + 1] = start + reached[component].length;
+    }
+  }
+
+  /**
+   * Helper method to pack an interval into a long that sorts by its start.
+   *
+   * @param start The first number in the interval.
+   * @param end The last number in the interval.
+   * @return The packed interval.
+   */
+  private static long pack(int start, int end) {
+    return ((long) start << 32) | (end & 0xFFFFFFFFL);
+  }
+}
@@ -15,6 +15,7 @@ public class Stack<T> {
    * @param data The data to add.
    */
   public void push(T data) {
+    GraphCounters.push();
     stack.append(data);
   }
 
@@ -24,6 +25,7 @@ public class Stack<T> {
    * @return The data of the node removed.
    */
   public T pop() {
+    GraphCounters.pop();
     T data = stack.getTail().getData();
     stack.removeTail();
     return data;
@@ -0,0 +1,54 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.List;
+
+/**
+ * The result of sorting a graph topologically: the verticies in an order where every edge goes
+ * forwards, or a cycle that shows there is no such order.
+ *
+ * @param <T> The type of each vertex.
+ */
+public class TopologicalOrder<T> {
+
+  private List<T> order;
+  private List<T> cycle;
+
+  /**
+   * Creates the result of a topological sort.
+   *
+   * @param order The verticies in topological order, or an empty list if there is a cycle.
+   * @param cycle The verticies of a cycle, or an empty list if the graph is acyclic.
+   */
+  TopologicalOrder(List<T> order, List<T> cycle) {
+    this.order = order;
+    this.cycle = cycle;
+  }
+
+  /**
+   * Determines if the graph has no cycles, other than through self loops.
+   *
+   * @return True if the graph has a topological order, false otherwise.
+   */
+  public boolean isAcyclic() {
+    return cycle.isEmpty();
+  }
+
+  /**
+   * Get the verticies in topological order.
+   *
+   * @return The verticies in order, or an empty list if the graph has a cycle.
+   */
+  public List<T> getOrder() {
+    return order;
+  }
+
+  /**
+   * Get a cycle of the graph.
+   *
+   * @return The verticies of the cycle in order, starting and ending with the same vertex, or an
+   *     empty list if the graph is acyclic.
+   */
+  public List<T> getCycle() {
+    return cycle;
+  }
+}
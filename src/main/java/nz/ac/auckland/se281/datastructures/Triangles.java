@@ -0,0 +1,204 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * The triangles of a symmetric graph, and how clustered its verticies are. Each pair of opposite
+ * edges is treated as one undirected edge, and self loops are ignored.
+ *
+ * <p>Verticies are ranked by degree, and each edge is kept only at its lower ranked end. Every
+ * triangle is then found exactly once, at its lowest ranked vertex, by merging the sorted kept
+ * neighbours of two ends of an edge. Ranking by degree keeps these lists short even around the
+ * highest degree verticies. Verticies are shared across threads in parallel.
+ *
+ * @param <T> The type of each vertex.
+ */
+public class Triangles<T> {
+
+  private CompactGraph<T> graph;
+
+  private int[] degrees;
+  private long[] vertexTriangles;
+  private long triangleCount;
+
+  /**
+   * Counts the triangles of a symmetric graph.
+   *
+   * @param graph The compact view of the graph.
+   */
+  Triangles(CompactGraph<T> graph) {
+    this.graph = graph;
+
+    int size = graph.size();
+    int[] offsets = graph.getOutOffsets();
+    int[] targets = graph.getOutTargets();
+
+    // Degree of each vertex, not counting its self loop
+    degrees = new int[size];
+    for (int vertex = 0; vertex < size; vertex++) {
+      degrees[vertex] = offsets[vertex + 1] - offsets[vertex];
+      if (Arrays.binarySearch(targets, offsets[vertex], offsets[vertex + 1], vertex) >= 0) {
+        degrees[vertex]--;
+      }
+    }
+
+    // Keep each edge at its lower ranked end, in the same sorted order
+    int[] forwardOffsets = new int[size + 1];
+    int[] forward = new int[targets.length];
+    for (int vertex = 0; vertex < size; vertex++) {
+      forwardOffsets[vertex + 1] = forwardOffsets[vertex];
+      for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+        if (isRankedBelow(vertex, targets[i])) {
+          forward[forwardOffsets[vertex + 1]++] = targets[i];
+        }
+      }
+    }
+
+    // Merge the kept neighbours of both ends of each kept edge
+    AtomicLongArray counts = new AtomicLongArray(size);
+    IntStream.range(0, size)
+        .parallel()
+        .forEach(
+            vertex -> {
+              long found = 0;
+
+              for (int i = forwardOffsets[vertex]; i < forwardOffsets[vertex + 1]; i++) {
+                int neighbour = forward[i];
+                int a = forwardOffsets[vertex];
+                int b = forwardOffsets[neighbour];
+
+                while (a < forwardOffsets[vertex + 1] && b < forwardOffsets[neighbour + 1]) {
+                  if (forward[a] < forward[b]) {
+                    a++;
+                  } else if (forward[a] > forward[b]) {
+                    b++;
+                  } else {
+                    counts.incrementAndGet(neighbour);
+                    counts.incrementAndGet(forward[a]);
+                    found++;
+                    a++;
+                    b++;
+                  }
+                }
+              }
+
+              if (found > 0) {
+                counts.addAndGet(vertex, found);
+              }
+            });
+
+    vertexTriangles = new long[size];
+    long total = 0;
+    for (int vertex = 0; vertex < size; vertex++) {
+      vertexTriangles[vertex] = counts.get(vertex);
+      total += vertexTriangles[vertex];
+    }
+
+    // Each triangle was counted at all three of its verticies
+    triangleCount = total / 3;
+  }
+
+  /**
+   * Get the number of triangles in the graph.
+   *
+   * @return The number of triangles.
+   */
+  public long getTriangleCount() {
+    return triangleCount;
+  }
+
+  /**
+   * Get the number of triangles a vertex is part of.
+   *
+   * @param vertex The vertex to count the triangles of.
+   * @return The number of triangles, or 0 if the vertex is not in the graph.
+   */
+  public long getTriangleCount(T vertex) {
+    int index = graph.indexOf(vertex);
+    return index == -1 ? 0 : vertexTriangles[index];
+  }
+
+  /**
+   * Get the fraction of paths of two edges in the whole graph that are closed into a triangle.
+   *
+   * @return The global clustering coefficient.
+   */
+  public double getGlobalClusteringCoefficient() {
+    long paths = 0;
+    for (int degree : degrees) {
+      paths += pairs(degree);
+    }
+    return paths == 0 ? 0 : 3.0 * triangleCount / paths;
+  }
+
+  /**
+   * Get the fraction of pairs of neighbours of a vertex that are joined by an edge.
+   *
+   * @param vertex The vertex to get the coefficient of.
+   * @return The local clustering coefficient, or 0 if the vertex has fewer than two neighbours.
+   */
+  public double getLocalClusteringCoefficient(T vertex) {
+    int index = graph.indexOf(vertex);
+    return index == -1 ? 0 : localCoefficient(index);
+  }
+
+  /**
+   * Get the mean of the local clustering coefficients of all verticies.
+   *
+   * @return The average clustering coefficient.
+   */
+  public double getAverageClusteringCoefficient() {
+    double sum = 0;
+    for (int vertex = 0; vertex < degrees.length; vertex++) {
+      sum += localCoefficient(vertex);
+    }
+    return degrees.length == 0 ? 0 : sum / degrees.length;
+  }
+
+  /**
+   * Estimates the memory kept by the arrays of the counts, without the compact view they share with
+   * the graph.
+   *
+   * @return The estimated bytes.
+   */
+  long estimateBytes() {
+    return MemoryFootprint.object(3, Long.BYTES)
+        + MemoryFootprint.intArray(degrees.length)
+        + MemoryFootprint.longArray(vertexTriangles.length);
+  }
+
+  /**
+   * Helper method to compare verticies by degree, then by number.
+   *
+   * @param first One vertex.
+   * @param second The other vertex.
+   * @return True if the first vertex is ranked below the second, false otherwise.
+   */
+  private boolean isRankedBelow(int first, int second) {
+    return degrees[first] < degrees[second]
+        || (degrees[first] == degrees[second] && first < second);
+  }
+
+  /**
+   * Helper method to work out the local clustering coefficient of a vertex.
+   *
+   * @param vertex The number of the vertex.
+   * @return The local clustering coefficient.
+   */
+  private double localCoefficient(int vertex) {
+    long pairs = pairs(degrees[vertex]);
+    return pairs == 0 ? 0 : (double) vertexTriangles[vertex] / pairs;
+  }
+
+  /**
+   * Helper method to count the pairs of neighbours of a vertex.
+   *
+   * @param degree The number of neighbours.
+   * @return The number of pairs.
+   */
+  private static long pairs(int degree) {
+    return (long) degree * (degree - 1) / 2;
+  }
+}
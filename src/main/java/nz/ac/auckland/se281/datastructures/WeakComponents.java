@@ -0,0 +1,176 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * The weakly connected components of a graph, the pieces it falls into when edge directions are
+ * ignored.
+ *
+ * <p>Components are found with a lock-free union-find. Every vertex starts as its own root, and the
+ * edges of each vertex are joined in parallel by swinging the larger root onto the smaller one with
+ * a compare-and-set, retrying if another thread got there first. The root of every component ends
+ * up being its smallest vertex.
+ *
+ * @param <T> The type of each vertex.
+ */
+public class WeakComponents<T> {
+
+  private CompactGraph<T> graph;
+
+  private int[] components; // Component of each vertex, numbered by smallest vertex
+  private int[] sizes;
+
+  /**
+   * Finds the weakly connected components of a graph.
+   *
+   * @param graph The compact view of the graph.
+   */
+  WeakComponents(CompactGraph<T> graph) {
+    this.graph = graph;
+
+    int size = graph.size();
+    int[] offsets = graph.getOutOffsets();
+    int[] targets = graph.getOutTargets();
+
+    AtomicIntegerArray parents = new AtomicIntegerArray(size);
+    for (int i = 0; i < size; i++) {
+      parents.set(i, i);
+    }
+
+    // Join the ends of every edge, with each thread taking a range of source verticies
+    IntStream.range(0, size)
+        .parallel()
+        .forEach(
+            vertex -> {
+              for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                union(parents, vertex, targets[i]);
+              }
+            });
+
+    // Number the components in order of their smallest vertex
+    int[] roots = new int[size];
+    IntStream.range(0, size).parallel().forEach(vertex -> roots[vertex] = find(parents, vertex));
+
+    components = new int[size];
+    int count = 0;
+    for (int vertex = 0; vertex < size; vertex++) {
+      components[vertex] = roots[vertex] == vertex ? count++ : components[roots[vertex]];
+    }
+
+    sizes = new int[count];
+    for (int component : components) {
+      sizes[component]++;
+    }
+  }
+
+  /**
+   * Get the number of weakly connected components.
+   *
+   * @return The number of components.
+   */
+  public int getCount() {
+    return sizes.length;
+  }
+
+  /**
+   * Get how many components there are of each size.
+   *
+   * @return The number of components of each size, ordered by size.
+   */
+  public SortedMap<Integer, Integer> getSizeDistribution() {
+    SortedMap<Integer, Integer> distribution = new TreeMap<Integer, Integer>();
+
+    for (int size : sizes) {
+      distribution.merge(size, 1, Integer::sum);
+    }
+
+    return distribution;
+  }
+
+  /**
+   * Get the verticies in the same component as a vertex.
+   *
+   * @param vertex The vertex to find the component of.
+   * @return The verticies of the component in search order, or an empty list if the vertex is not
+   *     in the graph.
+   */
+  public List<T> getComponent(T vertex) {
+    List<T> component = new ArrayList<T>();
+    int index = graph.indexOf(vertex);
+
+    if (index == -1) {
+      return component;
+    }
+
+    for (int i = 0; i < components.length; i++) {
+      if (components[i] == components[index]) {
+        component.add(graph.getVertex(i));
+      }
+    }
+
+    return component;
+  }
+
+  /**
+   * Estimates the memory kept by the arrays of the components, without the compact view they share
+   * with the graph.
+   *
+   * @return The estimated bytes.
+   */
+  long estimateBytes() {
+    return MemoryFootprint.object(3, 0)
+        + MemoryFootprint.intArray(components.length)
+        + MemoryFootprint.intArray(sizes.length);
+  }
+
+  /**
+   * Helper method to find the root of a vertex, pointing verticies on the way at their grandparent.
+   * Another thread may change a parent at any time, but it only ever moves closer to the root.
+   *
+   * @param parents The parent of every vertex.
+   * @param vertex The vertex to find the root of.
+   * @return The current root of the vertex.
+   */
+  private static int find(AtomicIntegerArray parents, int vertex) {
+    int parent = parents.get(vertex);
+
+    while (parent != vertex) {
+      int grandparent = parents.get(parent);
+      parents.compareAndSet(vertex, parent, grandparent);
+      vertex = parent;
+      parent = grandparent;
+    }
+
+    return vertex;
+  }
+
+  /**
+   * Helper method to join the components of two verticies without locking.
+   *
+   * @param parents The parent of every vertex.
+   * @param first One vertex.
+   * @param second The other vertex.
+   */
+  private static void union(AtomicIntegerArray parents, int first, int second) {
+    while (true) {
+      int firstRoot = find(parents, first);
+      int secondRoot = find(parents, second);
+
+      if (firstRoot == secondRoot) {
+        return;
+      }
+
+      // Only a root may be moved, so a failed swap means another thread joined it first
+      int larger = Math.max(firstRoot, secondRoot);
+      int smaller = Math.min(firstRoot, secondRoot);
+      if (parents.compareAndSet(larger, larger, smaller)) {
+        return;
+      }
+    }
+  }
+}
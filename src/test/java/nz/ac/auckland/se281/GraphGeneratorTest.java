@@ -0,0 +1,117 @@
+package nz.ac.auckland.se281;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nz.ac.auckland.se281.GraphGenerator.Model;
+import org.junit.Test;
+
+public class GraphGeneratorTest {
+
+  @Test
+  public void erdosRenyiMakesTheExpectedNumberOfEdges() {
+    int size = 2000;
+    double chance = 0.01;
+    List<int[]> edges = generate(Model.ERDOS_RENYI, size, chance, 7);
+
+    // The count has a spread of about 200, so this is many spreads from the expectation
+    double expected = chance * size * (size - 1);
+    assertTrue("edges " + edges.size(), Math.abs(edges.size() - expected) < expected * 0.05);
+
+    Set<Long> distinct = new HashSet<Long>();
+    for (int[] edge : edges) {
+      assertNotEquals(edge[0], edge[1]);
+      assertTrue(distinct.add((long) edge[0] * size + edge[1]));
+    }
+  }
+
+  @Test
+  public void preferentialAttachmentJoinsEachVertexToEarlierOnes() {
+    int size = 1000;
+    int edgesEach = 3;
+    List<int[]> edges = generate(Model.PREFERENTIAL_ATTACHMENT, size, edgesEach, 7);
+
+    int[] outDegrees = new int[size];
+    int[] inDegrees = new int[size];
+    Set<Long> distinct = new HashSet<Long>();
+    for (int[] edge : edges) {
+      assertTrue(edge[1] < edge[0]);
+      assertTrue(distinct.add((long) edge[0] * size + edge[1]));
+      outDegrees[edge[0]]++;
+      inDegrees[edge[1]]++;
+    }
+
+    for (int vertex = 0; vertex < size; vertex++) {
+      assertEquals(Math.min(vertex, edgesEach), outDegrees[vertex]);
+    }
+
+    // Early verticies gather far more edges than the average in degree of edgesEach
+    int maxInDegree = 0;
+    for (int inDegree : inDegrees) {
+      maxInDegree = Math.max(maxInDegree, inDegree);
+    }
+    assertTrue("max in degree " + maxInDegree, maxInDegree > 10 * edgesEach);
+  }
+
+  @Test
+  public void sameSeedMakesTheSameGraph() {
+    List<int[]> first = generate(Model.PREFERENTIAL_ATTACHMENT, 500, 2, 42);
+    List<int[]> second = generate(Model.PREFERENTIAL_ATTACHMENT, 500, 2, 42);
+
+    assertEquals(first.size(), second.size());
+    for (int i = 0; i < first.size(); i++) {
+      assertEquals(first.get(i)[0], second.get(i)[0]);
+      assertEquals(first.get(i)[1], second.get(i)[1]);
+    }
+  }
+
+  @Test
+  public void chainsAreSeparateRunsOfVerticies() {
+    List<int[]> edges = generate(Model.CHAINS, 10, 3, 0);
+
+    // Chains of length 4: 0 to 3, 4 to 7, and 8 to 9
+    assertEquals(7, edges.size());
+    for (int[] edge : edges) {
+      assertEquals(edge[0] + 1, edge[1]);
+      assertNotEquals(0, edge[1] % 4);
+    }
+  }
+
+  @Test
+  public void equivalenceJoinsEveryPairInAClass() {
+    List<int[]> edges = generate(Model.EQUIVALENCE, 10, 3, 0);
+
+    // Classes of 4, 3 and 3 verticies, each with every ordered pair including self loops
+    assertEquals(4 * 4 + 3 * 3 + 3 * 3, edges.size());
+    for (int[] edge : edges) {
+      assertEquals(edge[0] % 3, edge[1] % 3);
+    }
+  }
+
+  @Test
+  public void totalOrderJoinsEachVertexToEveryLaterOne() {
+    int size = 6;
+    List<int[]> edges = generate(Model.TOTAL_ORDER, size, 0, 0);
+
+    assertEquals(size * (size + 1) / 2, edges.size());
+    for (int[] edge : edges) {
+      assertTrue(edge[0] <= edge[1]);
+    }
+  }
+
+  private static List<int[]> generate(Model model, int size, double parameter, long seed) {
+    List<int[]> edges = new ArrayList<int[]>();
+    GraphGenerator.generate(
+        model,
+        size,
+        parameter,
+        seed,
+        (source, destination) -> edges.add(new int[] {source, destination}));
+    return edges;
+  }
+}
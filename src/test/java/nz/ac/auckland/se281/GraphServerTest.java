@@ -0,0 +1,154 @@
+package nz.ac.auckland.se281;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphServerTest {
+
+  private GraphServer server;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new Main().serve("a.txt", 0);
+    assertNotNull(server);
+  }
+
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+
+  @Test
+  public void answersGetWithCommandParameter() throws Exception {
+    String[] response = get("list-root-verticies");
+
+    assertEquals("200", response[0]);
+    assertEquals("[0]", response[1].trim());
+  }
+
+  @Test
+  public void answersEachLineOfPost() throws Exception {
+    String[] response = post("check-transitivity\n# a comment\n\ngraph-search-ibfs\n");
+
+    assertEquals("200", response[0]);
+    assertTrue(response[1], response[1].contains("The graph is NOT transitive"));
+    assertTrue(response[1], response[1].contains("[0, 1, 2, 3, 4, 5]"));
+  }
+
+  @Test
+  public void refusesCommandsThatChangeTheGraph() throws Exception {
+    String[] response = post("add-edge 0 0\nlist-root-verticies\n");
+
+    assertEquals("400", response[0]);
+    assertTrue(response[1], response[1].contains("Error: ADD_EDGE can not be run"));
+    assertEquals("[0]", get("list-root-verticies")[1].trim());
+  }
+
+  @Test
+  public void reportsUnknownCommands() throws Exception {
+    String[] response = get("not-a-command");
+
+    assertEquals("400", response[0]);
+    assertTrue(response[1], response[1].contains("Command not found"));
+  }
+
+  @Test
+  public void answersConcurrentRequests() throws Exception {
+    ExecutorService clients = Executors.newFixedThreadPool(8);
+    List<Future<String[]>> responses = new ArrayList<Future<String[]>>();
+
+    try {
+      for (int i = 0; i < 64; i++) {
+        String command = i % 2 == 0 ? "graph-search-ibfs" : "graph-search-idfs";
+        responses.add(clients.submit(() -> get(command)));
+      }
+
+      for (int i = 0; i < responses.size(); i++) {
+        String[] response = responses.get(i).get();
+        assertEquals("200", response[0]);
+        assertEquals(i % 2 == 0 ? "[0, 1, 2, 3, 4, 5]" : "[0, 1, 3, 4, 5, 2]", response[1].trim());
+      }
+    } finally {
+      clients.shutdown();
+    }
+  }
+
+  /**
+   * Sends a command as the parameter of a GET.
+   *
+   * @param command The command to send.
+   * @return The status and body of the response.
+   * @throws IOException If the request fails.
+   */
+  private String[] get(String command) throws IOException {
+    String query = "?command=" + URLEncoder.encode(command, StandardCharsets.UTF_8);
+    return read(open(query));
+  }
+
+  /**
+   * Sends commands as the body of a POST.
+   *
+   * @param body The commands to send, one per line.
+   * @return The status and body of the response.
+   * @throws IOException If the request fails.
+   */
+  private String[] post(String body) throws IOException {
+    HttpURLConnection connection = open("");
+    connection.setRequestMethod("POST");
+    connection.setDoOutput(true);
+    try (OutputStream out = connection.getOutputStream()) {
+      out.write(body.getBytes(StandardCharsets.UTF_8));
+    }
+    return read(connection);
+  }
+
+  /**
+   * Opens a connection to the server.
+   *
+   * @param query The query to add to the address.
+   * @return The connection.
+   * @throws IOException If the connection can not be opened.
+   */
+  private HttpURLConnection open(String query) throws IOException {
+    URL url = new URL("http://" + server.getHost() + ":" + server.getPort() + "/" + query);
+    return (HttpURLConnection) url.openConnection();
+  }
+
+  /**
+   * Reads the response of a request, whatever its status.
+   *
+   * @param connection The connection of the request.
+   * @return The status and body of the response.
+   * @throws IOException If the response can not be read.
+   */
+  private static String[] read(HttpURLConnection connection) throws IOException {
+    int status = connection.getResponseCode();
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    try (InputStream in =
+        status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+      if (in != null) {
+        in.transferTo(body);
+      }
+    }
+    return new String[] {String.valueOf(status), body.toString(StandardCharsets.UTF_8)};
+  }
+}
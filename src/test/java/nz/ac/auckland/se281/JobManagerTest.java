@@ -0,0 +1,67 @@
+package nz.ac.auckland.se281;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JobManagerTest {
+
+  private final ByteArrayOutputStream captureOut = new ByteArrayOutputStream();
+  private final JobManager jobs = new JobManager();
+  private PrintStream origOut;
+
+  @Before
+  public void setUp() {
+    origOut = System.out;
+    System.setOut(new PrintStream(captureOut, true));
+  }
+
+  @After
+  public void tearDown() {
+    jobs.shutdown();
+    System.setOut(origOut);
+  }
+
+  @Test(timeout = 10000)
+  public void cancelStopsARunningJob() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch stopped = new CountDownLatch(1);
+    jobs.submit(
+        "sleep",
+        () -> {
+          started.countDown();
+          try {
+            Thread.sleep(Long.MAX_VALUE);
+          } catch (final InterruptedException e) {
+            stopped.countDown();
+          }
+        });
+
+    started.await();
+    jobs.cancel("1");
+    stopped.await();
+
+    assertTrue(captureOut.toString().contains("Cancelled job 1: sleep"));
+    assertFalse(jobs.hasRunningJobs());
+  }
+
+  @Test(timeout = 10000)
+  public void cancelLeavesAFinishedJobToBeWaitedFor() {
+    jobs.submit("print", () -> System.out.println("from the job"));
+    jobs.awaitRunning();
+
+    jobs.cancel("1");
+    jobs.waitFor("1");
+
+    final String output = captureOut.toString();
+    assertFalse(output.contains("Cancelled job"));
+    assertTrue(output.contains("Job 1 has already finished, so it was not cancelled: print"));
+    assertTrue(output.indexOf("not cancelled") < output.indexOf("from the job"));
+  }
+}
@@ -0,0 +1,68 @@
+package nz.ac.auckland.se281;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void smallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 50; value++) {
+      histogram.record(value);
+    }
+
+    assertEquals(50, histogram.getCount());
+    assertEquals(1275, histogram.getTotal());
+    assertEquals(50, histogram.getMax());
+    assertEquals(25, histogram.getValueAtPercentile(50));
+    assertEquals(50, histogram.getValueAtPercentile(99));
+    assertEquals(1, histogram.getValueAtPercentile(0));
+  }
+
+  @Test
+  public void percentilesAreWithinThreePercent() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Random random = new Random(0);
+    long[] values = new long[10000];
+
+    // Spread the values over many powers of two, from nanoseconds to minutes
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (long) Math.exp(random.nextDouble() * 25);
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+
+    for (double percentile : new double[] {1, 10, 50, 90, 99, 99.9}) {
+      long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+      long actual = histogram.getValueAtPercentile(percentile);
+
+      assertTrue(percentile + "th percentile " + actual, actual >= expected);
+      assertTrue(percentile + "th percentile " + actual, actual <= expected * 1.032 + 1);
+    }
+    assertEquals(values[values.length - 1], histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void extremeValuesAreKept() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+
+    assertEquals(0, histogram.getValueAtPercentile(50));
+    assertEquals(Long.MAX_VALUE, histogram.getMax());
+    assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void emptyHistogramIsZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getValueAtPercentile(99));
+  }
+}
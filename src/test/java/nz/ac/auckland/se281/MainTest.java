@@ -2,6 +2,12 @@ package nz.ac.auckland.se281;
 
 import static nz.ac.auckland.se281.Command.*;
 
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -364,5 +370,461 @@ public class MainTest {
       assertContains("Successfully opened graph from file test3.txt");
       assertContains("[0, 1, 2, 3]");
     }
+
+    @Test
+    public void Test4_01_topological_sort() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", TOPOLOGICAL_SORT);
+      assertContains("Successfully opened graph from file a.txt");
+      assertContains("[0, 1, 2, 3, 4, 5]");
+    }
+
+    @Test
+    public void Test4_02_topological_sort_cycle() throws Exception {
+      runCommands(OPEN_FILE, "b.txt", TOPOLOGICAL_SORT);
+      assertContains("Successfully opened graph from file b.txt");
+      assertContains("The graph is not acyclic, found cycle: [0, 0]");
+    }
+
+    @Test
+    public void Test4_03_shortest_path() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", SHORTEST_PATH, 0, 5);
+      assertContains("Successfully opened graph from file a.txt");
+      assertContains("Shortest path from 0 to 5: [0, 1, 5] (2 hops)");
+    }
+
+    @Test
+    public void Test4_04_shortest_path_none() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", SHORTEST_PATH, 5, 0);
+      assertContains("Successfully opened graph from file a.txt");
+      assertContains("There is no path from 5 to 0");
+    }
+
+    @Test
+    public void Test4_05_reachable() throws Exception {
+      runCommands(OPEN_FILE, "test.txt", REACHABLE, 0, 21, REACHABLE, 21, 0);
+      assertContains("Successfully opened graph from file test.txt");
+      assertContains("0 can reach 21");
+      assertContains("21 can NOT reach 0");
+    }
+
+    @Test
+    public void Test4_06_reachability_index() throws Exception {
+      runCommands(OPEN_FILE, "b.txt", INDEX_REACHABILITY);
+      assertContains("Successfully opened graph from file b.txt");
+      assertContains("(2 components, 2 intervals, ");
+    }
+
+    @Test
+    public void Test4_07_add_edge() throws Exception {
+      runCommands(
+          OPEN_FILE, "a.txt", ADD_EDGE, 5, 0, CHECK_SYMMETRY, LIST_ROOT_VERTICIES, ADD_EDGE, 5, 0);
+      assertContains("Successfully opened graph from file a.txt");
+      assertContains("Added edge 5 -> 0");
+      assertContains("The graph is NOT symmetric");
+      assertContains("[]");
+      assertContains("Error: edge 5 -> 0 is already in the graph");
+    }
+
+    @Test
+    public void Test4_08_remove_edge() throws Exception {
+      runCommands(
+          OPEN_FILE,
+          "c.txt",
+          REMOVE_EDGE,
+          0,
+          0,
+          CHECK_REFLEXIVITY,
+          LIST_ROOT_VERTICIES,
+          ADD_EDGE,
+          0,
+          0,
+          CHECK_EQUIVALENCE);
+      assertContains("Successfully opened graph from file c.txt");
+      assertContains("Removed edge 0 -> 0");
+      assertContains("The graph is NOT reflexive");
+      assertContains("[0]");
+      assertContains("The graph is an equivalence relation");
+    }
+
+    @Test
+    public void Test4_09_equivalence_after_edits() throws Exception {
+      runCommands(
+          OPEN_FILE,
+          "c.txt",
+          REMOVE_EDGE,
+          2,
+          1,
+          CHECK_EQUIVALENCE,
+          ADD_EDGE,
+          2,
+          1,
+          CHECK_EQUIVALENCE);
+      assertContains("Successfully opened graph from file c.txt");
+      assertContains("The graph is NOT an equivalence relation");
+      assertContains("The graph is an equivalence relation");
+    }
+
+    @Test
+    public void Test4_10_weak_components() throws Exception {
+      runCommands(
+          OPEN_FILE,
+          "test2.txt",
+          COUNT_WEAK_COMPONENTS,
+          COMPUTE_WEAK_COMPONENT,
+          8,
+          COMPUTE_WEAK_COMPONENT,
+          99);
+      assertContains("Successfully opened graph from file test2.txt");
+      assertContains("The graph has 5 weakly connected components");
+      assertContains("Number of components of each size: {1=1, 2=2, 3=1, 4=1}");
+      assertContains("[2, 8, 9, 23]");
+      assertContains("Error: vertex '99' is not in the graph");
+      assertDoesNotContain("[]", true);
+    }
+
+    @Test
+    public void Test4_11_stats() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", STATS);
+      assertContains("Successfully opened graph from file a.txt");
+      assertContains("Verticies: 6, edges: 5, self loops: 0, density: 0.1389");
+      assertContains("Out-degree: max 3, mean 0.83, histogram {0=4, 1=0, 2-3=2}");
+      assertContains("In-degree: max 1, mean 0.83, histogram {0=1, 1=5}");
+    }
+
+    @Test
+    public void Test4_12_page_rank() throws Exception {
+      runCommands(OPEN_FILE, "c.txt", PAGE_RANK, 0.85, 0.000001, 50, 2);
+      assertContains("Successfully opened graph from file c.txt");
+      assertContains("PageRank converged after 1 iterations");
+      assertContains("1. 0 (score 0.250000)");
+      assertContains("2. 1 (score 0.250000)");
+    }
+
+    @Test
+    public void Test4_13_triangles() throws Exception {
+      runCommands(OPEN_FILE, "c.txt", COUNT_TRIANGLES, COMPUTE_CLUSTERING, 2);
+      assertContains("Successfully opened graph from file c.txt");
+      assertContains(
+          "The graph has 1 triangles, global clustering coefficient 1.0000, average clustering"
+              + " coefficient 0.7500");
+      assertContains("Vertex 2 is in 1 triangles, clustering coefficient 1.0000");
+    }
+
+    @Test
+    public void Test4_14_triangles_not_symmetric() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", COUNT_TRIANGLES);
+      assertContains("Successfully opened graph from file a.txt");
+      assertContains("Error: triangles can only be counted in a symmetric graph");
+    }
+
+    @Test
+    public void Test4_15_partial_order() throws Exception {
+      runCommands(OPEN_FILE, "d.txt", CHECK_PARTIAL_ORDER, COMPUTE_HASSE_DIAGRAM);
+      assertContains("Successfully opened graph from file d.txt");
+      assertContains("The graph is a partial order");
+      assertContains("Transitive reduction has 7 of 18 edges:");
+      assertContains("1 -> 2");
+      assertContains("2 -> 6");
+      assertContains("6 -> 12");
+      assertDoesNotContain("1 -> 12", true);
+    }
+
+    @Test
+    public void Test4_16_partial_order_cycle() throws Exception {
+      runCommands(OPEN_FILE, "b.txt", CHECK_PARTIAL_ORDER, COMPUTE_HASSE_DIAGRAM);
+      assertContains("Successfully opened graph from file b.txt");
+      assertContains("The graph is NOT a partial order");
+      assertContains("Error: the graph has a cycle between distinct verticies");
+    }
+
+    @Test
+    public void Test4_17_neighbourhood() throws Exception {
+      runCommands(
+          OPEN_FILE,
+          "test.txt",
+          COMPUTE_NEIGHBOURHOOD,
+          1,
+          2,
+          "forwards",
+          COMPUTE_NEIGHBOURHOOD,
+          15,
+          1,
+          "backwards",
+          COMPUTE_NEIGHBOURHOOD,
+          7,
+          1,
+          "both");
+      assertContains("Successfully opened graph from file test.txt");
+      assertContains("Found 6 verticies within 2 hops of 1 going forwards");
+      assertContains("Hop 0: [1]");
+      assertContains("Hop 1: [5, 6]");
+      assertContains("Hop 2: [7, 8, 15]");
+      assertContains("Found 4 verticies within 1 hops of 15 going backwards");
+      assertContains("Hop 1: [5, 7, 22]");
+      assertContains("Found 4 verticies within 1 hops of 7 going both");
+      assertContains("Hop 1: [5, 15, 20]");
+    }
+
+    @Test
+    public void Test4_18_neighbourhood_invalid() throws Exception {
+      runCommands(
+          OPEN_FILE,
+          "test.txt",
+          COMPUTE_NEIGHBOURHOOD,
+          1,
+          -1,
+          "forwards",
+          COMPUTE_NEIGHBOURHOOD,
+          1,
+          2,
+          "sideways");
+      assertContains("Error: '-1' is not a valid number of hops");
+      assertContains(
+          "Error: 'sideways' is not a valid direction, expected one of [FORWARDS, BACKWARDS,"
+              + " BOTH]");
+    }
+
+    @Test
+    public void Test4_19_batch_script() throws Exception {
+      runCommands(OPEN_FILE, "a.txt");
+      final String script =
+          String.join(
+              NEW_LINE,
+              "# roots of a.txt",
+              "open-file a.txt",
+              "",
+              "list-root-verticies",
+              "check-symmetry",
+              "exit",
+              "check-reflexivity");
+
+      int errors = new Main().startBatch(new BufferedReader(new StringReader(script)));
+      Assert.assertEquals(0, errors);
+      assertContains("[0]");
+      assertContains("The graph is NOT symmetric");
+      assertDoesNotContain("The graph is NOT reflexive");
+    }
+
+    @Test
+    public void Test4_20_batch_errors() throws Exception {
+      runCommands(OPEN_FILE, "a.txt");
+      final String script = String.join(NEW_LINE, "open-file missing.txt", "info", "unknown");
+
+      int errors = new Main().startBatch(new BufferedReader(new StringReader(script)));
+      Assert.assertEquals(3, errors);
+      assertContains("Error: file 'missing.txt' not found in `testcases` folder");
+      assertContains("Error: no valid file open");
+    }
+
+    @Test
+    public void Test4_21_profile() throws Exception {
+      runCommands(
+          PROFILE,
+          OPEN_FILE,
+          "a.txt",
+          CHECK_TRANSITIVITY,
+          CHECK_TRANSITIVITY,
+          ADD_EDGE,
+          100,
+          101,
+          PROFILE);
+      assertContains("No commands have been run yet");
+      assertContains("CHECK_TRANSITIVITY: 2 calls, p50 ");
+      assertContains("ADD_EDGE: 1 calls, p50 ");
+      assertContains("last graph 8 verticies and 6 edges");
+    }
+
+    @Test
+    public void Test4_22_metrics_file() throws Exception {
+      runCommands(OPEN_FILE, "a.txt");
+      final Path file = Files.createTempFile("metrics", ".csv");
+      final Main main = new Main();
+      main.setMetricsFile(file);
+      main.startBatch(new BufferedReader(new StringReader("open-file a.txt\ninfo\ninfo\nexit")));
+
+      final List<String> lines = Files.readAllLines(file);
+      Files.delete(file);
+      Assert.assertEquals(
+          "command,count,p50_ns,p99_ns,max_ns,total_ns,last_verticies,last_edges,"
+              + "alloc_p50_bytes,alloc_p99_bytes,alloc_max_bytes,alloc_total_bytes,gc_ms",
+          lines.get(0));
+      Assert.assertTrue(lines.get(2).startsWith("INFO,2,"));
+      Assert.assertTrue(lines.get(2).endsWith(",6,5,,,,,"));
+      Assert.assertEquals(4, lines.size());
+    }
+
+    @Test
+    public void Test4_23_allocations() throws Exception {
+      runCommands(OPEN_FILE, "a.txt");
+      final Main main = new Main();
+      main.setAllocationTracking(true);
+      main.startBatch(
+          new BufferedReader(
+              new StringReader("open-file a.txt\ngraph-search-ibfs\ngraph-search-ibfs\nprofile")));
+
+      // Every command allocates at least its output
+      Assert.assertEquals(
+          2, main.getMetrics().getAllocationHistogram(GRAPH_SEARCH_IBFS).getCount());
+      Assert.assertTrue(main.getMetrics().getAllocationHistogram(GRAPH_SEARCH_IBFS).getMax() > 0);
+      assertContains("\tallocated p50 ");
+      assertContains(" ms of garbage collection");
+    }
+
+    @Test
+    public void Test4_24_background_jobs() throws Exception {
+      runCommands(
+          OPEN_FILE,
+          "a.txt",
+          GRAPH_SEARCH_IBFS,
+          "&",
+          INFO,
+          WAIT,
+          1,
+          CHECK_SYMMETRY,
+          "&",
+          WAIT,
+          2,
+          JOBS);
+      assertContains("Started job 1: GRAPH_SEARCH_IBFS");
+      assertContains("Job 1 done after ");
+      assertContains("Job 2 done after ");
+      assertContains("There are no jobs");
+
+      // The output of the job is held back until it is waited for
+      final String output = getCaptureOut();
+      Assert.assertTrue(output.indexOf("File name: a.txt") < output.indexOf("[0, 1, 2, 3, 4, 5]"));
+      Assert.assertTrue(output.indexOf("Job 1 done") < output.indexOf("[0, 1, 2, 3, 4, 5]"));
+    }
+
+    @Test
+    public void Test4_25_background_jobs_invalid() throws Exception {
+      runCommands(
+          OPEN_FILE, "a.txt", OPEN_FILE, "b.txt", "&", WAIT, "one", WAIT, 7, CANCEL, 7, JOBS, "&");
+      assertContains("Error: OPEN_FILE can not run in the background");
+      assertContains("Error: 'one' is not a valid job number");
+      assertContains("Error: there is no job 7");
+      assertContains("Error: JOBS can not run in the background");
+    }
+
+    @Test
+    public void Test4_26_workspace() throws Exception {
+      runCommands(
+          LIST_GRAPHS,
+          OPEN_GRAPH,
+          "first",
+          "a.txt",
+          OPEN_GRAPH,
+          "second",
+          "b.txt",
+          new String[] {"@first list-root-verticies"},
+          INFO,
+          USE_GRAPH,
+          "first",
+          LIST_GRAPHS,
+          CLOSE_GRAPH,
+          "first",
+          INFO,
+          USE_GRAPH,
+          "first");
+      assertContains("There are no graphs open");
+      assertContains("Successfully opened graph from file a.txt as first");
+      assertContains("[0]");
+      assertContains("File name: b.txt");
+      assertContains("Using graph first");
+      assertContains("  second: file b.txt, 7 verticies and 17 edges, in memory");
+      assertContains("* first: file a.txt, 6 verticies and 5 edges, in memory");
+      assertContains("Closed graph first");
+      assertContains("Error: no valid file open");
+      assertContains("Error: there is no graph called 'first'");
+    }
+
+    @Test
+    public void Test4_27_workspace_spill() throws Exception {
+      runCommands(OPEN_FILE, "a.txt");
+      final Main main = new Main();
+      main.setGraphBudget(0);
+      final String script =
+          String.join(
+              NEW_LINE,
+              "open-graph first a.txt",
+              "add-edge 7 8",
+              "open-graph second b.txt",
+              "list-graphs",
+              "use-graph first",
+              "list-root-verticies");
+
+      Assert.assertEquals(0, main.startBatch(new BufferedReader(new StringReader(script))));
+      assertContains("Spilled graph first to disk to stay within the memory budget");
+      assertContains("  first: file a.txt, 8 verticies and 6 edges, spilled to disk");
+      assertContains("Spilled graph second to disk to stay within the memory budget");
+
+      // The edge added before the graph was spilled is still there
+      assertContains("[0, 7]");
+    }
+
+    @Test
+    public void Test4_28_set_timeout() throws Exception {
+      runCommands(
+          OPEN_FILE,
+          "a.txt",
+          SET_TIMEOUT,
+          60000,
+          GRAPH_SEARCH_IBFS,
+          SET_TIMEOUT,
+          "-1",
+          SET_TIMEOUT,
+          "soon",
+          SET_TIMEOUT,
+          0,
+          CHECK_TRANSITIVITY);
+      assertContains("Commands now stop after 60000 ms");
+      assertContains("[0, 1, 2, 3, 4, 5]");
+      assertContains("Error: '-1' is not a valid timeout in milliseconds");
+      assertContains("Error: 'soon' is not a valid timeout in milliseconds");
+      assertContains("Commands no longer have a time limit");
+      assertContains("The graph is NOT transitive");
+      assertDoesNotContain("timed out", true);
+    }
+
+    @Test
+    public void Test4_29_memory() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", MEMORY, COMPUTE_HASSE_DIAGRAM, MEMORY);
+      assertContains("verticies: 288 bytes");
+      assertContains("adjacency lists: ");
+      assertContains("verticies in file order: ");
+      assertContains("partial order: ");
+      assertContains("for 6 verticies and 5 edges");
+      assertContains("A compact representation would need about ");
+      assertContains("graphs of this size");
+    }
+
+    @Test
+    public void Test4_30_page_rank_invalid_options() throws Exception {
+      runCommands(
+          OPEN_FILE, "c.txt", PAGE_RANK, 0.85, 0, 50, 2, PAGE_RANK, 0.85, -0.1, 50, 2, PAGE_RANK,
+          0.85, 0.000001, 50, -1);
+      assertContains("Error: '0' is not a valid tolerance");
+      assertContains("Error: '-0.1' is not a valid tolerance");
+      assertContains("Error: '-1' is not a valid number of verticies to list");
+      assertDoesNotContain("PageRank converged", true);
+    }
+
+    @Test
+    public void Test4_31_cancel_finished_job() throws Exception {
+      runCommands(OPEN_FILE, "a.txt");
+      final Main main = new Main();
+
+      // A script waits for its jobs before it ends, so the job has finished by the second script
+      main.startBatch(new BufferedReader(new StringReader("open-file a.txt\ncheck-symmetry &")));
+      main.startBatch(new BufferedReader(new StringReader("cancel 1\nwait 1")));
+      assertContains("Job 1 has already finished, so it was not cancelled: check-symmetry");
+      assertContains("Job 1 done after ");
+      assertDoesNotContain("Cancelled job", true);
+
+      // The output of the job is held back until the second script waits for it
+      final String output = getCaptureOut();
+      Assert.assertTrue(
+          output.indexOf("not cancelled") < output.indexOf("The graph is NOT symmetric"));
+    }
   }
 }
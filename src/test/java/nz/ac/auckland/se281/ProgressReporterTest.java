@@ -0,0 +1,54 @@
+package nz.ac.auckland.se281;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import nz.ac.auckland.se281.datastructures.CancellationToken;
+import org.junit.Test;
+
+public class ProgressReporterTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  @Test
+  public void countedPhaseShowsFractionRateAndTimeLeft() {
+    assertEquals(
+        "Checking transitivity: 25% (250 of 1000 edges, 125 edges/s, 6 s left)",
+        ProgressReporter.describe("checking transitivity", "edges", 250, 1000, 2 * SECOND));
+  }
+
+  @Test
+  public void timeLeftIsUnknownBeforeAnyProgress() {
+    assertEquals(
+        "Searching: 0% (0 of 10 verticies, 0 verticies/s, ? s left)",
+        ProgressReporter.describe("searching", "verticies", 0, 10, SECOND));
+  }
+
+  @Test
+  public void progressPastTheTotalIsCapped() {
+    assertEquals(
+        "Searching: 100% (10 of 10 verticies, 10 verticies/s, 0 s left)",
+        ProgressReporter.describe("searching", "verticies", 12, 10, SECOND));
+  }
+
+  @Test
+  public void uncountedPhaseShowsElapsedTime() {
+    assertEquals(
+        "Parsing: 1.5 s so far",
+        ProgressReporter.describe("parsing", "bytes", 0, -1, 3 * SECOND / 2));
+  }
+
+  @Test
+  public void quickCommandDrawsNothing() {
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    ProgressReporter reporter = new ProgressReporter(new PrintStream(err));
+
+    CancellationToken token = new CancellationToken();
+    reporter.start(token);
+    token.begin("searching", 10, "verticies");
+    reporter.stop();
+
+    assertEquals(0, err.size());
+  }
+}
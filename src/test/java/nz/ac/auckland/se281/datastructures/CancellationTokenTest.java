@@ -0,0 +1,155 @@
+package nz.ac.auckland.se281.datastructures;
+
+import static nz.ac.auckland.se281.datastructures.TestGraphs.createChain;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Test;
+
+public class CancellationTokenTest {
+
+  private static final int SIZE = 5000;
+
+  @After
+  public void tearDown() {
+    CancellationToken.install(null);
+    Thread.interrupted();
+  }
+
+  @Test
+  public void searchesFinishWithNoDeadline() {
+    CancellationToken token = new CancellationToken();
+    CancellationToken.install(token);
+
+    assertEquals(SIZE, createChain(SIZE).iterativeBreadthFirstSearch().size());
+    assertEquals(SIZE, token.getProcessed());
+  }
+
+  @Test
+  public void progressIsPublishedForEachPhase() {
+    CancellationToken token = new CancellationToken();
+    CancellationToken.install(token);
+
+    Graph<String> graph = createChain(SIZE);
+    assertEquals("matching reverse edges", token.getPhase());
+    assertEquals(SIZE - 1, token.getTotal());
+    assertEquals(SIZE - 1, token.getProcessed());
+
+    graph.iterativeDepthFirstSearch();
+    assertEquals("searching", token.getPhase());
+    assertEquals("verticies", token.getUnit());
+    assertEquals(SIZE, token.getTotal());
+
+    // Other threads only see the count as of the last check
+    assertEquals(SIZE, token.getProcessed());
+    assertTrue(token.getReportedProcessed() > SIZE - 1024);
+    assertTrue(token.getReportedProcessed() <= SIZE);
+  }
+
+  @Test
+  public void cancelledTokenStopsSearchAtFirstCheck() {
+    // Take the snapshot first, as it is kept and would be cancelled instead
+    Graph<String> graph = createChain(SIZE);
+    graph.getSnapshot();
+    CancellationToken token = new CancellationToken();
+    token.cancel();
+    CancellationToken.install(token);
+
+    try {
+      graph.recursiveDepthFirstSearch();
+      fail("The search should have been cancelled");
+    } catch (CancelledException e) {
+      assertFalse(e.isTimedOut());
+      assertEquals("searching", e.getPhase());
+      assertEquals(1024, e.getProcessed());
+      assertEquals("verticies", e.getUnit());
+    }
+  }
+
+  @Test
+  public void passedDeadlineTimesOutTransitivityCheck() throws Exception {
+    CancellationToken.install(new CancellationToken(1));
+    Thread.sleep(1);
+
+    try {
+      createLoops(SIZE).isTransitive();
+      fail("The check should have timed out");
+    } catch (CancelledException e) {
+      assertTrue(e.isTimedOut());
+    }
+  }
+
+  @Test
+  public void interruptStopsShortestPath() {
+    CancellationToken.install(new CancellationToken());
+    Thread.currentThread().interrupt();
+
+    try {
+      createChain(SIZE).findShortestPath("0", String.valueOf(SIZE - 1));
+      fail("The search should have been cancelled");
+    } catch (CancelledException e) {
+      assertFalse(e.isTimedOut());
+    }
+  }
+
+  @Test
+  public void cancelledTokenStopsNeighbourhoodSearch() {
+    // Build the search first, so the search itself is what gets cancelled
+    Graph<String> graph = createChain(SIZE);
+    graph.findNeighbourhood("0", 1, NeighbourhoodSearch.Direction.FORWARDS);
+    CancellationToken token = new CancellationToken();
+    token.cancel();
+    CancellationToken.install(token);
+
+    try {
+      graph.findNeighbourhood("0", SIZE, NeighbourhoodSearch.Direction.FORWARDS);
+      fail("The search should have been cancelled");
+    } catch (CancelledException e) {
+      assertEquals("searching the neighbourhood", e.getPhase());
+      assertEquals(1024, e.getProcessed());
+    }
+
+    // A cancelled search leaves the searcher ready for the next one
+    CancellationToken.install(null);
+    assertEquals(4, graph.findNeighbourhood("0", 3, NeighbourhoodSearch.Direction.FORWARDS).size());
+  }
+
+  @Test
+  public void cancelledBuildLeavesNoPartialCache() {
+    Graph<String> graph = createChain(SIZE);
+    CancellationToken token = new CancellationToken();
+    token.cancel();
+    CancellationToken.install(token);
+
+    try {
+      graph.getPartialOrder();
+      fail("The transitive reduction should have been cancelled");
+    } catch (CancelledException e) {
+      // Expected
+    }
+
+    CancellationToken.install(null);
+    assertEquals(SIZE - 1, graph.getPartialOrder().getCoverEdges().size());
+  }
+
+  /**
+   * Helper method to create a graph with a self loop on every vertex, which is transitive.
+   *
+   * @param size The number of verticies.
+   * @return The graph with an edge from each vertex to itself.
+   */
+  private static Graph<String> createLoops(int size) {
+    Set<String> verticies = new HashSet<String>();
+    Set<Edge<String>> edges = new HashSet<Edge<String>>();
+    for (int i = 0; i < size; i++) {
+      verticies.add(String.valueOf(i));
+      edges.add(new Edge<String>(String.valueOf(i), String.valueOf(i)));
+    }
+    return new Graph<String>(verticies, edges);
+  }
+}
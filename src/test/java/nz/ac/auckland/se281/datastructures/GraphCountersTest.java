@@ -0,0 +1,127 @@
+package nz.ac.auckland.se281.datastructures;
+
+import static nz.ac.auckland.se281.datastructures.TestGraphs.createChain;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import javax.management.JMX;
+import javax.management.ObjectName;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Reads the counters through the platform MXBean, as JConsole would. */
+public class GraphCountersTest {
+
+  private GraphCountersMXBean counters;
+
+  @Before
+  public void setUp() throws Exception {
+    // Make sure the counters are registered before looking them up
+    GraphCounters.getInstance();
+
+    counters =
+        JMX.newMXBeanProxy(
+            ManagementFactory.getPlatformMBeanServer(),
+            new ObjectName(GraphCounters.OBJECT_NAME),
+            GraphCountersMXBean.class);
+    counters.reset();
+  }
+
+  @Test
+  public void countersAreEnabledForTests() {
+    assertTrue(counters.isEnabled());
+  }
+
+  @Test
+  public void breadthFirstSearchScansEachEdgeOnce() {
+    Graph<String> graph = createChain(5);
+
+    // Take the snapshot first, as it is kept and only counted once
+    graph.getSnapshot();
+    counters.reset();
+
+    graph.iterativeBreadthFirstSearch();
+
+    // The snapshot queues verticies in an array, so only the edges are counted
+    assertEquals(4, counters.getEdgesScanned());
+    assertEquals(0, counters.getNodesVisited());
+    assertEquals(0, counters.getPushes());
+    assertEquals(0, counters.getPops());
+  }
+
+  @Test
+  public void constructorScansEachEdgeThreeTimes() {
+    createChain(5);
+
+    // Once each to build the adjacency lists, count in-degrees and look for reverse edges
+    assertEquals(12, counters.getEdgesScanned());
+    assertEquals(4, counters.getHashLookups());
+  }
+
+  @Test
+  public void transitivityCheckStopsAtFirstMissingEdge() {
+    Graph<String> graph = createChain(5);
+    graph.getSnapshot();
+    counters.reset();
+
+    // The path 0 -> 1 -> 2 is found first, and 0 -> 2 is missing
+    assertFalse(graph.isTransitive());
+    assertEquals(2, counters.getEdgesScanned());
+    assertEquals(0, counters.getHashLookups());
+  }
+
+  @Test
+  public void equivalenceClassesAreOnlyFoundWhenAsked() {
+    // Equivalence classes {0, 1, 2} and {3, 4}
+    Set<String> verticies = new HashSet<String>();
+    Set<Edge<String>> edges = new HashSet<Edge<String>>();
+    for (String[] equivalenceClass : new String[][] {{"0", "1", "2"}, {"3", "4"}}) {
+      for (String source : equivalenceClass) {
+        verticies.add(source);
+        for (String destination : equivalenceClass) {
+          edges.add(new Edge<String>(source, destination));
+        }
+      }
+    }
+    Graph<String> graph = new Graph<String>(verticies, edges);
+    assertEquals(new HashSet<String>(Arrays.asList("0", "3")), graph.getRoots());
+    counters.reset();
+
+    // Edits only copy blocks, and the counts rule out equivalence without looking at the edges
+    graph.removeEdge("4", "4");
+    assertEquals(new HashSet<String>(), graph.getRoots());
+    graph.removeEdge("1", "2");
+    assertEquals(new HashSet<String>(), graph.getRoots());
+    graph.addEdge("4", "4");
+    assertEquals(0, counters.getEdgesScanned());
+
+    // Once the counts allow it, the classes are looked for once, from every edge
+    graph.addEdge("1", "2");
+    assertEquals(new HashSet<String>(Arrays.asList("0", "3")), graph.getRoots());
+    assertEquals(new HashSet<String>(Arrays.asList("0", "3")), graph.getRoots());
+    assertEquals(edges.size(), counters.getEdgesScanned());
+
+    // Removing the only link between 3 and 4 splits their class
+    graph.removeEdge("3", "4");
+    graph.removeEdge("4", "3");
+    assertEquals(new HashSet<String>(Arrays.asList("0", "3", "4")), graph.getRoots());
+    assertEquals(2 * edges.size() - 2, counters.getEdgesScanned());
+  }
+
+  @Test
+  public void resetClearsEveryCounter() {
+    createChain(5).iterativeDepthFirstSearch();
+    counters.reset();
+
+    assertEquals(0, counters.getEdgesScanned());
+    assertEquals(0, counters.getNodesVisited());
+    assertEquals(0, counters.getHashLookups());
+    assertEquals(0, counters.getPushes());
+    assertEquals(0, counters.getPops());
+  }
+}
@@ -0,0 +1,531 @@
+package nz.ac.auckland.se281.datastructures;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntFunction;
+import nz.ac.auckland.se281.GraphGenerator;
+import org.junit.Test;
+
+/**
+ * Checks that the operations of a graph grow no faster than their declared complexity. Each
+ * operation is timed on generated graphs of doubling size, and the growth exponent is fitted to the
+ * fastest of several runs at each size. A test fails if the fitted exponent is more than the
+ * tolerance above the declared one, which catches a linear operation that has become quadratic.
+ *
+ * <p>Larger graphs no longer fit in the processor caches, which on its own makes a linear operation
+ * look worse than linear. Each size is therefore also timed on a baseline that reads memory in a
+ * random order, and whatever the baseline grows faster than linear is taken off the fitted
+ * exponent, so the tolerance only has to cover the noise of the timings.
+ *
+ * <p>The checks and searches of a graph run on its snapshot, which is taken the first time they are
+ * timed and then kept up to date by the edits that drop the other cached results, as in the CLI.
+ *
+ * <p>Most graphs keep their average degree fixed as they grow, so the edges grow with the
+ * verticies. Dense graphs instead keep their verticies fixed and let the size be their number of
+ * edges, so the degree grows with the size and work that is quadratic in the degree shows up as
+ * quadratic growth rather than hiding in a constant.
+ *
+ * <p>These tests depend on the timing of a quiet machine, so they only run with the scaling
+ * profile.
+ */
+public class GraphScalingTest {
+
+  private static final int[] SIZES = {4096, 8192, 16384, 32768, 65536, 131072};
+  private static final int REPETITIONS = 7;
+  private static final double TOLERANCE = 0.3;
+  private static final double CONSTANT = 0;
+  private static final double LINEAR = 1;
+  private static final double QUADRATIC = 2;
+
+  // The verticies of each dense graph, whose degree grows from 2 to 64 over the sizes
+  private static final int DENSE_VERTICIES = 2048;
+
+  // The edits timed together, so each run is long enough to time
+  private static final int EDITS = 1024;
+
+  // Larger sizes are skipped once a run takes this long, so a regression fails quickly
+  private static final long TIME_LIMIT = 1_000_000_000L;
+
+  // The ints the baseline reads for each vertex, about what a snapshot keeps for each vertex
+  private static final int BASELINE_STRIDE = 4;
+
+  // Results are kept here so the timed work is not optimised away
+  private static volatile Object sink;
+
+  @Test
+  public void constructorIsLinear() throws Exception {
+    assertGrowth(
+        "constructor",
+        LINEAR,
+        size -> {
+          Set<String> verticies = createVerticies(size);
+          Set<Edge<String>> edges = createEdges(GraphGenerator.Model.ERDOS_RENYI, size, 4.0 / size);
+          return () -> sink = new Graph<String>(verticies, edges);
+        });
+  }
+
+  @Test
+  public void rootsAreLinear() throws Exception {
+    assertGrowth(
+        "roots",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createGraph(GraphGenerator.Model.ERDOS_RENYI, size, 1.0 / size);
+          return () -> {
+            invalidate(graph);
+            sink = graph.getRoots();
+          };
+        });
+  }
+
+  @Test
+  public void equivalenceRootsAreLinear() throws Exception {
+    assertGrowth(
+        "equivalence roots",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createDenseEquivalence(size);
+          return () -> {
+            invalidate(graph);
+            sink = graph.getRoots();
+          };
+        });
+  }
+
+  @Test
+  public void propertyChecksAreLinear() throws Exception {
+    assertGrowth(
+        "property checks",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createDenseEquivalence(size);
+          return () -> {
+            invalidate(graph);
+            sink = graph.isReflexive();
+            sink = graph.isSymmetric();
+            sink = graph.isAntiSymmetric();
+            sink = graph.isEquivalence();
+            sink = graph.getEquivalenceClass("0");
+          };
+        });
+  }
+
+  @Test
+  public void equivalenceEditsTakeConstantTime() throws Exception {
+    // Each edit copies the blocks of its verticies into a new snapshot, and the classes are only
+    // looked for again when they are next asked for
+    assertGrowth(
+        "edits of an equivalence relation",
+        CONSTANT,
+        size -> {
+          int classes = size / 16;
+          Graph<String> graph = createGraph(GraphGenerator.Model.EQUIVALENCE, size, classes);
+          sink = graph.getSnapshot().getRoots();
+          return () -> {
+            for (int i = 0; i < EDITS; i++) {
+              String source = String.valueOf(i);
+              String destination = String.valueOf(i + classes);
+              graph.removeEdge(source, destination);
+              graph.addEdge(source, destination);
+            }
+          };
+        });
+  }
+
+  @Test
+  public void transitivityIsLinearAtAFixedDegree() throws Exception {
+    assertGrowth(
+        "transitivity at degree 16",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createGraph(GraphGenerator.Model.EQUIVALENCE, size, size / 16);
+          return () -> sink = graph.isTransitive();
+        });
+  }
+
+  @Test
+  public void transitivityIsQuadraticInTheDegree() throws Exception {
+    // Each edge A->B checks every edge leaving B, so the work is the sum of the squared degrees
+    assertGrowth(
+        "transitivity of a dense equivalence relation",
+        QUADRATIC,
+        size -> {
+          Graph<String> graph = createDenseEquivalence(size);
+          return () -> sink = graph.isTransitive();
+        });
+  }
+
+  @Test
+  public void totalOrderChecksAreLinear() throws Exception {
+    assertGrowth(
+        "checks of a total order",
+        LINEAR,
+        size -> {
+          Graph<String> graph =
+              createGraph(GraphGenerator.Model.TOTAL_ORDER, (int) Math.sqrt(2.0 * size), 0);
+          return () -> {
+            invalidate(graph);
+            sink = graph.isReflexive();
+            sink = graph.isAntiSymmetric();
+            sink = graph.getRoots();
+          };
+        });
+  }
+
+  @Test
+  public void iterativeBreadthFirstSearchIsLinear() throws Exception {
+    assertGrowth(
+        "iterative breadth-first search",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createGraph(GraphGenerator.Model.ERDOS_RENYI, size, 2.0 / size);
+          return () -> sink = graph.iterativeBreadthFirstSearch();
+        });
+  }
+
+  @Test
+  public void iterativeDepthFirstSearchIsLinear() throws Exception {
+    assertGrowth(
+        "iterative depth-first search",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createGraph(GraphGenerator.Model.ERDOS_RENYI, size, 2.0 / size);
+          return () -> sink = graph.iterativeDepthFirstSearch();
+        });
+  }
+
+  @Test
+  public void recursiveBreadthFirstSearchIsLinear() throws Exception {
+    assertGrowth(
+        "recursive breadth-first search",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createGraph(GraphGenerator.Model.ERDOS_RENYI, size, 2.0 / size);
+          return () -> sink = graph.recursiveBreadthFirstSearch();
+        });
+  }
+
+  @Test
+  public void recursiveDepthFirstSearchIsLinear() throws Exception {
+    assertGrowth(
+        "recursive depth-first search",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createGraph(GraphGenerator.Model.CHAINS, size, size / 64);
+          return () -> sink = graph.recursiveDepthFirstSearch();
+        });
+  }
+
+  @Test
+  public void equivalenceSearchesAreLinear() throws Exception {
+    assertGrowth(
+        "searches of an equivalence relation",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createDenseEquivalence(size);
+          return () ->
+              sink = graph.iterativeBreadthFirstSearch().equals(graph.iterativeDepthFirstSearch());
+        });
+  }
+
+  @Test
+  public void topologicalSortIsLinear() throws Exception {
+    assertGrowth(
+        "topological sort and cycle search",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createGraph(GraphGenerator.Model.ERDOS_RENYI, size, 2.0 / size);
+          return () -> sink = graph.topologicalSort();
+        });
+  }
+
+  @Test
+  public void shortestPathIsLinear() throws Exception {
+    assertGrowth(
+        "shortest path",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createGraph(GraphGenerator.Model.CHAINS, size, 1);
+          return () -> sink = graph.findShortestPath("0", String.valueOf(size - 1));
+        });
+  }
+
+  @Test
+  public void indexesAreLinear() throws Exception {
+    assertGrowth(
+        "reachability index, weak components and statistics",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createGraph(GraphGenerator.Model.PREFERENTIAL_ATTACHMENT, size, 2);
+          return () -> {
+            invalidate(graph);
+            sink = graph.getReachabilityIndex();
+            sink = graph.getWeakComponents();
+            sink = graph.getStatistics();
+          };
+        });
+  }
+
+  @Test
+  public void pageRankIsLinear() throws Exception {
+    assertGrowth(
+        "page rank",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createGraph(GraphGenerator.Model.PREFERENTIAL_ATTACHMENT, size, 2);
+          return () -> sink = graph.computePageRank(0.85, 0, 10);
+        });
+  }
+
+  @Test
+  public void trianglesAndReductionAreLinear() throws Exception {
+    assertGrowth(
+        "triangles and transitive reduction",
+        LINEAR,
+        size -> {
+          Graph<String> graph = createGraph(GraphGenerator.Model.CHAINS, size, size / 8);
+          return () -> {
+            invalidate(graph);
+            sink = graph.getTriangles();
+            sink = graph.getPartialOrder();
+          };
+        });
+  }
+
+  /**
+   * Times an operation at each size and checks its fitted growth exponent.
+   *
+   * @param operation The name of the operation, for the failure message.
+   * @param exponent The declared growth exponent of the operation.
+   * @param fixture Creates the operation to time for a given size.
+   * @throws Exception If the operation fails.
+   */
+  private static void assertGrowth(String operation, double exponent, IntFunction<Runnable> fixture)
+      throws Exception {
+    Throwable[] failure = new Throwable[1];
+    double[] times = new double[SIZES.length];
+    double[] baselines = new double[SIZES.length];
+    int[] measured = new int[1];
+
+    Thread thread =
+        new Thread(
+            null,
+            () -> {
+              try {
+                for (int i = 0; i < SIZES.length; i++) {
+                  Runnable timed = fixture.apply(SIZES[i]);
+
+                  // Warm up the compiler on the smallest size, and at every size run once untimed
+                  // to take the snapshot the operations share, then clear away what the fixture
+                  // left behind so the collector does not run in the middle of a timed run
+                  if (i == 0) {
+                    time(timed);
+                  } else {
+                    timed.run();
+                  }
+                  System.gc();
+                  times[i] = time(timed);
+
+                  Runnable baseline = createBaseline(SIZES[i]);
+                  if (i == 0) {
+                    time(baseline);
+                  }
+                  baselines[i] = time(baseline);
+                  measured[0]++;
+
+                  if (i > 0 && times[i] > TIME_LIMIT) {
+                    break;
+                  }
+                }
+              } catch (Throwable e) {
+                failure[0] = e;
+              }
+            },
+            "scaling",
+            Graph.RECURSIVE_SEARCH_STACK_SIZE);
+    thread.start();
+    thread.join();
+
+    if (failure[0] instanceof Exception) {
+      throw (Exception) failure[0];
+    } else if (failure[0] != null) {
+      throw new AssertionError(failure[0]);
+    }
+
+    double fitted = fitExponent(times, measured[0]);
+    double slowdown = Math.max(0, fitExponent(baselines, measured[0]) - LINEAR);
+    StringBuilder message =
+        new StringBuilder(operation)
+            .append(
+                String.format(
+                    " grew with exponent %.2f less %.2f for the caches, expected at most %.2f:",
+                    fitted, slowdown, exponent + TOLERANCE));
+    for (int i = 0; i < measured[0]; i++) {
+      message.append(
+          String.format(
+              " %d in %.3f ms (baseline %.3f ms),", SIZES[i], times[i] / 1e6, baselines[i] / 1e6));
+    }
+
+    assertTrue(message.toString(), fitted - slowdown <= exponent + TOLERANCE);
+  }
+
+  /**
+   * Helper method to run an operation several times and keep the fastest, which is the run least
+   * disturbed by garbage collection and other work.
+   *
+   * @param operation The operation to time.
+   * @return The fastest time in nanoseconds.
+   */
+  private static double time(Runnable operation) {
+    long fastest = Long.MAX_VALUE;
+
+    for (int i = 0; i < REPETITIONS; i++) {
+      long start = System.nanoTime();
+      operation.run();
+      fastest = Math.min(fastest, System.nanoTime() - start);
+
+      if (fastest > TIME_LIMIT) {
+        break;
+      }
+    }
+
+    return fastest;
+  }
+
+  /**
+   * Helper method to create the baseline for a size, which visits every vertex once in a random
+   * order and reads the memory a snapshot would keep for it. Its work is linear, so any faster
+   * growth comes from the caches.
+   *
+   * @param size The number of verticies.
+   * @return The baseline to time.
+   */
+  private static Runnable createBaseline(int size) {
+    int[] order = new int[size];
+    for (int vertex = 0; vertex < size; vertex++) {
+      order[vertex] = vertex;
+    }
+    Random random = new Random(size);
+    for (int i = size - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swapped = order[i];
+      order[i] = order[j];
+      order[j] = swapped;
+    }
+    int[] values = new int[size * BASELINE_STRIDE];
+
+    return () -> {
+      boolean[] visited = new boolean[size];
+      long sum = 0;
+      for (int vertex : order) {
+        visited[vertex] = true;
+        sum += values[vertex * BASELINE_STRIDE];
+      }
+      sink = sum;
+    };
+  }
+
+  /**
+   * Helper method to fit the growth exponent, the slope of a least squares line through the log of
+   * each time against the log of its size.
+   *
+   * @param times The time taken at each size.
+   * @param count The number of sizes that were timed.
+   * @return The fitted growth exponent.
+   */
+  private static double fitExponent(double[] times, int count) {
+    double meanX = 0;
+    double meanY = 0;
+    for (int i = 0; i < count; i++) {
+      meanX += Math.log(SIZES[i]) / count;
+      meanY += Math.log(times[i]) / count;
+    }
+
+    double covariance = 0;
+    double variance = 0;
+    for (int i = 0; i < count; i++) {
+      double x = Math.log(SIZES[i]) - meanX;
+      covariance += x * (Math.log(times[i]) - meanY);
+      variance += x * x;
+    }
+
+    return covariance / variance;
+  }
+
+  /**
+   * Helper method to drop the cached results of a graph, by removing and adding back one edge.
+   *
+   * @param graph The graph to invalidate.
+   */
+  private static void invalidate(Graph<String> graph) {
+    if (graph.removeEdge("0", "0")) {
+      graph.addEdge("0", "0");
+    } else {
+      graph.addEdge("0", "0");
+      graph.removeEdge("0", "0");
+    }
+  }
+
+  /**
+   * Helper method to create the verticies of a generated graph.
+   *
+   * @param size The number of verticies.
+   * @return The verticies, numbered from 0.
+   */
+  private static Set<String> createVerticies(int size) {
+    Set<String> verticies = new HashSet<String>();
+    for (int vertex = 0; vertex < size; vertex++) {
+      verticies.add(String.valueOf(vertex));
+    }
+    return verticies;
+  }
+
+  /**
+   * Helper method to create the edges of a generated graph.
+   *
+   * @param model The kind of graph to generate.
+   * @param size The number of verticies.
+   * @param parameter The parameter of the model.
+   * @return The generated edges.
+   */
+  private static Set<Edge<String>> createEdges(
+      GraphGenerator.Model model, int size, double parameter) {
+    Set<Edge<String>> edges = new HashSet<Edge<String>>();
+    GraphGenerator.generate(
+        model,
+        size,
+        parameter,
+        size,
+        (source, destination) ->
+            edges.add(new Edge<String>(String.valueOf(source), String.valueOf(destination))));
+    return edges;
+  }
+
+  /**
+   * Helper method to create a generated graph.
+   *
+   * @param model The kind of graph to generate.
+   * @param size The number of verticies.
+   * @param parameter The parameter of the model.
+   * @return The generated graph.
+   */
+  private static Graph<String> createGraph(GraphGenerator.Model model, int size, double parameter) {
+    return new Graph<String>(createVerticies(size), createEdges(model, size, parameter));
+  }
+
+  /**
+   * Helper method to create an equivalence relation with a fixed number of verticies, whose classes
+   * grow with the number of edges.
+   *
+   * @param edges The number of edges.
+   * @return The generated graph.
+   */
+  private static Graph<String> createDenseEquivalence(int edges) {
+    int classSize = edges / DENSE_VERTICIES;
+    return createGraph(
+        GraphGenerator.Model.EQUIVALENCE, DENSE_VERTICIES, DENSE_VERTICIES / classSize);
+  }
+}
@@ -0,0 +1,204 @@
+package nz.ac.auckland.se281.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class GraphSnapshotTest {
+
+  private static final int SIZE = 300;
+
+  @Test
+  public void searchesVisitInVertexOrder() {
+    // 5 -> 1 -> 10 and 5 -> 3 -> 2, where 10 sorts after 5 as a number. 4 only has an edge to
+    // itself, so it is not a root and is never reached
+    GraphSnapshot<String> snapshot =
+        createRandom(0, 0, new Random(1))
+            .getSnapshot()
+            .withEdge("5", "3")
+            .withEdge("5", "1")
+            .withEdge("3", "2")
+            .withEdge("1", "10")
+            .withEdge("4", "4")
+            .withEdge("2", "2");
+
+    assertEquals(new HashSet<String>(Arrays.asList("5")), snapshot.getRoots());
+    assertEquals(Arrays.asList("5", "1", "3", "10", "2"), snapshot.iterativeBreadthFirstSearch());
+    assertEquals(Arrays.asList("5", "1", "10", "3", "2"), snapshot.iterativeDepthFirstSearch());
+  }
+
+  @Test
+  public void recursiveSearchesMatchIterativeOnes() {
+    GraphSnapshot<String> snapshot = createRandom(SIZE, 2 * SIZE, new Random(1)).getSnapshot();
+
+    assertEquals(snapshot.iterativeBreadthFirstSearch(), snapshot.recursiveBreadthFirstSearch());
+    assertEquals(snapshot.iterativeDepthFirstSearch(), snapshot.recursiveDepthFirstSearch());
+  }
+
+  @Test
+  public void snapshotFollowsChangesToTheGraph() {
+    Random random = new Random(2);
+    Graph<String> graph = createRandom(SIZE, SIZE, random);
+    graph.getSnapshot();
+
+    // Keep the verticies and edges alongside, to take a fresh snapshot of at the end
+    Set<String> verticies = new HashSet<String>(graph.getSnapshot().getVerticies());
+    Set<Edge<String>> edges = new HashSet<Edge<String>>();
+    for (String source : verticies) {
+      for (String destination : graph.getSnapshot().getSuccessors(source)) {
+        edges.add(new Edge<String>(source, destination));
+      }
+    }
+
+    // Add new verticies as well as edges between the ones there already
+    for (int i = 0; i < SIZE; i++) {
+      String source = String.valueOf(random.nextInt(SIZE + 20));
+      String destination = String.valueOf(random.nextInt(SIZE + 20));
+      if (random.nextInt(3) == 0) {
+        graph.removeEdge(source, destination);
+        edges.remove(new Edge<String>(source, destination));
+      } else {
+        graph.addEdge(source, destination);
+        edges.add(new Edge<String>(source, destination));
+        verticies.add(source);
+        verticies.add(destination);
+      }
+    }
+
+    // The new verticies are numbered after the others, which must not change any order
+    GraphSnapshot<String> snapshot = graph.getSnapshot();
+    GraphSnapshot<String> fresh = new Graph<String>(verticies, edges).getSnapshot();
+    assertEquals(fresh.getRoots(), snapshot.getRoots());
+    assertEquals(fresh.iterativeBreadthFirstSearch(), snapshot.iterativeBreadthFirstSearch());
+    assertEquals(fresh.iterativeDepthFirstSearch(), snapshot.iterativeDepthFirstSearch());
+    assertEquals(fresh.recursiveBreadthFirstSearch(), snapshot.recursiveBreadthFirstSearch());
+    assertEquals(fresh.recursiveDepthFirstSearch(), snapshot.recursiveDepthFirstSearch());
+    assertEquals(fresh.isReflexive(), snapshot.isReflexive());
+    assertEquals(fresh.isSymmetric(), snapshot.isSymmetric());
+    assertEquals(fresh.isAntiSymmetric(), snapshot.isAntiSymmetric());
+    assertEquals(fresh.isTransitive(), snapshot.isTransitive());
+  }
+
+  @Test
+  public void changesLeaveOldSnapshotsAsTheyWere() {
+    GraphSnapshot<String> before = createRandom(SIZE, SIZE, new Random(3)).getSnapshot();
+    List<String> search = before.iterativeBreadthFirstSearch();
+    int edgeCount = before.getEdgeCount();
+
+    GraphSnapshot<String> after = before.withEdge("0", "1000").withoutEdge("0", "1000");
+    after = after.withEdge("1", "1");
+
+    assertEquals(search, before.iterativeBreadthFirstSearch());
+    assertEquals(edgeCount, before.getEdgeCount());
+    assertFalse(before.containsVertex("1000"));
+    assertTrue(after.containsVertex("1000"));
+    assertTrue(after.containsEdge("1", "1"));
+    assertSame(after, after.withEdge("1", "1"));
+    assertSame(after, after.withoutEdge("0", "1000"));
+  }
+
+  @Test
+  public void rootsOfEquivalenceAreSmallestOfEachClass() {
+    Set<String> verticies = new HashSet<String>();
+    Set<Edge<String>> edges = new HashSet<Edge<String>>();
+    for (List<String> equivalenceClass :
+        Arrays.asList(Arrays.asList("3", "10"), Arrays.asList("7"), Arrays.asList("2", "5", "9"))) {
+      verticies.addAll(equivalenceClass);
+      for (String source : equivalenceClass) {
+        for (String destination : equivalenceClass) {
+          edges.add(new Edge<String>(source, destination));
+        }
+      }
+    }
+    Graph<String> graph = new Graph<String>(verticies, edges);
+    GraphSnapshot<String> snapshot = graph.getSnapshot();
+
+    assertTrue(snapshot.isEquivalence());
+    assertTrue(snapshot.isTransitive());
+    assertEquals(new HashSet<String>(Arrays.asList("2", "3", "7")), snapshot.getRoots());
+    assertEquals(
+        new HashSet<String>(Arrays.asList("2", "5", "9")), snapshot.getEquivalenceClass("5"));
+    assertEquals(
+        Arrays.asList("2", "5", "9", "3", "10", "7"), snapshot.iterativeDepthFirstSearch());
+
+    // A missing edge inside a class breaks the equivalence
+    GraphSnapshot<String> broken = snapshot.withoutEdge("2", "9").withoutEdge("9", "2");
+    assertFalse(broken.isEquivalence());
+    assertFalse(broken.isTransitive());
+    assertTrue(broken.getEquivalenceClass("5").isEmpty());
+    assertTrue(broken.getRoots().isEmpty());
+
+    // Putting it back, or joining a new vertex as a class of its own, mends it
+    assertEquals(snapshot.getRoots(), broken.withEdge("2", "9").withEdge("9", "2").getRoots());
+    GraphSnapshot<String> joined = snapshot.withEdge("1", "1");
+    assertTrue(joined.isEquivalence());
+    assertEquals(new HashSet<String>(Arrays.asList("1", "2", "3", "7")), joined.getRoots());
+  }
+
+  @Test
+  public void rootsFollowNewAndEmptiedVerticies() {
+    GraphSnapshot<String> snapshot = createRandom(0, 0, new Random(5)).getSnapshot();
+
+    snapshot = snapshot.withEdge("4", "2").withEdge("3", "3").withEdge("1", "4");
+    assertEquals(new HashSet<String>(Arrays.asList("1")), snapshot.getRoots());
+
+    snapshot = snapshot.withoutEdge("1", "4").withoutEdge("3", "3");
+    assertEquals(new HashSet<String>(Arrays.asList("1", "3", "4")), snapshot.getRoots());
+    assertEquals(Arrays.asList("1", "3", "4", "2"), snapshot.recursiveDepthFirstSearch());
+  }
+
+  @Test
+  public void threadsSearchOneSnapshotAtOnce() throws Exception {
+    Graph<String> graph = createRandom(SIZE, 4 * SIZE, new Random(4));
+    GraphSnapshot<String> snapshot = graph.getSnapshot();
+    List<String> expected = graph.iterativeBreadthFirstSearch();
+
+    ExecutorService threads = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<List<String>>> searches = new ArrayList<Future<List<String>>>();
+      for (int i = 0; i < 32; i++) {
+        searches.add(threads.submit(snapshot::iterativeBreadthFirstSearch));
+        graph.addEdge(String.valueOf(i), String.valueOf(SIZE + i));
+      }
+      for (Future<List<String>> search : searches) {
+        assertEquals(expected, search.get());
+      }
+    } finally {
+      threads.shutdown();
+    }
+  }
+
+  /**
+   * Helper method to create a graph with random edges.
+   *
+   * @param size The number of verticies.
+   * @param edgeCount The number of edges to try adding, some of which may be repeats.
+   * @param random The source of the edges.
+   * @return The graph.
+   */
+  private static Graph<String> createRandom(int size, int edgeCount, Random random) {
+    Set<String> verticies = new HashSet<String>();
+    Set<Edge<String>> edges = new HashSet<Edge<String>>();
+    for (int i = 0; i < size; i++) {
+      verticies.add(String.valueOf(i));
+    }
+    for (int i = 0; i < edgeCount; i++) {
+      edges.add(
+          new Edge<String>(
+              String.valueOf(random.nextInt(size)), String.valueOf(random.nextInt(size))));
+    }
+    return new Graph<String>(verticies, edges);
+  }
+}
@@ -0,0 +1,76 @@
+package nz.ac.auckland.se281.datastructures;
+
+import static nz.ac.auckland.se281.datastructures.TestGraphs.createChain;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Test;
+
+public class MemoryFootprintTest {
+
+  private static final int SIZE = 1000;
+
+  @Test
+  public void arraysAreRoundedUpToAlignment() {
+    assertEquals(16, MemoryFootprint.intArray(0));
+    assertEquals(24, MemoryFootprint.intArray(1));
+    assertEquals(32, MemoryFootprint.intArray(3));
+    assertEquals(24, MemoryFootprint.longArray(1));
+    assertEquals(24, MemoryFootprint.object(2, 0));
+  }
+
+  @Test
+  public void hashTablesDoubleWhenThreeQuartersFull() {
+    assertEquals(48, MemoryFootprint.hashMap(0));
+    assertEquals(48 + 80 + 12 * 32, MemoryFootprint.hashMap(12));
+    assertEquals(48 + 144 + 13 * 32, MemoryFootprint.hashMap(13));
+    assertEquals(16 + 48 + 80 + 12 * 32, MemoryFootprint.hashSet(12));
+  }
+
+  @Test
+  public void smallBoxedNumbersAreShared() {
+    assertEquals(0, MemoryFootprint.boxed(127));
+    assertEquals(16, MemoryFootprint.boxed(128));
+    assertEquals(0, MemoryFootprint.boxedIndicies(128));
+    assertEquals(16, MemoryFootprint.boxedIndicies(129));
+  }
+
+  @Test
+  public void stringsAreCountedByLength() {
+    assertEquals(24 + 24, MemoryFootprint.verticies(Arrays.asList("1")));
+    assertEquals(24 + 32, MemoryFootprint.verticies(Arrays.asList("123456789")));
+  }
+
+  @Test
+  public void resultsAreCountedOnceWorkedOut() {
+    Graph<String> graph = createChain(SIZE);
+    Map<String, Long> parts = graph.getMemoryFootprint().getParts();
+    assertEquals(
+        Arrays.asList(
+            "verticies", "edges", "vertex set", "edge set", "adjacency lists", "in-degrees"),
+        Arrays.asList(parts.keySet().toArray()));
+    assertEquals((SIZE - 1) * 24L, (long) parts.get("edges"));
+
+    graph.getPartialOrder();
+    parts = graph.getMemoryFootprint().getParts();
+    assertTrue(parts.containsKey("compact view"));
+    assertTrue(parts.containsKey("partial order"));
+    assertFalse(parts.containsKey("reachability index"));
+  }
+
+  @Test
+  public void compactRepresentationIsSmaller() {
+    MemoryFootprint footprint = createChain(SIZE).getMemoryFootprint();
+    long total = 0;
+    for (long bytes : footprint.getParts().values()) {
+      total += bytes;
+    }
+
+    assertEquals(total, footprint.getTotal());
+    assertTrue(footprint.getCompactBytes() > 0);
+    assertTrue(footprint.getCompactBytes() < footprint.getTotal() / 4);
+  }
+}
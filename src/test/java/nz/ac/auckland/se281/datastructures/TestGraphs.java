@@ -0,0 +1,28 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/** Graphs shared by the tests of the data structures. */
+final class TestGraphs {
+
+  private TestGraphs() {}
+
+  /**
+   * Creates a graph that is a single chain of verticies.
+   *
+   * @param size The number of verticies, named from 0.
+   * @return The graph with an edge from each vertex to the next.
+   */
+  static Graph<String> createChain(int size) {
+    Set<String> verticies = new HashSet<String>();
+    Set<Edge<String>> edges = new HashSet<Edge<String>>();
+    for (int i = 0; i < size; i++) {
+      verticies.add(String.valueOf(i));
+      if (i > 0) {
+        edges.add(new Edge<String>(String.valueOf(i - 1), String.valueOf(i)));
+      }
+    }
+    return new Graph<String>(verticies, edges);
+  }
+}